@@ -0,0 +1,160 @@
+package com.yarmis.core;
+
+import com.yarmis.core.messages.Message;
+import com.yarmis.core.messages.Request;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+/**
+ * A number of requests that are sent to the host together, in a single message, once the batch is sent or closed. The
+ * host executes the requests of a batch in parallel, and answers them all in a single message. This saves a round
+ * trip per request when a number of independent calls are made in a row.
+ * <p/>
+ * While a batch is open on a thread, the asynchronous methods of modules that are called on that thread, those that
+ * return a {@code CompletableFuture} or a {@code CompletionStage}, join the batch instead of being sent on their own.
+ * Their futures complete once the host answered the batch. A batch is meant to be used in a try-with-resources block:
+ * <pre>
+ * try (Batch batch = yarmis.communication().batch()) {
+ *     a = module.first();
+ *     b = module.second();
+ * }
+ * </pre>
+ * The timeout of every request starts when it is added to the batch, not when the batch is sent.
+ */
+public final class Batch implements AutoCloseable {
+
+    /**
+     * The batch that is open on every thread, if any.
+     */
+    private static final ThreadLocal<Batch> current = new ThreadLocal<Batch>();
+
+    private final CommunicationManager manager;
+
+    /**
+     * The batch that was open on the thread that opened this batch, which is restored once this batch is closed.
+     */
+    private final Batch previous;
+
+    private final Thread owner;
+
+    private final List<Request> requests = new ArrayList<Request>();
+
+    /**
+     * The results of the requests, in the same order.
+     */
+    private final List<Result> results = new ArrayList<Result>();
+
+    private boolean sent = false;
+
+    Batch(CommunicationManager manager) {
+        this.manager = manager;
+        this.owner = Thread.currentThread();
+        this.previous = Batch.current.get();
+        Batch.current.set(this);
+    }
+
+    /**
+     * Get the batch that is open on the current thread.
+     *
+     * @return The open batch, or null if no batch is open on this thread.
+     */
+    static Batch current() {
+        return Batch.current.get();
+    }
+
+    /**
+     * Adds a request for the given method to this batch.
+     *
+     * @param recipient The identifier of the module that must execute the method.
+     * @param m         The Method to execute on the Host.
+     * @param args      The arguments to provide to the Host
+     * @return A Result object that can be used to retrieve the return value once the batch has been answered.
+     */
+    public Result request(String recipient, Method m, Object... args) {
+        return this.request(recipient, MethodTable.of(m.getDeclaringClass()), m, args);
+    }
+
+    /**
+     * Adds a request for the given method to this batch.
+     *
+     * @param recipient The identifier of the module that must execute the method.
+     * @param table     The method table of the recipient, which is used to identify the method.
+     * @param m         The Method to execute on the Host.
+     * @param args      The arguments to provide to the Host
+     * @return A Result object that can be used to retrieve the return value once the batch has been answered.
+     * @throws IllegalStateException    If this batch has been sent already.
+     * @throws IllegalArgumentException If the method is answered with a {@code Delta} or returns a {@code
+     *                                  Flow.Publisher}, which can't be batched.
+     */
+    public synchronized Result request(String recipient, MethodTable table, Method m, Object... args) {
+        if (this.sent)
+            throw new IllegalStateException("The batch has been sent already");
+        if (Delta.isDelta(m))
+            throw new IllegalArgumentException(m.getName() + " is answered with a Delta, so it can't be batched");
+        if (m.getReturnType() == Flow.Publisher.class)
+            throw new IllegalArgumentException(m.getName() + " streams its result, so it can't be batched");
+
+        long timeout = Deadline.timeoutFor(m);
+        String identifier = this.manager.communication.getIdentifier();
+        Request request = this.manager.communication.makeRequest(identifier, recipient, table, Delta.NO_VERSION, timeout, m, args);
+        Result result = this.manager.expect(identifier, timeout);
+        this.requests.add(request);
+        this.results.add(result);
+        return result;
+    }
+
+    /**
+     * Get the number of requests in this batch.
+     *
+     * @return The number of requests that have been added.
+     */
+    public synchronized int size() {
+        return this.requests.size();
+    }
+
+    /**
+     * Sends all requests in this batch to the host, in a single message. Requests whose result has been cancelled are
+     * left out. A batch can only be sent once. If the batch can't be sent, its requests won't be answered and are
+     * forgotten.
+     */
+    public synchronized void send() {
+        if (this.sent)
+            return;
+        this.sent = true;
+
+        List<Request> requests = new ArrayList<Request>(this.requests.size());
+        for (int i = 0; i < this.requests.size(); ++i)
+            if (!this.results.get(i).isCancelled())
+                requests.add(this.requests.get(i));
+        if (requests.isEmpty())
+            return;
+
+        Message message = requests.size() == 1 ? requests.get(0) : Message.makeBatch(requests);
+        try {
+            this.manager.sendToHost(message);
+        } catch (RuntimeException e) {
+            // No responses will come for requests that weren't sent
+            for (Request request : requests)
+                this.manager.forget(request.getIdentifier());
+            throw e;
+        }
+    }
+
+    /**
+     * Sends this batch if it hasn't been sent yet, and closes it, such that calls made afterwards are sent on their
+     * own again.
+     */
+    @Override
+    public void close() {
+        if (Thread.currentThread() == this.owner && Batch.current.get() == this) {
+            if (this.previous == null)
+                Batch.current.remove();
+            else
+                Batch.current.set(this.previous);
+        }
+        this.send();
+    }
+}
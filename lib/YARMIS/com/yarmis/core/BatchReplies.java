@@ -0,0 +1,127 @@
+package com.yarmis.core;
+
+import com.yarmis.core.messages.Message;
+import com.yarmis.core.messages.Request;
+import com.yarmis.core.messages.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects the responses to the requests of a received batch, which are sent back together once every request has
+ * been answered. A request whose answer can't be sent as a single {@code Response}, such as one that opens a stream or
+ * one whose value is sent in chunks, is answered on its own instead, just like it would be outside of a batch.
+ * Requests that are skipped are not answered at all.
+ * <p/>
+ * The requests may be answered from different threads. The responses are created by the thread that answers the last
+ * request, which also sends them, such that pooled responses are returned to the pool of the thread that took them.
+ */
+abstract class BatchReplies {
+
+    private final List<Request> requests;
+
+    /**
+     * Whether the responses are taken from the pool, and returned to it once they have been sent.
+     */
+    private final boolean recycling;
+
+    private final Object[] values;
+
+    private final boolean[] successes;
+
+    /**
+     * Whether the request at every index is to be answered in the combined response.
+     */
+    private final boolean[] answered;
+
+    /**
+     * The number of requests that have neither been answered nor skipped yet.
+     */
+    private final AtomicInteger remaining;
+
+    /**
+     * Creates a new BatchReplies.
+     *
+     * @param requests  The requests of the batch.
+     * @param recycling Whether the responses are taken from the pool.
+     */
+    BatchReplies(List<Request> requests, boolean recycling) {
+        this.requests = requests;
+        this.recycling = recycling;
+        this.values = new Object[requests.size()];
+        this.successes = new boolean[requests.size()];
+        this.answered = new boolean[requests.size()];
+        this.remaining = new AtomicInteger(requests.size());
+    }
+
+    /**
+     * Sends the answer to the given request on its own if it can't be sent as a single {@code Response}.
+     *
+     * @param request The request that was answered.
+     * @param value   The value that came from the execution of the request.
+     * @param success Whether the execution of the request was successful.
+     * @return Whether the answer was sent. If not, it is sent in the combined response.
+     */
+    protected abstract boolean answerSeparately(Request request, Object value, boolean success);
+
+    /**
+     * Sends the combined response to the batch.
+     *
+     * @param responses The responses to the requests that were answered, of which there is at least one.
+     */
+    protected abstract void send(List<Response> responses);
+
+    /**
+     * Answers the request at the given index with what came of its execution.
+     *
+     * @param index   The index of the request in the batch.
+     * @param value   The value that came from the execution of the request.
+     * @param success Whether the execution of the request was successful.
+     */
+    void complete(int index, Object value, boolean success) {
+        try {
+            if (!this.answerSeparately(this.requests.get(index), value, success)) {
+                this.values[index] = value;
+                this.successes[index] = success;
+                this.answered[index] = true;
+            }
+        } finally {
+            this.skip(index);
+        }
+    }
+
+    /**
+     * Leaves the request at the given index unanswered. This must also be called once for every request that is
+     * answered, which {@code complete} does.
+     *
+     * @param index The index of the request in the batch.
+     */
+    void skip(int index) {
+        // The last request to finish sees what all others stored, as every request stores it before counting down
+        if (this.remaining.decrementAndGet() == 0)
+            this.respond();
+    }
+
+    private void respond() {
+        List<Response> responses = new ArrayList<>(this.requests.size());
+        for (int i = 0; i < this.requests.size(); ++i) {
+            if (!this.answered[i])
+                continue;
+            String identifier = this.requests.get(i).getIdentifier();
+            responses.add(this.recycling
+                    ? Response.obtain(identifier, this.values[i], this.successes[i])
+                    : Message.makeResponse(identifier, this.values[i], this.successes[i]));
+        }
+        if (responses.isEmpty())
+            return;
+
+        try {
+            this.send(responses);
+        } finally {
+            if (this.recycling)
+                for (Response response : responses)
+                    response.recycle();
+        }
+    }
+}
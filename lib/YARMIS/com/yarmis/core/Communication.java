@@ -6,35 +6,205 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 public class Communication {
 
 
     // A map from type identifiers to classes.
-    private final HashMap<String, Class<?>> stringToTypeMap =
-            new HashMap<>();
-    private final HashMap<Class<?>, String> typeToStringMap =
-            new HashMap<>();
-    private final HashMap<Class<?>, JSONTranslator<?>> typeToTranslatorMap =
-            new HashMap<>();
-    private final HashMap<Class<?>, Class<?>> typeMapping =
-            new HashMap<>();
+    // These maps are concurrent, as translators may be derived by any thread that converts a value.
+    private final Map<String, Class<?>> stringToTypeMap =
+            new ConcurrentHashMap<>();
+    private final Map<Class<?>, String> typeToStringMap =
+            new ConcurrentHashMap<>();
+    private final Map<Class<?>, JSONTranslator<?>> typeToTranslatorMap =
+            new ConcurrentHashMap<>();
+    private final Map<Class<?>, Class<?>> typeMapping =
+            new ConcurrentHashMap<>();
 
     private final Yarmis yarmis;
 
+    /**
+     * Resolves the class names and methods that are received from other devices.
+     */
+    private final Resolver resolver = new Resolver();
+
+    /**
+     * The number of stack frames that is sent along with an exception. A negative value means all of them.
+     */
+    private volatile int stackTraceDepth = -1;
+
+    /**
+     * The number of causes that is sent along with an exception. A negative value means all of them.
+     */
+    private volatile int causeDepth = 8;
+
+    /**
+     * Whether values that occur more than once within a single value are written once and referred to afterwards.
+     */
+    private volatile boolean shareReferences = false;
+
+    /**
+     * The compiled encoders of the parameters of every method whose arguments were encoded by {@code appendArguments}.
+     * These are discarded whenever the registered data types change.
+     */
+    private final Map<Method, ParameterEncoder[]> parameterEncoders = new ConcurrentHashMap<>();
+
+    /**
+     * The templates of the constant parts of messages, see {@code getTemplate}. These are discarded whenever the
+     * registered data types change.
+     */
+    private final Map<Object, Template> templates = new ConcurrentHashMap<>();
+
+    /**
+     * The number of characters or bytes in a chunk of a large String or byte array. 0 means they are never split.
+     */
+    private volatile int chunkSize = 65536;
+
+    /**
+     * The number of elements in a chunk of a large List. 0 means they are never split.
+     */
+    private volatile int chunkElements = 1024;
+
+    /**
+     * The counter from which identifiers are taken, see {@code getIdentifier}.
+     */
+    private final AtomicLong identifiers = new AtomicLong();
+
+    /**
+     * Whether messages, argument arrays and scratch buffers are taken from pools and returned to them once a message
+     * has been sent or handled.
+     */
+    private volatile boolean recycling = false;
+
+    /**
+     * The percentile of recent response times after which idempotent requests are sent to a replica as well, or 0 if
+     * they never are.
+     */
+    private volatile int hedgePercentile = 0;
+
+    /**
+     * The largest frame, in bytes, that is accepted from another device.
+     */
+    private volatile int maxFrameSize = 16 << 20;
+
+    /**
+     * Argument arrays with at most this many elements are recycled.
+     */
+    private static final int MAX_RECYCLED_ARGUMENTS = 8;
+
+    /**
+     * Builders that grew larger than this many characters are not recycled.
+     */
+    private static final int MAX_RECYCLED_BUILDER = 1 << 16;
+
+    /**
+     * The builders in which messages are encoded, if recycling.
+     */
+    private final Recycler<StringBuilder> builders = new Recycler<StringBuilder>() {
+        @Override
+        protected StringBuilder create() {
+            return new StringBuilder(256);
+        }
+
+        @Override
+        protected boolean reset(StringBuilder builder) {
+            builder.setLength(0);
+            return builder.capacity() <= MAX_RECYCLED_BUILDER;
+        }
+    };
+
+    /**
+     * The recyclers of argument arrays and of argument type arrays, by their length.
+     */
+    private final List<Recycler<Object[]>> argumentArrays = new ArrayList<>();
+    private final List<Recycler<Class<?>[]>> typeArrays = new ArrayList<>();
+
+    {
+        for (int i = 0; i <= MAX_RECYCLED_ARGUMENTS; ++i) {
+            final int length = i;
+            this.argumentArrays.add(new Recycler<Object[]>() {
+                @Override
+                protected Object[] create() {
+                    return new Object[length];
+                }
+
+                @Override
+                protected boolean reset(Object[] arguments) {
+                    Arrays.fill(arguments, null);
+                    return true;
+                }
+            });
+            this.typeArrays.add(new Recycler<Class<?>[]>() {
+                @Override
+                protected Class<?>[] create() {
+                    return new Class<?>[length];
+                }
+
+                @Override
+                protected boolean reset(Class<?>[] types) {
+                    Arrays.fill(types, null);
+                    return true;
+                }
+            });
+        }
+    }
+
+    /**
+     * The references of the value that is currently being converted or parsed by each thread. Every thread keeps its
+     * References once it has entered a scope, and reuses them for every later scope.
+     */
+    private final ThreadLocal<References> references = new ThreadLocal<>();
+
+    /**
+     * Strings that are shorter than this are always written in full, as a reference would not be shorter.
+     */
+    private static final int MIN_SHARED_STRING_LENGTH = 8;
+
     public Communication(Yarmis yarmis) {
         this.yarmis = yarmis;
 
+        if (yarmis != null) {
+            this.stackTraceDepth = yarmis.settings.EXCEPTION_STACKTRACE_DEPTH;
+            this.causeDepth = yarmis.settings.EXCEPTION_CAUSE_DEPTH;
+            this.shareReferences = yarmis.settings.SHARE_REFERENCES;
+            this.chunkSize = yarmis.settings.CHUNK_SIZE;
+            this.chunkElements = yarmis.settings.CHUNK_ELEMENTS;
+            this.recycling = yarmis.settings.RECYCLE_MESSAGES;
+            this.setHedgePercentile(yarmis.settings.HEDGE_PERCENTILE);
+            this.setMaxFrameSize(yarmis.settings.MAX_FRAME_SIZE);
+        }
+
         registerDataType("java.lang.Exception", Exception.class, new ExceptionTranslator());
         registerDataType("java.lang.Throwable", Throwable.class, new ThrowableTranslator());
         registerDataType("java.lang.StackTraceElement", StackTraceElement.class, new StackTraceElementTranslator());
         registerDataType("java.util.ArrayList", ArrayList.class, new ArrayListTranslator());
+        registerDataType("java.util.List", List.class, new ListTranslator());
+        registerDataType("java.util.Set", Set.class, new SetTranslator());
+        registerDataType("java.util.Map", Map.class, new MapTranslator());
         registerDataType("java.lang.Class", Class.class, new ClassTranslator());
+        registerDataType("int[]", int[].class, new IntArrayTranslator());
+        registerDataType("long[]", long[].class, new LongArrayTranslator());
+        registerDataType("double[]", double[].class, new DoubleArrayTranslator());
+        registerDataType("byte[]", byte[].class, new ByteArrayTranslator());
+        registerDataType("yarmis.Delta", Delta.class, new DeltaTranslator());
+        registerDataType("yarmis.Versioned", Versioned.class, new VersionedTranslator());
     }
 
 
@@ -43,11 +213,158 @@ public class Communication {
         if (arguments.length != argumentTypes.length)
             throw new IllegalArgumentException("Arrays should have equal length");
 
-        JSONArray conversion = new JSONArray();
-        for (int i = 0; i < arguments.length; ++i)
-            conversion.put(convertValue(arguments[i], argumentTypes[i]));
-        return conversion;
+        // All arguments share their references
+        References references = this.enter(this.shareReferences);
+        try {
+            JSONArray conversion = new JSONArray();
+            for (int i = 0; i < arguments.length; ++i)
+                conversion.put(convertValue(arguments[i], argumentTypes[i]));
+            return conversion;
+        } finally {
+            this.exit(references);
+        }
+
+    }
+
+    /**
+     * Appends the JSON encoding of the given arguments of the given method to the given text. The result is the same
+     * as that of {@code convertArguments}, but the type of every parameter and the translator for it are looked up only
+     * once per method.
+     *
+     * @param sink      The text to append the encoded arguments to.
+     * @param method    The method of which the arguments are encoded.
+     * @param arguments The arguments to encode, or {@code null} if there are none.
+     */
+    public void appendArguments(StringBuilder sink, Method method, Object[] arguments) throws JSONException {
+        if (arguments == null)
+            arguments = new Object[0];
+
+        // Shared references are tracked per value, so those must take the long way.
+        ParameterEncoder[] encoders = this.shareReferences ? null : this.parameterEncoders.get(method);
+        if (encoders == null && !this.shareReferences) {
+            encoders = this.compileParameters(method);
+            if (encoders != null)
+                this.parameterEncoders.put(method, encoders);
+        }
+        if (encoders == null || encoders.length != arguments.length) {
+            sink.append(this.convertArguments(arguments, method.getParameterTypes()).toString());
+            return;
+        }
 
+        sink.append('[');
+        for (int i = 0; i < arguments.length; ++i) {
+            if (i > 0)
+                sink.append(',');
+            encoders[i].append(sink, arguments[i]);
+        }
+        sink.append(']');
+    }
+
+    /**
+     * Compiles the encoders of the parameters of the given method.
+     *
+     * @return The encoders, or {@code null} if some parameter can not be converted to JSON.
+     */
+    private ParameterEncoder[] compileParameters(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        ParameterEncoder[] encoders = new ParameterEncoder[types.length];
+        for (int i = 0; i < types.length; ++i) {
+            if (!validParameter(types[i]))
+                return null;
+
+            Class<?> type = types[i];
+            JSONTranslator<?> translator = null;
+            if (convertPrimitiveClassToString(type).equals(DEFAULT_STRING)) {
+                if (typeMapping.containsKey(type))
+                    type = typeMapping.get(type);
+                translator = typeToTranslatorMap.get(type);
+                if (translator == null)
+                    return null;
+            }
+            encoders[i] = new ParameterEncoder(types[i], "{\"" + Value.TYPE + "\":" + JSONObject.quote(convertClassToString(type))
+                    + ",\"" + Value.VALUE + "\":", translator);
+        }
+        return encoders;
+    }
+
+    /**
+     * Encodes the values of a single parameter.
+     */
+    private final class ParameterEncoder {
+
+        /**
+         * The declared type of the parameter.
+         */
+        private final Class<?> type;
+
+        /**
+         * The start of every encoded value, up to the value itself.
+         */
+        private final String prefix;
+
+        /**
+         * The translator of the values, or {@code null} if they are primitives or Strings.
+         */
+        private final JSONTranslator<Object> translator;
+
+        @SuppressWarnings("unchecked")
+        private ParameterEncoder(Class<?> type, String prefix, JSONTranslator<?> translator) {
+            this.type = type;
+            this.prefix = prefix;
+            // The translator is only given values of the parameter, which it was looked up for
+            this.translator = (JSONTranslator<Object>) translator;
+        }
+
+        private void append(StringBuilder sink, Object value) throws JSONException {
+            if (value == null) {
+                sink.append(Communication.this.convertValue(null, this.type).toString());
+                return;
+            }
+
+            sink.append(this.prefix);
+            if (this.translator == null)
+                sink.append(JSONObject.valueToString(value));
+            else
+                sink.append(this.translator.toJSON(value, Communication.this).toString());
+            sink.append('}');
+        }
+    }
+
+    /**
+     * Get the template of the constant part of a message. Messages that are sent often, such as Requests for the same
+     * method, can keep the encoding of their constant part here, such that only the rest needs to be encoded for every
+     * message.
+     *
+     * @param key     The key of the template, such as the method that messages are about.
+     * @param variant What else the template depends on, such as the module that messages are sent to.
+     * @return The template, or {@code null} if there is no such template.
+     */
+    public String getTemplate(Object key, String variant) {
+        Template template = this.templates.get(key);
+        return template != null && template.variant.equals(variant) ? template.text : null;
+    }
+
+    /**
+     * Stores the template of the constant part of a message. See {@code getTemplate}.
+     *
+     * @param key     The key of the template.
+     * @param variant What else the template depends on.
+     * @param text    The template.
+     */
+    public void putTemplate(Object key, String variant, String text) {
+        this.templates.put(key, new Template(variant, text));
+    }
+
+    private static final class Template {
+
+        private final String variant;
+
+        private final String text;
+
+        private Template(String variant, String text) {
+            this.variant = variant;
+            this.text = text;
+        }
     }
 
     /**
@@ -61,18 +378,37 @@ public class Communication {
      * @throws ClassCastException should the passed Object not castable to the declared type.
      */
     private <T> JSONObject convertValue(Object value, Class<?> type) throws ClassCastException, JSONException {
-        JSONObject result = new JSONObject();
+        // Null is sent as such, whatever the declared type is
+        if (value == null)
+            type = null;
         if (!validParameter(type)) {
-            // We might be able to map this type to an existing type
-            Class<?> supertype = findNearestType(type);
-            if (supertype == null) {
-                // If we were not able to obtain a supertype, complain.
-                throw new JSONSerializationException("The type " + type + " cannot be converted to JSON.");
-            } else {
-                // store this mapping for future reference
-                typeMapping.put(type, supertype);
-            }
+            // Nothing registered fits this type and no translator could be derived, so complain.
+            throw new JSONSerializationException("The type " + type + " cannot be converted to JSON.");
         }
+
+        References references = this.enter(this.shareReferences);
+        try {
+            if (references == null || value == null)
+                return this.convertUnsharedValue(value, type);
+
+            // Refer back to the value if it was written before
+            Integer reference = references.find(value);
+            if (reference != null)
+                return new JSONObject()
+                        .put(Value.TYPE, convertClassToString(type))
+                        .put(Value.REFERENCE, reference.intValue());
+
+            JSONObject result = this.convertUnsharedValue(value, type);
+            if (references.shares(value))
+                result.put(Value.IDENTIFIER, references.add(value));
+            return result;
+        } finally {
+            this.exit(references);
+        }
+    }
+
+    private <T> JSONObject convertUnsharedValue(Object value, Class<?> type) throws ClassCastException, JSONException {
+        JSONObject result = new JSONObject();
         String s = convertClassToString(type);
         switch (s) {
             case TYPE_NULL:
@@ -121,6 +457,337 @@ public class Communication {
         return result;
     }
 
+    /**
+     * Get the number of stack frames that is sent along with an exception.
+     *
+     * @return The number of stack frames to send, 0 if stack traces are omitted, or a negative value if stack traces
+     * are sent in full.
+     */
+    public int getStackTraceDepth() {
+        return this.stackTraceDepth;
+    }
+
+    /**
+     * Set the number of stack frames that is sent along with an exception. Stack traces that are longer are truncated.
+     *
+     * @param stackTraceDepth The number of stack frames to send. Use 0 to omit stack traces and a negative value to
+     *                        send them in full.
+     */
+    public void setStackTraceDepth(int stackTraceDepth) {
+        this.stackTraceDepth = stackTraceDepth;
+    }
+
+    /**
+     * Get the number of causes that is sent along with an exception.
+     *
+     * @return The number of causes to send, or a negative value if all causes are sent.
+     */
+    public int getCauseDepth() {
+        return this.causeDepth;
+    }
+
+    /**
+     * Set the number of causes that is sent along with an exception. Causes beyond that depth are dropped.
+     *
+     * @param causeDepth The number of causes to send. Use a negative value to send all causes.
+     */
+    public void setCauseDepth(int causeDepth) {
+        this.causeDepth = causeDepth;
+    }
+
+    /**
+     * Get whether values that occur more than once within a single value are written once.
+     *
+     * @return {@code true} if repeated values are written once and referred to afterwards.
+     */
+    public boolean getShareReferences() {
+        return this.shareReferences;
+    }
+
+    /**
+     * Set whether values that occur more than once within a single value are written once. Any later occurrence of
+     * the same object, or of an equal String, then refers back to the first one, and is restored on the receiving side
+     * as that same object. Received values are always restored this way, regardless of this setting.
+     * <p/>
+     * The scope of the references is a single value of a message, or all arguments of a Request or Notification.
+     *
+     * @param shareReferences Whether to write repeated values once.
+     */
+    public void setShareReferences(boolean shareReferences) {
+        this.shareReferences = shareReferences;
+    }
+
+    /**
+     * Get the number of characters or bytes in a chunk of a large String or byte array that is returned.
+     *
+     * @return The size of a chunk, or 0 if such values are never split.
+     */
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * Set the number of characters or bytes in a chunk of a large String or byte array. Returned values that are
+     * larger are sent in chunks of this size.
+     *
+     * @param chunkSize The size of a chunk. Use 0 to never split such values.
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Get the number of elements in a chunk of a large List that is returned.
+     *
+     * @return The number of elements in a chunk, or 0 if Lists are never split.
+     */
+    public int getChunkElements() {
+        return this.chunkElements;
+    }
+
+    /**
+     * Set the number of elements in a chunk of a large List. Returned Lists that are larger are sent in chunks of this
+     * many elements.
+     *
+     * @param chunkElements The number of elements in a chunk. Use 0 to never split Lists.
+     */
+    public void setChunkElements(int chunkElements) {
+        this.chunkElements = chunkElements;
+    }
+
+    /**
+     * Whether messages, argument arrays and scratch buffers are recycled. If so, responses and the argument arrays of
+     * received requests are returned to a pool once they have been handled, and messages are encoded in reused
+     * buffers.
+     *
+     * @return Whether recycling is enabled.
+     */
+    public boolean isRecycling() {
+        return this.recycling;
+    }
+
+    /**
+     * Set whether messages, argument arrays and scratch buffers are recycled. This lowers the number of short-lived
+     * objects for every call. Using a message after it has been recycled throws an {@code IllegalStateException}.
+     *
+     * @param recycling Whether recycling is enabled.
+     */
+    public void setRecycling(boolean recycling) {
+        this.recycling = recycling;
+    }
+
+    /**
+     * Get the percentile of recent response times after which a request for an idempotent method is sent to a replica
+     * host as well.
+     *
+     * @return The percentile, or 0 if requests are never sent to a replica.
+     */
+    public int getHedgePercentile() {
+        return this.hedgePercentile;
+    }
+
+    /**
+     * Set the percentile of recent response times after which a request for an idempotent method is sent to a replica
+     * host as well. The first response is used, and the other request is cancelled. A high percentile only sends the
+     * requests that are unusually slow twice.
+     *
+     * @param hedgePercentile The percentile, below 100. Use 0 to never send requests to a replica.
+     */
+    public void setHedgePercentile(int hedgePercentile) {
+        if (hedgePercentile < 0 || hedgePercentile >= 100)
+            throw new IllegalArgumentException("The percentile must be at least 0 and below 100");
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    /**
+     * Get the largest frame that is accepted from another device.
+     *
+     * @return The maximum size of a received frame, in bytes.
+     */
+    public int getMaxFrameSize() {
+        return this.maxFrameSize;
+    }
+
+    /**
+     * Set the largest frame that is accepted from another device. A device that sends a larger frame is disconnected
+     * before the frame is read, such that it can not make this device allocate arbitrary amounts of memory. Values
+     * that are not sent in chunks must fit in a single frame.
+     *
+     * @param maxFrameSize The maximum size of a received frame, in bytes.
+     */
+    public void setMaxFrameSize(int maxFrameSize) {
+        if (maxFrameSize <= 0)
+            throw new IllegalArgumentException("The maximum frame size must be positive");
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Takes an empty StringBuilder from the pool of the current thread. It must be returned through {@code
+     * releaseBuilder} by the same thread.
+     *
+     * @return An empty StringBuilder.
+     */
+    public StringBuilder acquireBuilder() {
+        return this.builders.acquire();
+    }
+
+    /**
+     * Returns a StringBuilder that was taken through {@code acquireBuilder}. It must not be used anymore afterwards.
+     *
+     * @param builder The StringBuilder to return.
+     */
+    public void releaseBuilder(StringBuilder builder) {
+        this.builders.release(builder);
+    }
+
+    /**
+     * Takes an argument array of the given length from the pool of the current thread, in which all elements are
+     * {@code null}. It must be returned through {@code releaseArguments} by the same thread.
+     *
+     * @param length The length of the array.
+     * @return An array of the given length.
+     */
+    public Object[] acquireArguments(int length) {
+        return length <= MAX_RECYCLED_ARGUMENTS ? this.argumentArrays.get(length).acquire() : new Object[length];
+    }
+
+    /**
+     * Returns an argument array that was taken through {@code acquireArguments}. It must not be used anymore
+     * afterwards.
+     *
+     * @param arguments The array to return.
+     */
+    public void releaseArguments(Object[] arguments) {
+        if (arguments.length <= MAX_RECYCLED_ARGUMENTS)
+            this.argumentArrays.get(arguments.length).release(arguments);
+    }
+
+    /**
+     * Takes an argument type array of the given length from the pool of the current thread, see {@code
+     * acquireArguments}.
+     *
+     * @param length The length of the array.
+     * @return An array of the given length.
+     */
+    public Class<?>[] acquireTypes(int length) {
+        return length <= MAX_RECYCLED_ARGUMENTS ? this.typeArrays.get(length).acquire() : new Class<?>[length];
+    }
+
+    /**
+     * Returns an argument type array that was taken through {@code acquireTypes}. It must not be used anymore
+     * afterwards.
+     *
+     * @param types The array to return.
+     */
+    public void releaseTypes(Class<?>[] types) {
+        if (types.length <= MAX_RECYCLED_ARGUMENTS)
+            this.typeArrays.get(types.length).release(types);
+    }
+
+    /**
+     * Enters the scope of the references of the value that is being converted or parsed by this thread. The outermost
+     * value opens a new scope, nested values use the scope of the value that contains them.
+     *
+     * @param open Whether a new scope may be opened if there is none yet.
+     * @return The references of the current scope, or {@code null} if there is none. This must be passed to {@code
+     * exit}.
+     */
+    private References enter(boolean open) {
+        References references = this.references.get();
+        if (references == null) {
+            if (!open)
+                return null;
+            references = new References();
+            this.references.set(references);
+        } else if (references.depth == 0 && !open) {
+            return null;
+        }
+        ++references.depth;
+        return references;
+    }
+
+    /**
+     * Leaves the scope of references that was entered with {@code enter}. Leaving the outermost value forgets all
+     * references, such that the next scope starts out empty.
+     */
+    private void exit(References references) {
+        if (references != null && --references.depth == 0)
+            references.clear();
+    }
+
+    /**
+     * The values that have been written or read within a single scope, by their identifiers. Objects are shared by
+     * identity, Strings by equality.
+     */
+    private static final class References {
+
+        /**
+         * The number of values that are being converted or parsed within this scope.
+         */
+        private int depth;
+
+        private Map<Object, Integer> objects;
+        private Map<String, Integer> strings;
+        private Map<Integer, Object> values;
+
+        private boolean shares(Object value) {
+            if (value instanceof String)
+                return ((String) value).length() >= MIN_SHARED_STRING_LENGTH;
+            // Boxed primitives are cheaper to repeat than to refer to
+            return !(value instanceof Number || value instanceof Boolean || value instanceof Character);
+        }
+
+        private Integer find(Object value) {
+            if (value instanceof String)
+                return this.strings == null ? null : this.strings.get(value);
+            return this.objects == null ? null : this.objects.get(value);
+        }
+
+        private int add(Object value) {
+            if (this.objects == null) {
+                this.objects = new IdentityHashMap<>();
+                this.strings = new HashMap<>();
+            }
+            int identifier = this.objects.size() + this.strings.size();
+            if (value instanceof String)
+                this.strings.put((String) value, identifier);
+            else
+                this.objects.put(value, identifier);
+            return identifier;
+        }
+
+        private void put(int identifier, Object value) {
+            if (this.values == null)
+                this.values = new HashMap<>();
+            this.values.put(identifier, value);
+        }
+
+        private Object get(int identifier) throws JSONException {
+            if (this.values == null || !this.values.containsKey(identifier))
+                throw new JSONException("Reference to unknown value " + identifier);
+            return this.values.get(identifier);
+        }
+
+        /**
+         * Forgets all values of this scope. The maps are only created again once a value is shared, so scopes without
+         * shared values do not allocate anything.
+         */
+        private void clear() {
+            this.objects = null;
+            this.strings = null;
+            this.values = null;
+        }
+    }
+
+    /**
+     * Get the Resolver that must be used to resolve class names and methods that are received from other devices.
+     *
+     * @return The Resolver of this Communication.
+     */
+    public Resolver getResolver() {
+        return this.resolver;
+    }
+
     public static class JSONSerializationException extends IllegalArgumentException {
         public JSONSerializationException(String message) {
             super(message);
@@ -163,12 +830,59 @@ public class Communication {
      */
     public Object[] convertToArguments(JSONArray jsonArray) throws JSONException {
 
-        Object[] arguments = new Object[jsonArray.length()];
-        int i = 0;
-        for (Object argument : jsonArray) {
-            arguments[i++] = parseValue((JSONObject) argument);
+        References references = this.enter(true);
+        try {
+            Object[] arguments = new Object[jsonArray.length()];
+            int i = 0;
+            for (Object argument : jsonArray) {
+                arguments[i++] = parseValue((JSONObject) argument);
+            }
+            return arguments;
+        } finally {
+            this.exit(references);
+        }
+
+    }
+
+    /**
+     * Converts the given JSONArray of values to a list of values and a list of their types in a single pass. The type
+     * of every value is looked up only once.
+     *
+     * @param jsonArray The JSONArray containing all JSONObjects that follow the Value formatting.
+     * @param types     An array with the same length as {@code jsonArray} in which the parsed types are stored, in the
+     *                  same order as the values.
+     * @return A list of parsed Objects, in the some order as in which they were given in the JSONArray.
+     */
+    public Object[] convertToArguments(JSONArray jsonArray, Class<?>[] types) throws JSONException {
+        return this.convertToArguments(jsonArray, types, new Object[types.length]);
+    }
+
+    /**
+     * Converts the given JSONArray of values to the given arrays of values and of their types, see {@code
+     * convertToArguments(JSONArray, Class[])}.
+     *
+     * @param jsonArray The JSONArray containing all JSONObjects that follow the Value formatting.
+     * @param types     An array with the same length as {@code jsonArray} in which the parsed types are stored.
+     * @param arguments An array with the same length as {@code jsonArray} in which the parsed values are stored.
+     * @return The given array of values.
+     */
+    public Object[] convertToArguments(JSONArray jsonArray, Class<?>[] types, Object[] arguments) throws JSONException {
+
+        if (jsonArray.length() != types.length || types.length != arguments.length)
+            throw new IllegalArgumentException("Arrays should have equal length");
+
+        References references = this.enter(true);
+        try {
+            for (int i = 0; i < arguments.length; ++i) {
+                JSONObject argument = jsonArray.getJSONObject(i);
+                String type = argument.getString(Communication.Value.TYPE);
+                types[i] = convertStringToClass(type);
+                arguments[i] = parseValue(type, argument);
+            }
+            return arguments;
+        } finally {
+            this.exit(references);
         }
-        return arguments;
 
     }
 
@@ -205,6 +919,9 @@ public class Communication {
     public static final class Request {
         public static final String MODULE = "module";
         public static final String METHOD = "method";
+        public static final String FINGERPRINT = "fingerprint";
+        public static final String KNOWN = "known";
+        public static final String TIMEOUT = "timeout";
         public static final String VALUES = "values";
     }
 
@@ -222,6 +939,39 @@ public class Communication {
 
     public static final String RESPONSE = "response";
 
+    public static final String CHUNK = "chunk";
+
+    public static final String BATCH = "batch";
+
+    public static final String CANCEL = "cancel";
+
+    public static final String STREAM_SIGNAL = "streamsignal";
+
+    public static final String INVALIDATION = "invalidation";
+
+    public static final class Invalidation {
+        public static final String MODULE = "module";
+        public static final String VERSION = "version";
+    }
+
+    public static final class StreamSignal {
+        public static final String KIND = "kind";
+        public static final String COUNT = "count";
+        public static final String VALUE = "value";
+    }
+
+    public static final class Batch {
+        public static final String MESSAGES = "messages";
+    }
+
+    public static final class Chunk {
+        public static final String KIND = "kind";
+        public static final String SEQUENCE = "sequence";
+        public static final String TOTAL = "total";
+        public static final String LAST = "last";
+        public static final String VALUES = "values";
+    }
+
     public static final class Response {
 
         public static final String IDENTIFIER = "identifier";
@@ -232,6 +982,8 @@ public class Communication {
     public static class Value {
         public static final String TYPE = "type";
         public static final String VALUE = "value";
+        public static final String IDENTIFIER = "id";
+        public static final String REFERENCE = "ref";
     }
 
     public static final String TYPE = "type";
@@ -328,7 +1080,25 @@ public class Communication {
      * @return The value that was parsed from the JSONObject.
      */
     public Object parseValue(JSONObject value) throws JSONException {
-        String type = value.getString(Communication.Value.TYPE);
+        return parseValue(value.getString(Communication.Value.TYPE), value);
+    }
+
+    private Object parseValue(String type, JSONObject value) throws JSONException {
+        References references = this.enter(true);
+        try {
+            if (value.has(Value.REFERENCE))
+                return references.get(value.getInt(Value.REFERENCE));
+
+            Object result = this.parseUnsharedValue(type, value);
+            if (value.has(Value.IDENTIFIER))
+                references.put(value.getInt(Value.IDENTIFIER), result);
+            return result;
+        } finally {
+            this.exit(references);
+        }
+    }
+
+    private Object parseUnsharedValue(String type, JSONObject value) throws JSONException {
         switch (type) {
             case TYPE_NULL:
             case TYPE_BOOLEAN_CLASS:
@@ -367,6 +1137,10 @@ public class Communication {
                 return value.getBoolean(Communication.Value.VALUE);
             case TYPE_CHARACTER_CLASS:
             case TYPE_CHARACTER_PRIMITIVE:
+                // Characters are written as a String of one character
+                Object character = value.get(Communication.Value.VALUE);
+                if (character instanceof String && ((String) character).length() == 1)
+                    return ((String) character).charAt(0);
                 return (char) value.getInt(Communication.Value.VALUE);
             case TYPE_DOUBLE_CLASS:
             case TYPE_DOUBLE_PRIMITIVE:
@@ -394,14 +1168,18 @@ public class Communication {
     }
 
     /**
-     * Creates an identifier. This consists of the IP address, followed by an @ and a time stamp. This makes it unique
-     * across devices and across time.
+     * Creates an identifier. Identifiers are taken from a counter, and written in base 36 to keep them short. They are
+     * unique for this device, which suffices as the responses to a message only ever return to the device that sent
+     * it.
+     * <p/>
+     * Identifiers are handed out as Strings rather than as numbers, because every message, their public factories in
+     * {@code Message} and the binary codec use them as such. Carrying them as numbers would change the wire format and
+     * the public API of every message, so only the way they are created changed.
      *
-     * @return A unique identifier that can be used to identify messages across different devices.
+     * @return A unique identifier that can be used to identify the messages of this device.
      */
     public String getIdentifier() {
-        return yarmis.connection.localAddress() + "@"
-                + System.currentTimeMillis();
+        return Long.toString(this.identifiers.incrementAndGet(), Character.MAX_RADIX);
     }
 
     /**
@@ -414,19 +1192,111 @@ public class Communication {
     public boolean validParameter(Class<?> _class) {
 
         if (DEFAULT_STRING.equals(convertClassToString(_class))) {
+            // A translator for the class itself keeps all of its state, so only fall back to a supertype if there is none
+            if (deriveDataType(_class))
+                return true;
             Class<?> supertype = findNearestType(_class);
-            if (supertype == null) {
+            if (supertype == null)
                 return false;
-            } else {
-                // store this mapping for future reference
-                typeMapping.put(_class, supertype);
-                return true;
-            }
+            // store this mapping for future reference
+            typeMapping.put(_class, supertype);
+            return true;
         } else {
             return true;
         }
     }
 
+    /**
+     * Makes sure that all classes that occur in the given type can be translated, deriving translators where needed.
+     * Parameterized types are inspected as well, such that for a {@code List<Device>} a translator for {@code Device}
+     * is available before the first list arrives. Classes that can not be translated are ignored.
+     *
+     * @param type The type to inspect, usually the generic parameter or return type of a module method.
+     */
+    public void ensureTranslatable(Type type) {
+        if (type instanceof Class) {
+            if (!void.class.equals(type))
+                validParameter((Class<?>) type);
+        } else if (type instanceof ParameterizedType) {
+            ensureTranslatable(((ParameterizedType) type).getRawType());
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments())
+                ensureTranslatable(argument);
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds())
+                ensureTranslatable(bound);
+        } else if (type instanceof GenericArrayType) {
+            ensureTranslatable(((GenericArrayType) type).getGenericComponentType());
+        }
+    }
+
+    /**
+     * Registers the given enum type, encoding its constants either by name or by ordinal. Enums that are not registered
+     * explicitly are derived automatically, and are then encoded by name.
+     *
+     * @param type      The enum type to register.
+     * @param byOrdinal Whether to encode constants by their ordinal ({@code true}) or by their name ({@code false}).
+     * @return See {@code registerDataType}.
+     */
+    public <E extends Enum<E>> Class<?> registerEnum(Class<E> type, boolean byOrdinal) {
+        return registerDataType(type.getName(), type, new EnumTranslator<>(type, byOrdinal));
+    }
+
+    /**
+     * Tries to derive a translator for the given class, and registers it under the name of that class. Translators can
+     * be derived for enums, public records and simple beans: public classes with a no-argument constructor that expose
+     * their state through public getters with matching setters. Collections and maps are never derived, as they are
+     * translated by the translator of their interface.
+     *
+     * @param _class The class for which to derive a translator.
+     * @return {@code true} if the class can now be translated, {@code false} otherwise.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private boolean deriveDataType(Class<?> _class) {
+        JSONTranslator<?> translator;
+        try {
+            translator = deriveTranslator(_class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+        if (translator == null)
+            return false;
+
+        try {
+            registerDataType(_class.getName(), (Class) _class, (JSONTranslator) translator);
+        } catch (IllegalArgumentException e) {
+            // Another thread may have registered it in the mean time, which is fine.
+        }
+
+        // Properties are translated by their declared type if their actual type is unknown, so prepare those too.
+        Type[] propertyTypes = new Type[0];
+        if (translator instanceof BeanTranslator)
+            propertyTypes = ((BeanTranslator<?>) translator).getPropertyTypes();
+        else if (translator instanceof RecordTranslator)
+            propertyTypes = ((RecordTranslator<?>) translator).getPropertyTypes();
+        for (Type type : propertyTypes)
+            ensureTranslatable(type);
+
+        return typeToStringMap.containsKey(_class);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static JSONTranslator<?> deriveTranslator(Class<?> _class) throws ReflectiveOperationException {
+        if (_class == null || _class.isPrimitive() || _class.isArray() || _class.isInterface()
+                || !Modifier.isPublic(_class.getModifiers()))
+            return null;
+        else if (_class.isEnum())
+            return new EnumTranslator(_class, false);
+        else if (_class.isRecord())
+            return new RecordTranslator<>(_class);
+        else if (Modifier.isAbstract(_class.getModifiers()) || Throwable.class.isAssignableFrom(_class)
+                || Collection.class.isAssignableFrom(_class) || Map.class.isAssignableFrom(_class)
+                || _class.equals(Object.class) || _class.getName().startsWith("java."))
+            // Either we can't instantiate it, or it is not something we should treat as a bean.
+            return null;
+        else
+            return new BeanTranslator<>(_class);
+    }
+
     /**
      * If messages contain custom (that is, non-primitive) data types, then Communication needs to know how to handle
      * them. All custom data types must be serializable to JSON and deserializable from JSON.
@@ -462,6 +1332,9 @@ public class Communication {
         } else {
             typeToStringMap.put(_class, identifier);
             typeToTranslatorMap.put(_class, translator);
+            this.parameterEncoders.clear();
+            this.templates.clear();
+            resolver.allow(_class);
             // Check if any of the mapped classes can be made more efficient
             Set<Class<?>> keySet = typeMapping.keySet();
             for (Class<?> c : keySet) {
@@ -520,6 +1393,8 @@ public class Communication {
     }
 
     private void removeMappedClasses(Class<?> _class) {
+        this.parameterEncoders.clear();
+        this.templates.clear();
         // Remove any mapped classes that used the removed class
         Set<Class<?>> keySet = typeMapping.keySet();
         ArrayList<Class<?>> removed = new ArrayList<Class<?>>();
@@ -529,8 +1404,10 @@ public class Communication {
                 removed.add(c);
             }
         }
-        // Try to find a new supertype for the removed classes
+        // Try to translate the removed classes themselves, or else find a new supertype for them
         for (Class<?> c : removed) {
+            if (deriveDataType(c))
+                continue;
             Class<?> supertype = findNearestType(c);
             if (supertype != null) {
                 // store this mapping for future reference
@@ -547,14 +1424,39 @@ public class Communication {
      * the definition of when a method is valid.
      *
      * @param identifier The identifier to use for this request
+     * @param table      The method table of the recipient, used to identify the given method.
      * @param m          The method that needs to be requested
      * @param args       The arguments that need to be passed to the call of the given method.
      * @return The created Request, containing a request for the invocation of the given method, with the given
      * arguments.
      */
-    protected com.yarmis.core.messages.Request makeRequest(String identifier, String recipient, Method m,
-                                                           Object... args) {
-        return Message.makeRequest(identifier, recipient, m, args);
+    protected com.yarmis.core.messages.Request makeRequest(String identifier, String recipient, MethodTable table,
+                                                           Method m, Object... args) {
+        return this.makeRequest(identifier, recipient, table, Delta.NO_VERSION, m, args);
+    }
+
+    /**
+     * Creates a request for a method that is answered with a {@code Delta}.
+     *
+     * @param known The version of the result that is already held, or {@code Delta.NO_VERSION}.
+     */
+    protected com.yarmis.core.messages.Request makeRequest(String identifier, String recipient, MethodTable table,
+                                                           long known, Method m, Object... args) {
+        return this.makeRequest(identifier, recipient, table, known, Deadline.NONE, m, args);
+    }
+
+    /**
+     * Creates a request that tells the host how long the requester waits for the response.
+     *
+     * @param known   The version of the result that is already held, or {@code Delta.NO_VERSION}.
+     * @param timeout The number of milliseconds that the requester waits, or {@code Deadline.NONE}.
+     */
+    protected com.yarmis.core.messages.Request makeRequest(String identifier, String recipient, MethodTable table,
+                                                           long known, long timeout, Method m, Object... args) {
+        int method = table.identify(m);
+        if (method < 0)
+            throw new IllegalArgumentException(m.getName() + " can not be invoked remotely");
+        return Message.makeRequest(identifier, recipient, method, table.getFingerprint(), known, timeout, m, args);
 
     }
 
@@ -1,6 +1,7 @@
 package com.yarmis.core;
 
 import com.yarmis.core.Communication.CommunicationException;
+import com.yarmis.core.annotations.Idempotent;
 import com.yarmis.core.exceptions.InvalidRequestException;
 import com.yarmis.core.logging.Log;
 import com.yarmis.core.messages.*;
@@ -8,8 +9,16 @@ import org.json.JSONObject;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.function.BiConsumer;
 
 public class CommunicationManager extends Manager {
 
@@ -19,6 +28,16 @@ public class CommunicationManager extends Manager {
      */
     private ResultHandler results = new ResultHandler();
 
+    /**
+     * Keeps track of the requests that are being executed for others, such that they can be cancelled.
+     */
+    private final ExecutionTracker executions = new ExecutionTracker();
+
+    /**
+     * The streams of items that this device receives, by the identifier of the request that opened them.
+     */
+    private final ConcurrentHashMap<String, RemotePublisher.Subscription> streams = new ConcurrentHashMap<>();
+
 
     final Communication communication;
 
@@ -37,14 +56,240 @@ public class CommunicationManager extends Manager {
      * @return A Result object that can be used to retrieve the return value.
      */
     public Result request(String recipient, Method m, Object... args) {
+        return this.request(recipient, MethodTable.of(m.getDeclaringClass()), m, args);
+    }
+
+    /**
+     * Requests for the given method to be executed by the Host.
+     *
+     * @param table The method table of the recipient, which is used to identify the method.
+     * @param m     The Method to execute on the Host.
+     * @param args  The arguments to provide to the Host
+     * @return A Result object that can be used to retrieve the return value.
+     */
+    public Result request(String recipient, MethodTable table, Method m, Object... args) {
+        return this.request(recipient, table, Delta.NO_VERSION, m, args);
+    }
+
+    /**
+     * Requests for the given method, which is answered with a {@code Delta}, to be executed by the Host.
+     *
+     * @param table The method table of the recipient, which is used to identify the method.
+     * @param known The version of the result that is already held, or {@code Delta.NO_VERSION}.
+     * @param m     The Method to execute on the Host.
+     * @param args  The arguments to provide to the Host
+     * @return A Result object that can be used to retrieve the {@code Delta}.
+     */
+    public Result request(String recipient, MethodTable table, long known, Method m, Object... args) {
+        return this.request(recipient, table, known, Deadline.timeoutFor(m), m, args);
+    }
+
+    /**
+     * Requests for the given method to be executed by the Host, waiting at most the given number of milliseconds for
+     * the response. The timeout is sent along, such that the Host skips the request once the timeout has passed.
+     *
+     * @param table   The method table of the recipient, which is used to identify the method.
+     * @param known   The version of the result that is already held, or {@code Delta.NO_VERSION}.
+     * @param timeout The number of milliseconds to wait for the response.
+     * @param m       The Method to execute on the Host.
+     * @param args    The arguments to provide to the Host
+     * @return A Result object that can be used to retrieve the return value.
+     */
+    public Result request(String recipient, MethodTable table, long known, long timeout, Method m, Object... args) {
 
         String identifier = communication.getIdentifier();
-        Result result = results.create(identifier);
-        this.sendMessage(communication.makeRequest(identifier, recipient, m, args), yarmis.connection.getHost());
+        Result result = this.expect(identifier, timeout);
+        try {
+            this.sendMessage(communication.makeRequest(identifier, recipient, table, known, timeout, m, args), yarmis.connection.getHost());
+        } catch (RuntimeException e) {
+            // No response will come for a request that wasn't sent
+            results.discard(identifier);
+            throw e;
+        }
+
+        // Cached results carry the version of their host, so they must all come from the same host
+        if (known == Delta.NO_VERSION && m.getAnnotation(Idempotent.class) != null && !Versioned.isCacheable(m))
+            this.hedge(identifier, recipient, table, timeout, m, args);
         return result;
 
     }
 
+    /**
+     * Sends the given request to a replica of the host as well if it hasn't been answered within the configured
+     * percentile of recent response times. The first response is used, after which the other request is cancelled.
+     * Nothing is done if hedging is disabled, if no replica is connected or if too few requests have been answered to
+     * know the recent response times.
+     *
+     * @param identifier The identifier of the request that was sent to the host.
+     * @param timeout    The number of milliseconds that is waited for the response to that request.
+     */
+    private void hedge(final String identifier, final String recipient, final MethodTable table, final long timeout,
+                       final Method m, final Object[] args) {
+        int percentile = communication.getHedgePercentile();
+        if (percentile == 0 || yarmis.connection.getReplica() == null)
+            return;
+        final long delay = results.latency(percentile);
+        if (delay < 0 || delay >= timeout)
+            return;
+
+        ResultHandler.wheel.schedule(delay, new Runnable() {
+            @Override
+            public void run() {
+                // Sending takes too long for the thread of the timing wheel
+                if (results.isPending(identifier))
+                    MessageHandler.messageExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            CommunicationManager.this.sendHedge(identifier, recipient, table, timeout - delay, m, args);
+                        }
+                    });
+            }
+        });
+    }
+
+    /**
+     * Sends a second request for the given outstanding request to a replica of the host.
+     *
+     * @param original The identifier of the outstanding request.
+     * @param timeout  The number of milliseconds that is left to wait for the response.
+     */
+    private void sendHedge(String original, String recipient, MethodTable table, long timeout, Method m, Object[] args) {
+        Device host, replica = yarmis.connection.getReplica();
+        try {
+            host = yarmis.connection.getHost();
+        } catch (RuntimeException e) {
+            return;
+        }
+        if (replica == null)
+            return;
+
+        String identifier = communication.getIdentifier();
+        if (!results.hedge(original, this.abandon(original, host), identifier, this.abandon(identifier, replica), timeout))
+            return;
+        try {
+            this.sendMessage(communication.makeRequest(identifier, recipient, table, Delta.NO_VERSION, timeout, m, args), replica);
+        } catch (RuntimeException e) {
+            // The original request is still outstanding
+            results.discard(identifier);
+            Log.w(TAG, "Could not send " + m.getName() + " to replica " + replica + ": " + e);
+        }
+    }
+
+    /**
+     * Creates what is done with a request that is no longer needed: the device that executes it is told to stop.
+     *
+     * @param identifier The identifier of the request.
+     * @param device     The device to which the request was sent.
+     */
+    private Runnable abandon(final String identifier, final Device device) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    CommunicationManager.this.sendMessage(Message.makeCancel(identifier), device);
+                } catch (RuntimeException e) {
+                    // The device will skip the request once its deadline has passed anyway
+                    Log.w(TAG, "Could not cancel request " + identifier + ": " + e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates a publisher for the items of the given method, which returns a {@code Flow.Publisher}. Every subscription
+     * to it requests the method to be executed by the Host, after which the items that it publishes are streamed to
+     * the subscriber as far as the subscriber demands them.
+     *
+     * @param table The method table of the recipient, which is used to identify the method.
+     * @param m     The Method to execute on the Host.
+     * @param args  The arguments to provide to the Host
+     * @return A publisher of the items that the Host publishes.
+     */
+    public Flow.Publisher<Object> stream(String recipient, MethodTable table, Method m, Object... args) {
+        return new RemotePublisher(this, recipient, table, m, args);
+    }
+
+    /**
+     * Sends the request that opens the stream of the given subscription.
+     *
+     * @return The Result that is released once the Host has opened the stream.
+     */
+    Result openStream(RemotePublisher.Subscription subscription, String recipient, MethodTable table, Method m, Object[] args) {
+        long timeout = Deadline.timeoutFor(m);
+        String identifier = communication.getIdentifier();
+        subscription.identify(identifier);
+        // The stream is known before it is requested, such that no item can arrive before it
+        streams.put(identifier, subscription);
+        Result result = this.expect(identifier, timeout);
+        try {
+            this.sendToHost(communication.makeRequest(identifier, recipient, table, Delta.NO_VERSION, timeout, m, args));
+        } catch (RuntimeException e) {
+            results.discard(identifier);
+            streams.remove(identifier, subscription);
+            throw e;
+        }
+        return result;
+    }
+
+    /**
+     * Forgets the given stream, which won't receive any more items.
+     */
+    void closeStream(String identifier, RemotePublisher.Subscription subscription) {
+        streams.remove(identifier, subscription);
+    }
+
+    /**
+     * Opens a batch on the current thread, in which requests are gathered to be sent to the Host in a single message.
+     * Asynchronous calls of module methods made on this thread join the batch until it is closed.
+     *
+     * @return The opened {@code Batch}.
+     */
+    public Batch batch() {
+        return new Batch(this);
+    }
+
+    /**
+     * Creates the {@code Result} of a request that is about to be sent.
+     *
+     * @param identifier The identifier of the request.
+     * @param timeout    The number of milliseconds to wait for the response.
+     * @return The {@code Result} that is released by the response.
+     */
+    Result expect(final String identifier, long timeout) {
+        Result result = results.create(identifier, timeout);
+        result.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                results.cancel(identifier);
+                try {
+                    CommunicationManager.this.sendToHost(Message.makeCancel(identifier));
+                } catch (RuntimeException e) {
+                    // The host will skip the request once its deadline has passed anyway
+                    Log.w(TAG, "Could not cancel request " + identifier + ": " + e);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Forgets the {@code Result} of a request that could not be sent.
+     *
+     * @param identifier The identifier of the request.
+     */
+    void forget(String identifier) {
+        results.discard(identifier);
+    }
+
+    /**
+     * Sends the given message to the Host.
+     *
+     * @param message The message to send.
+     */
+    void sendToHost(Message message) {
+        this.sendMessage(message, yarmis.connection.getHost());
+    }
+
     /**
      * Send the given message to all given devices
      *
@@ -61,7 +306,7 @@ public class CommunicationManager extends Manager {
      * @param message     The message to send
      * @param connections The connections to send the message over.
      */
-    private void sendMessage(Message message, Connection... connections) {
+    void sendMessage(Message message, Connection... connections) {
 
         // Try to send it to every device
         for (Connection connection : connections) {
@@ -85,6 +330,24 @@ public class CommunicationManager extends Manager {
         this.sendMessage(communication.makeNotification(module, listenerMethod, args), devices);
     }
 
+    /**
+     * Tells all connected devices that the results of the cacheable methods of the given module have changed. Devices
+     * that can't be reached are skipped.
+     *
+     * @param module  The identifier of the module that changed.
+     * @param version The version of the module after the change.
+     */
+    void invalidate(String module, long version) {
+        Message invalidation = Message.makeInvalidation(module, version);
+        for (Device device : yarmis.connection.connectedDevices()) {
+            try {
+                this.sendMessage(invalidation, device);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not tell " + device + " about " + invalidation + ": " + e);
+            }
+        }
+    }
+
     /**
      * Notify all given devices that this device wants to listen, or wants to stop listening, to events for the given
      * listener class on the given module.
@@ -97,9 +360,20 @@ public class CommunicationManager extends Manager {
      */
     public Result hook(Module module, Class<?> listenerClass, boolean register, Device... devices) {
 
-        String identifier = communication.getIdentifier();
+        final String identifier = communication.getIdentifier();
         Result result = results.create(identifier);
-        this.sendMessage(communication.makeHook(identifier, module, listenerClass, register), devices);
+        result.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                results.discard(identifier);
+            }
+        });
+        try {
+            this.sendMessage(communication.makeHook(identifier, module, listenerClass, register), devices);
+        } catch (RuntimeException e) {
+            results.discard(identifier);
+            throw e;
+        }
         return result;
 
     }
@@ -115,10 +389,85 @@ public class CommunicationManager extends Manager {
      */
     private void respond(IdentifyableMessage message,
                          Connection connection, Object value, boolean success) {
+        if (!this.sendInChunks(message, connection, value, success))
+            this.sendResponse(message, connection, value, success);
+    }
+
+    /**
+     * Sends the answer to the given request on its own if it can't be sent as a single {@code Response}. A publisher
+     * that is returned opens a stream of its items, and large values are sent in chunks. This applies to requests in a
+     * batch just like it does to other requests.
+     *
+     * @param request    The request that was answered.
+     * @param connection The connection to the requester.
+     * @param value      The value that came from the execution of the request.
+     * @param success    Whether the execution of the request was successful.
+     * @return Whether the answer was sent. If not, it must still be sent as a {@code Response}.
+     */
+    boolean answerSeparately(Request request, Connection connection, Object value, boolean success) {
+        if (success && value instanceof Flow.Publisher) {
+            this.stream(request, connection, (Flow.Publisher<?>) value);
+            return true;
+        }
+        return this.sendInChunks(request, connection, value, success);
+    }
+
+    /**
+     * Sends the given value in chunks, if it is large enough to be split into chunks. Chunks are only encoded when they
+     * are sent.
+     *
+     * @return Whether the value was sent in chunks.
+     */
+    private boolean sendInChunks(IdentifyableMessage message, Connection connection, Object value, boolean success) {
+        Iterator<Chunk> chunks = success ? Chunk.split(message.getIdentifier(), value,
+                communication.getChunkSize(), communication.getChunkElements()) : null;
+        if (chunks == null)
+            return false;
+
+        while (chunks.hasNext())
+            this.sendMessage(chunks.next(), connection);
+        return true;
+    }
+
+    /**
+     * Sends the given value in a single {@code Response}, which is taken from the pool if messages are recycled.
+     */
+    private void sendResponse(IdentifyableMessage message, Connection connection, Object value, boolean success) {
+        if (communication.isRecycling()) {
+            // The response is encoded while it is sent, after which it is no longer needed
+            Response response = Response.obtain(message.getIdentifier(), value, success);
+            try {
+                this.sendMessage(response, connection);
+            } finally {
+                response.recycle();
+            }
+            return;
+        }
+
         this.sendMessage(communication.makeResponse(
                 message.getIdentifier(), value, success), connection);
     }
 
+    /**
+     * Opens a stream of the items of the given publisher, which was returned for the given request. The requester is
+     * told that the stream is open, after which items are sent as far as it demands them.
+     *
+     * @param request    The Request that was answered with the given publisher.
+     * @param connection The Connection to the requester.
+     * @param publisher  The publisher of the items to send.
+     */
+    private void stream(Request request, Connection connection, Flow.Publisher<?> publisher) {
+        StreamSender sender = new StreamSender(this, connection, request.getIdentifier());
+        connection.getStreams().put(request.getIdentifier(), sender);
+        try {
+            this.sendResponse(request, connection, null, true);
+        } catch (RuntimeException e) {
+            connection.getStreams().remove(request.getIdentifier(), sender);
+            throw e;
+        }
+        publisher.subscribe(sender);
+    }
+
     /**
      * Entry point for incoming messages. This needs to be called by a Connection to indicate that it received a
      * message. This checks the message, lets it be handled by the right instance, and then responds to the message if
@@ -129,8 +478,29 @@ public class CommunicationManager extends Manager {
      */
     void handleMessage(JSONObject message, Connection connection) {
         // Non existing messages are of no use
+        if (message == null)
+            return;
+
+        // Chunks are handled right away, such that they are added to their value in the order they were sent, and so
+        // are the signals of streams. Cancels are handled right away as well, such that they can overtake the request
+        // that they cancel.
+        String type = message.optString(Communication.TYPE);
+        if (Communication.CHUNK.equals(type) || Communication.CANCEL.equals(type) || Communication.STREAM_SIGNAL.equals(type))
+            new MessageHandler(this, message, connection).run();
+        else
+            MessageHandler.handle(this, new MessageHandler(this, message, connection));
+    }
+
+    /**
+     * Entry point for incoming messages that did not need to be translated from JSON, such as the views over binary
+     * messages. Otherwise this is the same as {@code handleMessage(JSONObject, Connection)}.
+     *
+     * @param message    The message that needs to be handled
+     * @param connection The {@code Connection} that received the given message.
+     */
+    void handleMessage(Message message, Connection connection) {
         if (message != null)
-            MessageHandler.handle(this, message, connection);
+            MessageHandler.handle(this, new MessageHandler(this, message, connection));
     }
 
 
@@ -138,6 +508,15 @@ public class CommunicationManager extends Manager {
         return communication;
     }
 
+    /**
+     * Get the number of requests and hooks that were sent by this device and are still awaiting their response.
+     *
+     * @return The number of outstanding requests.
+     */
+    public int getPendingRequests() {
+        return results.pending();
+    }
+
 
     /**
      * Indicates whether requests that are received are allowed to be executed on this device.
@@ -170,13 +549,33 @@ public class CommunicationManager extends Manager {
          */
         private final JSONObject message;
 
+        /**
+         * The message that must be handled, if it did not need to be translated from JSON.
+         */
+        private final Message decoded;
+
+        /**
+         * The moment at which the message was received, from which the deadline of a request is counted.
+         */
+        private final long received;
+
         /**
          * The {@code Connection} over which the {@code message} was received.
          */
         private final Connection receiver;
 
         private MessageHandler(CommunicationManager communicationManager, JSONObject message, Connection receiver) {
+            this.received = System.currentTimeMillis();
             this.message = message;
+            this.decoded = null;
+            this.receiver = receiver;
+            this.communicationManager = communicationManager;
+        }
+
+        private MessageHandler(CommunicationManager communicationManager, Message message, Connection receiver) {
+            this.received = System.currentTimeMillis();
+            this.message = null;
+            this.decoded = message;
             this.receiver = receiver;
             this.communicationManager = communicationManager;
         }
@@ -190,7 +589,7 @@ public class CommunicationManager extends Manager {
             Message message;
             // Try to translate
             try {
-                message = Message.from(this.message, communicationManager.communication);
+                message = this.decoded != null ? this.decoded : Message.from(this.message, communicationManager.communication);
 
                 // Notifications
                 if (message instanceof Notification) {
@@ -207,11 +606,35 @@ public class CommunicationManager extends Manager {
                     Log.v(communicationManager.TAG, "Received hook: " + message);
                     this.handleHook((Hook) message, this.receiver);
                 }
+                // Chunk of a response
+                else if (message instanceof Chunk) {
+                    this.handleChunk((Chunk) message);
+                }
                 // Request - May throw an Exception
                 else if (message instanceof Request) {
                     Log.v(communicationManager.TAG, "Received request: " + message);
                     this.handleRequest((Request) message, this.receiver);
                 }
+                // The requester is no longer interested in a request
+                else if (message instanceof Cancel) {
+                    Log.v(communicationManager.TAG, "Received cancel: " + message);
+                    this.handleCancel((Cancel) message, this.receiver);
+                }
+                // Cached results that are outdated
+                else if (message instanceof Invalidation) {
+                    Log.v(communicationManager.TAG, "Received invalidation: " + message);
+                    Invalidation invalidation = (Invalidation) message;
+                    this.communicationManager.yarmis.modules.invalidated(invalidation.getModuleIdentifier(), invalidation.getVersion());
+                }
+                // Items of a stream, or demand for them
+                else if (message instanceof StreamSignal) {
+                    this.handleStreamSignal((StreamSignal) message, this.receiver);
+                }
+                // Requests or responses sent together
+                else if (message instanceof BatchMessage) {
+                    Log.v(communicationManager.TAG, "Received batch: " + message);
+                    this.handleBatch((BatchMessage) message, this.receiver);
+                }
             } catch (Exception e) {
                 Log.e(communicationManager.TAG, e);
             }
@@ -239,6 +662,17 @@ public class CommunicationManager extends Manager {
         }
 
 
+        /**
+         * Handle for dealing with chunks of responses. This adds the chunk to the value it is part of, and releases the
+         * {@code Result} waiting for that value once all chunks have been received.
+         *
+         * @param chunk The chunk that was received.
+         */
+        private void handleChunk(Chunk chunk) {
+            this.communicationManager.results.receive(chunk);
+        }
+
+
         /**
          * Called when a Hook was received. This means that some device wants to listen to This registers or unregisters
          * the listener that is described in the hook.
@@ -278,24 +712,221 @@ public class CommunicationManager extends Manager {
          * @param request    The Request to handle
          * @param connection The Connection from which the Request originated
          */
-        private void handleRequest(Request request, Connection connection) {
+        private void handleRequest(final Request request, final Connection connection) {
             if (this.communicationManager.allowRequests()) {
-                boolean success;
-                Object outcome;
-                try {
-                    outcome = this.communicationManager.yarmis.modules.handleRequest(request, connection);
-                    success = true;
-                } catch (Throwable throwable) {
-                    outcome = throwable;
-                    success = false;
-                }
-                this.communicationManager.respond(request, connection, outcome, success);
+                this.execute(request, connection, new Outcome() {
+                    @Override
+                    public void complete(Object value, boolean success) {
+                        CommunicationManager manager = MessageHandler.this.communicationManager;
+                        if (!manager.answerSeparately(request, connection, value, success))
+                            manager.sendResponse(request, connection, value, success);
+                    }
+
+                    @Override
+                    public void skip() {
+                    }
+                });
             } else {
                 // This could occur if the host goes rogue and sends requests to us.
                 throw new IllegalStateException("Can't handle a request when not hosting");
             }
         }
 
+        /**
+         * Handle for dealing with cancels. The cancelled request is skipped if it hasn't started yet, and interrupted
+         * otherwise. It won't be responded to.
+         *
+         * @param cancel     The Cancel that was received.
+         * @param connection The Connection from which the Cancel originated.
+         */
+        private void handleCancel(Cancel cancel, Connection connection) {
+            this.communicationManager.executions.cancel(connection, cancel.getIdentifier());
+        }
+
+        /**
+         * Handle for dealing with the signals of streams. Demand and cancels are passed on to the publisher on this
+         * host, items and the end of a stream are passed on to the subscriber on this device. Signals of streams that
+         * are not known, because they have ended already, are ignored.
+         *
+         * @param signal     The StreamSignal that was received.
+         * @param connection The Connection from which the StreamSignal originated.
+         */
+        private void handleStreamSignal(StreamSignal signal, Connection connection) {
+            switch (signal.getKind()) {
+                case StreamSignal.DEMAND:
+                case StreamSignal.CANCEL:
+                    StreamSender sender = connection.getStreams().get(signal.getIdentifier());
+                    if (sender == null)
+                        return;
+                    if (StreamSignal.DEMAND.equals(signal.getKind()))
+                        sender.demand(signal.getCount());
+                    else
+                        sender.cancel();
+                    break;
+                default:
+                    RemotePublisher.Subscription subscription = this.communicationManager.streams.get(signal.getIdentifier());
+                    if (subscription != null)
+                        subscription.receive(signal);
+            }
+        }
+
+        /**
+         * Handle for dealing with batches. The responses in a batch release their {@code Result}s one by one. The
+         * requests in a batch are executed in parallel, and are answered together, in a single batch, once all of them
+         * have been executed. Requests that open a stream or whose value is sent in chunks are answered on their own,
+         * see {@code BatchReplies}.
+         *
+         * @param batch      The batch to handle.
+         * @param connection The Connection from which the batch originated.
+         */
+        private void handleBatch(BatchMessage batch, final Connection connection) {
+            final List<Request> requests = new ArrayList<>();
+            for (Message message : batch.getMessages()) {
+                if (message instanceof Request)
+                    requests.add((Request) message);
+                else {
+                    try {
+                        this.handleResponse((Response) message);
+                    } catch (RuntimeException e) {
+                        // The other responses must still be released
+                        Log.e(this.communicationManager.TAG, e);
+                    }
+                }
+            }
+            if (requests.isEmpty())
+                return;
+            if (!this.communicationManager.allowRequests())
+                throw new IllegalStateException("Can't handle a request when not hosting");
+
+            final CommunicationManager manager = this.communicationManager;
+            final BatchReplies replies = new BatchReplies(requests, manager.communication.isRecycling()) {
+                @Override
+                protected boolean answerSeparately(Request request, Object value, boolean success) {
+                    return manager.answerSeparately(request, connection, value, success);
+                }
+
+                @Override
+                protected void send(List<Response> responses) {
+                    manager.sendMessage(responses.size() == 1 ? responses.get(0) : Message.makeBatch(responses), connection);
+                }
+            };
+            for (int i = 0; i < requests.size(); ++i) {
+                final int index = i;
+                final Outcome outcome = new Outcome() {
+                    @Override
+                    public void complete(Object value, boolean success) {
+                        replies.complete(index, value, success);
+                    }
+
+                    @Override
+                    public void skip() {
+                        replies.skip(index);
+                    }
+                };
+                MessageHandler.messageExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            MessageHandler.this.execute(requests.get(index), connection, outcome);
+                        } catch (RuntimeException e) {
+                            // The request was counted down regardless, so the others are still answered
+                            Log.e(manager.TAG, e);
+                        }
+                    }
+                });
+            }
+        }
+
+        /**
+         * Executes the given request within its deadline, and passes what came of it to the given {@code Outcome}. A
+         * request whose deadline has passed already, or that has been cancelled, is skipped. Asynchronous methods are
+         * passed on once their result is complete.
+         *
+         * @param request    The Request to execute.
+         * @param connection The Connection from which the Request originated.
+         * @param outcome    What to do with the result of the execution.
+         */
+        private void execute(final Request request, Connection connection, final Outcome outcome) {
+            long deadline = request.getTimeout() == Deadline.NONE ? Deadline.NONE : this.received + request.getTimeout();
+            if (deadline != Deadline.NONE && System.currentTimeMillis() >= deadline) {
+                // The requester has given up already, so don't spend any time on it
+                Log.w(this.communicationManager.TAG, "Skipped " + request + " as its deadline has passed");
+                if (this.communicationManager.communication.isRecycling())
+                    request.recycle();
+                outcome.skip();
+                return;
+            }
+
+            final ExecutionTracker.Execution execution = this.communicationManager.executions.start(connection, request.getIdentifier());
+            if (execution == null) {
+                Log.w(this.communicationManager.TAG, "Skipped " + request + " as it was cancelled");
+                if (this.communicationManager.communication.isRecycling())
+                    request.recycle();
+                outcome.skip();
+                return;
+            }
+
+            boolean success;
+            Object value = null;
+            Deadline.Scope scope = Deadline.enter(deadline);
+            try {
+                value = this.communicationManager.yarmis.modules.handleRequest(request, connection);
+                success = true;
+            } catch (Throwable throwable) {
+                value = throwable;
+                success = false;
+            } finally {
+                scope.close();
+                execution.returned(value);
+                // The arguments are no longer needed once the method has been invoked
+                if (this.communicationManager.communication.isRecycling())
+                    request.recycle();
+            }
+
+            if (success && value instanceof CompletionStage) {
+                // Asynchronous methods are responded to once their result is complete
+                ((CompletionStage<?>) value).whenComplete(new BiConsumer<Object, Throwable>() {
+                    @Override
+                    public void accept(Object value, Throwable throwable) {
+                        execution.done();
+                        if (throwable instanceof CompletionException && throwable.getCause() != null)
+                            throwable = throwable.getCause();
+                        try {
+                            if (execution.isCancelled())
+                                outcome.skip();
+                            else
+                                outcome.complete(throwable == null ? value : throwable, throwable == null);
+                        } catch (RuntimeException e) {
+                            Log.e(MessageHandler.this.communicationManager.TAG, e);
+                        }
+                    }
+                });
+            } else if (execution.isCancelled())
+                // No one waits for what came of it anymore
+                outcome.skip();
+            else
+                outcome.complete(value, success);
+        }
+
+        /**
+         * What is done with the result of the execution of a request.
+         */
+        private interface Outcome {
+
+            /**
+             * Called once the request has been executed.
+             *
+             * @param value   The value that came from the execution, or what was thrown by it.
+             * @param success Whether the execution was successful.
+             */
+            void complete(Object value, boolean success);
+
+            /**
+             * Called if the request was not executed, as its deadline had passed.
+             */
+            void skip();
+        }
+
         /**
          * An ExecutorService that will run all MessageHandlers.
          */
@@ -304,11 +935,10 @@ public class CommunicationManager extends Manager {
         /**
          * Let the given message coming from the given connection be handled asynchronously.
          *
-         * @param message    The message that was received, before it is converted to an instance of Message.
-         * @param connection The connection that received the given message.
+         * @param handler The handler for the message that was received.
          */
-        private static void handle(CommunicationManager communicationManager, JSONObject message, Connection connection) {
-            MessageHandler.messageExecutor.execute(new MessageHandler(communicationManager, message, connection));
+        private static void handle(CommunicationManager communicationManager, MessageHandler handler) {
+            MessageHandler.messageExecutor.execute(handler);
         }
     }
 
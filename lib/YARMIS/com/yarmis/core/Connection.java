@@ -2,12 +2,15 @@ package com.yarmis.core;
 
 import com.yarmis.core.exceptions.ConnectionNotAllowedException;
 import com.yarmis.core.logging.Log;
+import com.yarmis.core.messages.BinaryCodec;
 import com.yarmis.core.messages.Message;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.*;
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Placeholder for the later coming connectivity facility
@@ -31,15 +34,44 @@ public class Connection {
 
     private final OutputStream outputStream;
 
-    private BufferedWriter writer;
+    private DataOutputStream writer;
 
-    private static final char SEPARATOR = ':';
+    /**
+     * Frame type of a message that is encoded as JSON.
+     */
+    private static final byte FRAME_JSON = 0;
+
+    /**
+     * Frame type of a message that is encoded by the {@code BinaryCodec}.
+     */
+    private static final byte FRAME_BINARY = 1;
 
     /**
      * The identifier for the device to which this is a Connection.
      */
     private final Device device;
 
+    /**
+     * The last results of calls that are answered with a {@code Delta} over this Connection.
+     */
+    private final DeltaTracker deltas = new DeltaTracker();
+
+    /**
+     * The streams of items that are sent over this Connection, by the identifier of the request that opened them.
+     */
+    private final ConcurrentHashMap<String, StreamSender> streams = new ConcurrentHashMap<>();
+
+    /**
+     * The buffer in which binary frames are encoded when messages are recycled, see {@code Communication.isRecycling}.
+     * It is only used while sending, which is synchronized.
+     */
+    private ByteArrayOutputStream frame = new ByteArrayOutputStream(256);
+
+    /**
+     * Frame buffers that grew larger than this are not kept.
+     */
+    private static final int MAX_RECYCLED_FRAME = 1 << 16;
+
     public Connection(Yarmis yarmis, InetAddress address, InputStream inputStream,
                       OutputStream outputStream) throws ConnectionNotAllowedException {
         this(yarmis, DeviceManager.createDevice(address), inputStream, outputStream);
@@ -65,7 +97,7 @@ public class Connection {
      */
     private final void setup() {
 
-        this.writer = new BufferedWriter(new OutputStreamWriter(this.outputStream));
+        this.writer = new DataOutputStream(new BufferedOutputStream(this.outputStream));
         (new Thread(new Reader())).start();
     }
 
@@ -83,6 +115,10 @@ public class Connection {
 
         this.isClosed = true;
 
+        // No one is left to receive the items of open streams
+        for (StreamSender stream : this.streams.values())
+            stream.cancel();
+
         this.yarmis.connection.disconnect(this);
     }
 
@@ -110,6 +146,25 @@ public class Connection {
         return this.isClosed;
     }
 
+    /**
+     * Get the results that were sent over this Connection for calls that are answered with a {@code Delta}.
+     *
+     * @return The DeltaTracker of this Connection.
+     */
+    DeltaTracker getDeltaTracker() {
+        return this.deltas;
+    }
+
+    /**
+     * Get the streams of items that are being sent over this Connection, for calls of methods that return a {@code
+     * Flow.Publisher}.
+     *
+     * @return The open streams, by the identifier of the request that opened them.
+     */
+    ConcurrentHashMap<String, StreamSender> getStreams() {
+        return this.streams;
+    }
+
     /**
      * Returns the fingerprint of the public key that is associated with this connection, or @code{null} if no public
      * key is associated with this connection.
@@ -121,19 +176,41 @@ public class Connection {
     }
 
     /**
-     * Sends a JSONObject over the connection.
+     * Sends a message over the connection. Every message is sent as a frame that consists of the type of the frame
+     * (one byte), the number of bytes in the frame (an int) and then those bytes. Messages that the {@code
+     * BinaryCodec} can encode are sent in binary, all others are sent as JSON.
+     * <p/>
+     * Sending is synchronized, such that frames that are sent from different threads are never interleaved.
      *
      * @param message The message to send
      * @throws IOException
      */
-    protected void send(Message message) throws IOException, JSONException {
-        String jsonString = message.translate(yarmis.communication.communication).toString();
-        // Determine the number of characters
-        // NOTE THAT THIS IS DIFFERENT FROM THE NUMBER OF BYTES
-        int l = jsonString.length();
-        // Prepend the number of characters
-        writer.write(Integer.toString(l) + Character.toString(SEPARATOR));
-        writer.write(jsonString);
+    protected synchronized void send(Message message) throws IOException, JSONException {
+        byte[] frame;
+        if (yarmis.communication.communication.isRecycling()) {
+            // Encode binary frames into the buffer of this Connection, instead of into a new array
+            this.frame.reset();
+            if (BinaryCodec.encode(message, this.frame)) {
+                writer.writeByte(FRAME_BINARY);
+                writer.writeInt(this.frame.size());
+                this.frame.writeTo(writer);
+                writer.flush();
+                if (this.frame.size() > MAX_RECYCLED_FRAME)
+                    this.frame = new ByteArrayOutputStream(256);
+                return;
+            }
+            frame = null;
+        } else
+            frame = BinaryCodec.encode(message);
+
+        byte type = FRAME_BINARY;
+        if (frame == null) {
+            type = FRAME_JSON;
+            frame = message.encode(yarmis.communication.communication).getBytes(StandardCharsets.UTF_8);
+        }
+        writer.writeByte(type);
+        writer.writeInt(frame.length);
+        writer.write(frame);
         writer.flush();
     }
 
@@ -141,6 +218,30 @@ public class Connection {
         yarmis.communication.handleMessage(message, this);
     }
 
+    protected void receive(Message message) {
+        yarmis.communication.handleMessage(message, this);
+    }
+
+    /**
+     * Reads the length and the contents of a frame, of which the type has already been read.
+     *
+     * @param reader  The stream to read from.
+     * @param maximum The largest frame that is accepted, in bytes.
+     * @return The contents of the frame. They are handed over as a whole, so they are never reused.
+     * @throws IOException If the frame is larger than the maximum, or if it could not be read.
+     */
+    static byte[] readFrame(DataInputStream reader, int maximum) throws IOException {
+        int length = reader.readInt();
+        if (length < 0)
+            throw new IOException("Received a frame with negative length " + length);
+        if (length > maximum)
+            throw new IOException("Received a frame of " + length + " bytes, which exceeds the maximum of " + maximum);
+
+        byte[] frame = new byte[length];
+        reader.readFully(frame);
+        return frame;
+    }
+
     /**
      * Reads the incoming messages over this connection.
      *
@@ -149,43 +250,25 @@ public class Connection {
     private final class Reader implements Runnable {
 
         public void run() {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(
+            DataInputStream reader = new DataInputStream(new BufferedInputStream(
                     Connection.this.inputStream));
 
             try {
 
-                int i = reader.read();
-                while (i != -1) {
-                    char c = (char) i;
-                    int length = 0;
-                    do {
-                        length *= 10;
-                        length += Character.getNumericValue(c);
-                        i = reader.read();
-                    } while (i != -1 && (c = (char) i) != SEPARATOR);
-                    if (i != -1) {
-                        // We expect `length` characters of data
-                        // NOTE THAT THIS IS DIFFERENT FROM THE NUMBER OF BYTES
-                        char[] jsonArray = new char[length];
-                        int read = 0;
-                        do {
-                            i = reader.read(jsonArray, read, length - read);
-                            read += i;
-                        } while (i != -1 && read < length);
-                        // Break if end of stream has been reached,
-                        // or if # of read chars differs from what
-                        // we've expected
-                        if (i == -1 || read != length) {
-                            Log.warn("Connection", "Connection closed unexpectedly after reading " + i + " characters where we expected " + length + " characters.");
-                            break;
-                        } else {
-                            String jsonString = new String(jsonArray);
-                            Connection.this.receive(new JSONObject(jsonString));
-                            i = reader.read();
-                        }
-                    }
+                int type = reader.read();
+                while (type != -1) {
+                    byte[] frame = Connection.readFrame(reader, yarmis.communication.communication.getMaxFrameSize());
+
+                    if (type == FRAME_BINARY)
+                        Connection.this.receive(BinaryCodec.decode(frame));
+                    else
+                        Connection.this.receive(new JSONObject(new String(frame, StandardCharsets.UTF_8)));
+
+                    type = reader.read();
                 }
 
+            } catch (EOFException e) {
+                Log.warn("Connection", "Connection closed unexpectedly in the middle of a frame.");
             } catch (Exception e) {
                 Log.e("Connection", e);
             } finally {
@@ -13,6 +13,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Created by Maurice on 7-11-2015.
@@ -35,6 +36,11 @@ public class ConnectionManager extends Manager {
      */
     private Device host;
 
+    /**
+     * Devices that host the same modules as the host, to which idempotent requests may be sent as well.
+     */
+    private final List<Device> replicas = new CopyOnWriteArrayList<>();
+
     ConnectionManager(Yarmis yarmis) {
         super(yarmis);
     }
@@ -71,6 +77,35 @@ public class ConnectionManager extends Manager {
         }
     }
 
+    /**
+     * Register the given {@code Connection} as a connection to a replica of the host, which hosts the same modules.
+     * Requests for idempotent methods may be sent to a replica as well when the host is slow to respond. The given
+     * connection must already be used, and must not be the connection to the host.
+     *
+     * @param connection The {@code Connection} to use as a connection to a replica.
+     * @return {@code true} if the connection was added as a connection to a replica, {@code false} if that failed.
+     */
+    public boolean useAsReplica(Connection connection) {
+        Device device = connection.getDevice();
+        if (connection.isClosed() || !this.isConnectedBy(connection) || this.isHost(device))
+            return false;
+        if (!this.replicas.contains(device))
+            this.replicas.add(device);
+        return true;
+    }
+
+    /**
+     * Get a replica of the host that is connected to.
+     *
+     * @return The {@code Device} of a connected replica, or null if there is none.
+     */
+    public Device getReplica() {
+        for (Device device : this.replicas)
+            if (this.isConnectedTo(device) && !this.isHost(device))
+                return device;
+        return null;
+    }
+
     /**
      * Get the {@code Connection} that was registered for the given {@code Device}
      *
@@ -146,6 +181,23 @@ public class ConnectionManager extends Manager {
     }
 
 
+    /**
+     * Connects to the given {@code Device} as a replica of the host. This requires that the CommunicationManager is
+     * <b>not</b> hosting.
+     *
+     * @param device The {@code Device} to connect to
+     * @throws IOException
+     */
+    public void connectReplica(Device device) throws IOException {
+
+        if (this.connectivity.isHosting())
+            throw new IllegalStateException(
+                    "Can't connect to a device when hosting.");
+
+        this.useAsReplica(connectivity.connectTo(device));
+    }
+
+
     /**
      * Unregister the given {@code Connection}. This will check whether the given Connection was in use. If so, it is
      * unregistered and closed.
@@ -178,6 +230,7 @@ public class ConnectionManager extends Manager {
         // Remove as host
         if (this.isHost(device))
             this.host = null;
+        this.replicas.remove(device);
 
         // Remove the connection
         try {
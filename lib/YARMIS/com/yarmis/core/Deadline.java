@@ -0,0 +1,130 @@
+package com.yarmis.core;
+
+import com.yarmis.core.annotations.Timeout;
+
+import java.lang.reflect.Method;
+
+/**
+ * Timeouts of remote calls, and the deadlines of the requests that are being executed.
+ * <p/>
+ * The caller of a remote method waits for {@code ResultHandler.TIMEOUT} milliseconds, unless the method is annotated
+ * with {@code Timeout}, or unless the call is made within {@code withTimeout}. The timeout is sent along with the
+ * request, and the host derives the deadline of the request from it. Requests that are not executed before their
+ * deadline are skipped, and module code can ask for the time it has left through {@code remaining}. Calls that are
+ * made while executing a request never wait longer than the time that is left for that request.
+ * <p/>
+ * Requests carry their timeout rather than an absolute deadline, as the clocks of devices need not agree. The host
+ * counts the timeout from the moment it received the request, so its deadline falls later than that of the caller by
+ * the time the request spent in transit. The caller gives up at its own deadline regardless.
+ */
+public final class Deadline {
+
+    /**
+     * Indicates that there is no deadline.
+     */
+    public static final long NONE = 0;
+
+    /**
+     * The timeout that the calls of every thread use, as set through {@code withTimeout}.
+     */
+    private static final ThreadLocal<Long> timeouts = new ThreadLocal<>();
+
+    /**
+     * The deadline of the request that every thread is executing, in milliseconds since the epoch.
+     */
+    private static final ThreadLocal<Long> deadlines = new ThreadLocal<>();
+
+    private Deadline() {
+    }
+
+    /**
+     * Lets all remote calls that the current thread makes until the returned scope is closed use the given timeout,
+     * regardless of the timeout of their methods. Use it as: {@code try (Deadline.Scope scope =
+     * Deadline.withTimeout(500)) { module.call(); }}.
+     *
+     * @param timeout The number of milliseconds that the calls wait for their result.
+     * @return The scope, which restores the previous timeout when it is closed.
+     */
+    public static Scope withTimeout(long timeout) {
+        if (timeout <= 0)
+            throw new IllegalArgumentException("Timeout must be an amount of milliseconds greater than 0");
+        return new Scope(Deadline.timeouts, timeout);
+    }
+
+    /**
+     * Get the number of milliseconds that are left to execute the request that the current thread is executing.
+     *
+     * @return The remaining time, which is negative once the deadline has passed, or {@code Long.MAX_VALUE} if the
+     * current thread is not executing a request with a deadline.
+     */
+    public static long remaining() {
+        Long deadline = Deadline.deadlines.get();
+        return deadline == null ? Long.MAX_VALUE : deadline - System.currentTimeMillis();
+    }
+
+    /**
+     * Checks whether the deadline of the request that the current thread is executing has passed. Module code can use
+     * this to stop working on a request of which the caller has given up.
+     *
+     * @return Whether the deadline has passed.
+     */
+    public static boolean isExpired() {
+        return Deadline.remaining() <= 0;
+    }
+
+    /**
+     * Get the timeout for a call of the given method by the current thread.
+     *
+     * @param method The method that is called.
+     * @return The number of milliseconds to wait for the result.
+     */
+    static long timeoutFor(Method method) {
+        Long timeout = Deadline.timeouts.get();
+        if (timeout == null) {
+            Timeout annotation = method.getAnnotation(Timeout.class);
+            timeout = annotation != null && annotation.value() > 0 ? annotation.value() : ResultHandler.TIMEOUT;
+        }
+        // Don't wait longer than the caller of the request that is being executed does
+        return Math.max(1, Math.min(timeout, Deadline.remaining()));
+    }
+
+    /**
+     * Sets the deadline of the request that the current thread starts executing.
+     *
+     * @param deadline The deadline in milliseconds since the epoch, or {@code NONE}.
+     * @return The scope, which must be closed once the request has been executed.
+     */
+    static Scope enter(long deadline) {
+        return new Scope(Deadline.deadlines, deadline == NONE ? null : deadline);
+    }
+
+    /**
+     * A timeout or a deadline that applies to the current thread until it is closed.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final ThreadLocal<Long> local;
+
+        private final Long previous;
+
+        private Scope(ThreadLocal<Long> local, Long value) {
+            this.local = local;
+            this.previous = local.get();
+            if (value == null)
+                local.remove();
+            else
+                local.set(value);
+        }
+
+        /**
+         * Restores the timeout or deadline that applied before this scope.
+         */
+        @Override
+        public void close() {
+            if (this.previous == null)
+                this.local.remove();
+            else
+                this.local.set(this.previous);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.yarmis.core;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The answer to a call of a method that is annotated with {@code @Delta}. It describes a version of the returned
+ * collection relative to an earlier version, the base, that the requester already holds. A Delta either states that
+ * nothing changed, or lists for every element of the new version where it comes from: either the element at some
+ * position of the base, or an element that is sent along.
+ * <p/>
+ * A Delta without a base holds the full collection.
+ */
+public final class Delta {
+
+    /**
+     * The version of a Delta that holds the full collection, or that a requester holds if it holds nothing.
+     */
+    public static final long NO_VERSION = -1;
+
+    /**
+     * The version that this Delta is relative to, or {@code NO_VERSION} if it holds the full collection.
+     */
+    private final long base;
+
+    /**
+     * The version that this Delta describes.
+     */
+    private final long version;
+
+    /**
+     * For every element of the new version, its position in the base, or -1 if it is the next of the added elements.
+     * This is {@code null} if nothing changed.
+     */
+    private final int[] sources;
+
+    /**
+     * The elements that are not in the base.
+     */
+    private final Object[] added;
+
+    public Delta(long base, long version, int[] sources, Object[] added) {
+        this.base = base;
+        this.version = version;
+        this.sources = sources;
+        this.added = added;
+    }
+
+    /**
+     * Creates a Delta that holds the full collection.
+     */
+    static Delta full(long version, Object[] elements) {
+        int[] sources = new int[elements.length];
+        Arrays.fill(sources, -1);
+        return new Delta(NO_VERSION, version, sources, elements);
+    }
+
+    /**
+     * Creates a Delta that states that the given version did not change.
+     */
+    static Delta unchanged(long version) {
+        return new Delta(version, version, null, new Object[0]);
+    }
+
+    public long getBase() {
+        return this.base;
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    public int[] getSources() {
+        return this.sources;
+    }
+
+    public Object[] getAdded() {
+        return this.added;
+    }
+
+    /**
+     * Indicates whether this Delta states that nothing changed since its base.
+     *
+     * @return {@code true} if the base is still the current version.
+     */
+    public boolean isUnchanged() {
+        return this.sources == null;
+    }
+
+    /**
+     * Applies this Delta to the version that is held.
+     *
+     * @param heldVersion The version that is held, or {@code NO_VERSION}.
+     * @param held        The elements of the version that is held, or {@code null}.
+     * @return The elements of the version that this Delta describes, or {@code null} if this Delta can not be applied
+     * to the version that is held.
+     */
+    List<Object> apply(long heldVersion, List<Object> held) {
+        if (this.base != NO_VERSION && (held == null || this.base != heldVersion))
+            return null;
+        if (this.isUnchanged())
+            return held;
+
+        List<Object> result = new ArrayList<>(this.sources.length);
+        int next = 0;
+        for (int source : this.sources) {
+            if (source >= 0 && this.base != NO_VERSION && source < held.size())
+                result.add(held.get(source));
+            else if (source < 0 && next < this.added.length)
+                result.add(this.added[next++]);
+            else
+                return null;
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Indicates whether calls to the given method are answered with a Delta.
+     *
+     * @param method The method that is called.
+     * @return {@code true} if the method is annotated with {@code @Delta} and returns a {@code Collection}.
+     */
+    static boolean isDelta(Method method) {
+        return method.getAnnotation(com.yarmis.core.annotations.Delta.class) != null
+                && Collection.class.isAssignableFrom(method.getReturnType());
+    }
+
+    @Override
+    public String toString() {
+        return "Delta from " + this.base + " to " + this.version + (this.isUnchanged() ? " (unchanged)" : "");
+    }
+}
@@ -0,0 +1,154 @@
+package com.yarmis.core;
+
+import org.json.JSONException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps for a single Connection the last result that was sent for calls of methods that are annotated with {@code
+ * Delta}, such that the next result for the same call can be sent as a {@code Delta} relative to it. Only the most
+ * recently used calls are remembered.
+ */
+class DeltaTracker {
+
+    /**
+     * The number of calls of which the last result is remembered.
+     */
+    static final int CAPACITY = 64;
+
+    /**
+     * The source of all versions. Versions are never reused, not even after the connection was closed, such that a
+     * requester can never mistake a new result for one it already holds.
+     */
+    private static final AtomicLong versions = new AtomicLong(ThreadLocalRandom.current().nextLong(1L << 62));
+
+    /**
+     * The last result of every remembered call.
+     */
+    private final Map<Object, Snapshot> snapshots = new LinkedHashMap<Object, Snapshot>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Snapshot> eldest) {
+            return this.size() > CAPACITY;
+        }
+    };
+
+    /**
+     * Determines how the given result of a call differs from the version that the requester holds.
+     *
+     * @param call          The key that identifies the call, such as its module, method and arguments.
+     * @param result        The result of the call.
+     * @param known         The version that the requester holds, or {@code Delta.NO_VERSION}.
+     * @param communication The Communication with which elements are encoded to compare them.
+     * @return The Delta to send to the requester.
+     */
+    Delta update(Object call, Collection<?> result, long known, Communication communication) throws JSONException {
+        Object[] elements = result.toArray();
+        List<String> encoded = new ArrayList<>(elements.length);
+        for (Object element : elements)
+            encoded.add(communication.convertValue(element).toString());
+
+        synchronized (this.snapshots) {
+            Snapshot last = this.snapshots.get(call);
+            boolean changed = last == null || !last.encoded.equals(encoded);
+            long version = changed ? DeltaTracker.versions.incrementAndGet() : last.version;
+            if (changed)
+                this.snapshots.put(call, new Snapshot(version, encoded));
+
+            // The requester holds something else than the last result, so send everything
+            if (last == null || last.version != known)
+                return Delta.full(version, elements);
+            else if (!changed)
+                return Delta.unchanged(version);
+
+            // Let every element that is still present refer to its position in the last result
+            Map<String, ArrayDeque<Integer>> positions = new HashMap<>();
+            for (int i = 0; i < last.encoded.size(); ++i) {
+                ArrayDeque<Integer> found = positions.get(last.encoded.get(i));
+                if (found == null) {
+                    found = new ArrayDeque<>();
+                    positions.put(last.encoded.get(i), found);
+                }
+                found.add(i);
+            }
+
+            int[] sources = new int[elements.length];
+            List<Object> added = new ArrayList<>();
+            for (int i = 0; i < elements.length; ++i) {
+                ArrayDeque<Integer> found = positions.get(encoded.get(i));
+                Integer position = found == null ? null : found.poll();
+                sources[i] = position == null ? -1 : position;
+                if (position == null)
+                    added.add(elements[i]);
+            }
+            return new Delta(known, version, sources, added.toArray());
+        }
+    }
+
+    /**
+     * Identifies a call by its module, its method and its arguments. Arguments are compared with {@code equals}, such
+     * that the call doesn't have to be encoded to recognize it. Arguments without their own {@code equals} only match
+     * themselves, in which case the next result is simply sent in full.
+     */
+    static final class Call {
+
+        private final String module;
+
+        private final int method;
+
+        private final Object[] arguments;
+
+        private final int hash;
+
+        /**
+         * @param module    The identifier of the module that is called.
+         * @param method    The identifier of the method that is called.
+         * @param arguments The arguments of the call. These are copied, as the given array may be reused.
+         */
+        Call(String module, int method, Object[] arguments) {
+            this.module = module;
+            this.method = method;
+            this.arguments = arguments.clone();
+            this.hash = 31 * (31 * module.hashCode() + method) + Arrays.deepHashCode(this.arguments);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Call))
+                return false;
+            Call call = (Call) o;
+            return this.hash == call.hash && this.method == call.method && this.module.equals(call.module)
+                    && Arrays.deepEquals(this.arguments, call.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final long version;
+
+        /**
+         * The encoding of every element of the result.
+         */
+        private final List<String> encoded;
+
+        private Snapshot(long version, List<String> encoded) {
+            this.version = version;
+            this.encoded = encoded;
+        }
+    }
+}
@@ -3,9 +3,14 @@ package com.yarmis.core;
 import org.json.JSONObject;
 import org.json.JSONException;
 
-import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.net.InetAddress;
+import java.util.Objects;
 
+/**
+ * A device that can be connected to. Devices are equal if they have the same name and address. Devices that are
+ * created through the {@code DeviceManager} are canonical, so there is only one instance for every name and address.
+ */
 public class Device {
     public final InetAddress address;
     public final String name;
@@ -29,18 +34,50 @@ public class Device {
         return o;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof Device))
+            return false;
+
+        Device other = (Device) o;
+        return Objects.equals(this.address, other.address) && Objects.equals(this.name, other.name);
+    }
+
     @Override
     public int hashCode() {
-        return 31 * address.hashCode() + name.hashCode();
+        return 31 * Objects.hashCode(address) + Objects.hashCode(name);
     }
 
+    /**
+     * Restores a Device from its JSON representation. The address is resolved through the cache of the {@code
+     * DeviceManager}, and the canonical instance for the resulting name and address is returned.
+     *
+     * @param o The JSON representation of a Device
+     * @return The Device that is represented by the given JSONObject.
+     * @throws JSONException If the JSONObject doesn't represent a Device, or if its address can't be resolved.
+     */
     public static Device fromJSON(JSONObject o) throws JSONException {
         String name = o.getString(NAME);
         try {
-            InetAddress a = InetAddress.getByName(o.getString(ADDRESS));
-            return new Device(a, name);
+            return DeviceManager.createDevice(name, o.getString(ADDRESS));
         } catch(UnknownHostException e) {
             throw new JSONException("Hostname has to be an IP address", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Get the name of the Device that is represented by the given JSONObject, without restoring the Device.
+     */
+    static String nameOf(JSONObject o) throws JSONException {
+        return o.getString(NAME);
+    }
+
+    /**
+     * Get the address of the Device that is represented by the given JSONObject, without resolving it.
+     */
+    static String addressOf(JSONObject o) throws JSONException {
+        return o.getString(ADDRESS);
+    }
+}
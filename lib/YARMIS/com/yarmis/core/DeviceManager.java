@@ -2,14 +2,53 @@ package com.yarmis.core;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * The DeviceManager will be used for creating devices, keeping track of already registered devices for easy reconnects
  * and for handling the rights that may be assigned to any device.
+ * <p/>
+ * Devices are canonical: for every name and address there is a single {@code Device} instance. Addresses are resolved
+ * asynchronously, and every address is resolved only once.
  */
 public class DeviceManager extends Manager {
 
+    /**
+     * The number of threads that resolve addresses.
+     */
+    private static final int RESOLVER_THREADS = 4;
 
+    /**
+     * All devices that have been created, by their name and address.
+     */
+    private static final ConcurrentMap<String, Device> devices = new ConcurrentHashMap<>();
+
+    /**
+     * The resolution of every address that has been asked for, by that address. Failed resolutions are removed, such
+     * that they can be retried.
+     */
+    private static final ConcurrentMap<String, CompletableFuture<InetAddress>> addresses = new ConcurrentHashMap<>();
+
+    /**
+     * The threads that resolve addresses, such that callers don't have to wait for the resolver.
+     */
+    private static final ExecutorService resolver = Executors.newFixedThreadPool(RESOLVER_THREADS, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "DeviceManager resolver");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
 
     /**
      * Create a new DeviceManager
@@ -22,7 +61,8 @@ public class DeviceManager extends Manager {
 
 
     /**
-     * Create a device under the given name and with the given address.
+     * Create a device under the given name and with the given address. This waits for the address to be resolved, use
+     * {@code createDeviceAsync} to avoid that.
      *
      * @param name    The name to give to this device
      * @param address The address where the device can be found. This can be an ip address or a domainname.
@@ -30,7 +70,70 @@ public class DeviceManager extends Manager {
      * @throws UnknownHostException If the address couldn't be resolved.
      */
     public static Device createDevice(String name, String address) throws UnknownHostException {
-        return DeviceManager.createDevice(name, InetAddress.getByName(address));
+        try {
+            return DeviceManager.createDeviceAsync(name, address).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UnknownHostException)
+                throw (UnknownHostException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Create a device under the given name and with the given address, once the address has been resolved.
+     *
+     * @param name    The name to give to this device
+     * @param address The address where the device can be found. This can be an ip address or a domainname.
+     * @return A future that completes with the created Device, or that fails with an {@code UnknownHostException} if
+     * the address couldn't be resolved.
+     */
+    public static CompletableFuture<Device> createDeviceAsync(final String name, String address) {
+        return DeviceManager.resolve(address).thenApply(new Function<InetAddress, Device>() {
+            @Override
+            public Device apply(InetAddress resolved) {
+                return DeviceManager.createDevice(name, resolved);
+            }
+        });
+    }
+
+    /**
+     * Resolves the given address. Every address is resolved once; later calls get the same result.
+     *
+     * @param address An ip address or a domainname.
+     * @return A future that completes with the resolved address, or that fails with an {@code UnknownHostException}.
+     */
+    public static CompletableFuture<InetAddress> resolve(final String address) {
+        CompletableFuture<InetAddress> resolution = DeviceManager.addresses.get(address);
+        if (resolution != null)
+            return resolution;
+
+        final CompletableFuture<InetAddress> created = new CompletableFuture<>();
+        resolution = DeviceManager.addresses.putIfAbsent(address, created);
+        if (resolution != null)
+            return resolution;
+
+        CompletableFuture.supplyAsync(new Supplier<InetAddress>() {
+            @Override
+            public InetAddress get() {
+                try {
+                    return InetAddress.getByName(address);
+                } catch (UnknownHostException e) {
+                    throw new CompletionException(e);
+                }
+            }
+        }, DeviceManager.resolver).whenComplete(new BiConsumer<InetAddress, Throwable>() {
+            @Override
+            public void accept(InetAddress resolved, Throwable failure) {
+                if (failure == null) {
+                    created.complete(resolved);
+                } else {
+                    // Allow a later attempt to succeed
+                    DeviceManager.addresses.remove(address, created);
+                    created.completeExceptionally(failure instanceof CompletionException ? failure.getCause() : failure);
+                }
+            }
+        });
+        return created;
     }
 
     /**
@@ -38,10 +141,18 @@ public class DeviceManager extends Manager {
      *
      * @param name    The name to give to this device
      * @param address The address where the device can be found.
-     * @return The created Device
+     * @return The canonical Device for the given name and address.
      */
     public static Device createDevice(String name, InetAddress address) {
-        return new Device(address, name);
+        String key = name + "@" + address.getHostAddress();
+        Device device = DeviceManager.devices.get(key);
+        if (device == null) {
+            Device created = new Device(address, name);
+            device = DeviceManager.devices.putIfAbsent(key, created);
+            if (device == null)
+                device = created;
+        }
+        return device;
     }
 
     /**
@@ -51,7 +162,7 @@ public class DeviceManager extends Manager {
      * @return The created Device
      */
     public static Device createDevice(InetAddress address) {
-        return new Device(address, "test");
+        return DeviceManager.createDevice("test", address);
     }
 
 }
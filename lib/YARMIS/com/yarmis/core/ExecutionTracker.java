@@ -0,0 +1,176 @@
+package com.yarmis.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the requests that a host is executing, such that they can be cancelled by their requester. A request
+ * that is cancelled before it started is skipped, a request that is cancelled while it runs has its thread
+ * interrupted, and an asynchronous request that is cancelled while its result is pending has that result cancelled.
+ * <p/>
+ * Requests are identified by the connection that they were received from together with their identifier, as the
+ * identifiers of different requesters may be the same. A cancel that arrives before its request is remembered for
+ * {@code ResultHandler.TIMEOUT}, after which the requester won't wait for the request anymore anyway.
+ */
+final class ExecutionTracker {
+
+    /**
+     * The requests that are being executed, and the cancels that arrived before their request, by their call.
+     */
+    private final ConcurrentHashMap<Call, Execution> executions = new ConcurrentHashMap<Call, Execution>();
+
+    /**
+     * Registers that the given request is about to be executed on the current thread.
+     *
+     * @param connection The connection from which the request was received.
+     * @param identifier The identifier of the request.
+     * @return The execution of the request, or null if the request was cancelled already and must be skipped.
+     */
+    Execution start(Connection connection, String identifier) {
+        Call call = new Call(connection, identifier);
+        Execution execution = new Execution(call, Thread.currentThread());
+        Execution existing = this.executions.putIfAbsent(call, execution);
+        if (existing == null)
+            return execution;
+
+        this.executions.remove(call, existing);
+        return null;
+    }
+
+    /**
+     * Cancels the given request. If it hasn't started yet, it is skipped once it arrives.
+     *
+     * @param connection The connection from which the request was received.
+     * @param identifier The identifier of the request.
+     */
+    void cancel(Connection connection, String identifier) {
+        final Call call = new Call(connection, identifier);
+        final Execution cancelled = new Execution(call, null);
+        cancelled.cancelled = true;
+        Execution existing = this.executions.putIfAbsent(call, cancelled);
+        if (existing != null) {
+            existing.cancel();
+        } else {
+            ResultHandler.wheel.schedule(ResultHandler.TIMEOUT, new Runnable() {
+                @Override
+                public void run() {
+                    ExecutionTracker.this.executions.remove(call, cancelled);
+                }
+            });
+        }
+    }
+
+    /**
+     * Get the number of requests that are being executed, including the cancels that are awaiting their request.
+     *
+     * @return The number of tracked requests.
+     */
+    int size() {
+        return this.executions.size();
+    }
+
+    /**
+     * The execution of a request by a host.
+     */
+    final class Execution {
+
+        private final Call call;
+
+        /**
+         * The thread that executes the request, or null once the method has returned.
+         */
+        private Thread thread;
+
+        /**
+         * The result of an asynchronous method, which is cancelled along with the request.
+         */
+        private CompletableFuture<?> future;
+
+        private boolean cancelled = false;
+
+        private Execution(Call call, Thread thread) {
+            this.call = call;
+            this.thread = thread;
+        }
+
+        /**
+         * Indicates that the method has returned. The current thread won't be interrupted for this request anymore
+         * afterwards, and an interrupt that was meant for it is cleared. If the method returned the given stage, the
+         * request is tracked until that completes, otherwise it is done.
+         *
+         * @param outcome What the method returned, or threw.
+         */
+        void returned(Object outcome) {
+            boolean done = true;
+            synchronized (this) {
+                this.thread = null;
+                Thread.interrupted();
+                if (outcome instanceof CompletionStage) {
+                    try {
+                        this.future = ((CompletionStage<?>) outcome).toCompletableFuture();
+                        done = this.future.isDone();
+                        if (this.cancelled)
+                            this.future.cancel(true);
+                    } catch (UnsupportedOperationException e) {
+                        // This stage can't be cancelled
+                    }
+                }
+            }
+            if (done)
+                this.done();
+        }
+
+        /**
+         * Indicates that the request is done, such that it can't be cancelled anymore.
+         */
+        void done() {
+            ExecutionTracker.this.executions.remove(this.call, this);
+        }
+
+        /**
+         * Indicates whether the requester cancelled the request, in which case it must not be answered.
+         *
+         * @return Whether the request was cancelled.
+         */
+        synchronized boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        private synchronized void cancel() {
+            this.cancelled = true;
+            if (this.thread != null)
+                this.thread.interrupt();
+            if (this.future != null)
+                this.future.cancel(true);
+        }
+    }
+
+    /**
+     * A request as it is known to the host: the connection it came from together with its identifier.
+     */
+    private static final class Call {
+
+        private final Connection connection;
+
+        private final String identifier;
+
+        private Call(Connection connection, String identifier) {
+            this.connection = connection;
+            this.identifier = identifier;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Call))
+                return false;
+            Call other = (Call) o;
+            return this.connection == other.connection && this.identifier.equals(other.identifier);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.connection) + this.identifier.hashCode();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.yarmis.core;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent response times, such that percentiles of the recent latency can be determined.
+ */
+final class LatencyTracker {
+
+    /**
+     * The number of response times that must be known before a percentile is given.
+     */
+    static final int MIN_SAMPLES = 20;
+
+    /**
+     * The most recent response times in milliseconds, used as a ring buffer.
+     */
+    private final long[] samples;
+
+    private int count = 0;
+
+    private int next = 0;
+
+    /**
+     * Creates a new LatencyTracker.
+     *
+     * @param capacity The number of recent response times that are kept.
+     */
+    LatencyTracker(int capacity) {
+        if (capacity < MIN_SAMPLES)
+            throw new IllegalArgumentException("At least " + MIN_SAMPLES + " response times must be kept");
+        this.samples = new long[capacity];
+    }
+
+    /**
+     * Records a response time.
+     *
+     * @param millis The number of milliseconds it took for a response to arrive.
+     */
+    synchronized void record(long millis) {
+        this.samples[this.next] = millis;
+        this.next = (this.next + 1) % this.samples.length;
+        this.count = Math.min(this.count + 1, this.samples.length);
+    }
+
+    /**
+     * Determines the given percentile of the recent response times.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The response time in milliseconds that the given percentage of recent responses did not exceed, or -1 if
+     * too few response times are known.
+     */
+    long percentile(int percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (this.count < MIN_SAMPLES)
+                return -1;
+            sorted = Arrays.copyOf(this.samples, this.count);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,270 @@
+package com.yarmis.core;
+
+import com.yarmis.core.annotations.AddsListener;
+import com.yarmis.core.annotations.DemandRights;
+import com.yarmis.core.annotations.RemovesListener;
+import com.yarmis.core.exceptions.InvalidRequestException;
+import com.yarmis.core.exceptions.UnauthorizedRequestException;
+import com.yarmis.core.messages.Request;
+import com.yarmis.core.messages.RequestView;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A table of all methods of a functionality definition that can be invoked remotely. Every such method is given a
+ * numeric identifier, such that a Request only has to carry that number instead of the name and parameter types of
+ * the method, and such that the receiving side can find the method without reflective lookups.
+ * <p/>
+ * The identifiers are assigned by sorting the methods on their signature. Both sides therefore agree on the
+ * identifiers as long as they use the same definition. To detect the case where they don't, every table has a
+ * fingerprint that is derived from all signatures, which is sent along with every Request.
+ */
+public final class MethodTable {
+
+    /**
+     * All tables that have been built, by the functionality definition they were built for.
+     */
+    private static final Map<Class<?>, MethodTable> tables = new ConcurrentHashMap<>();
+
+    /**
+     * All methods in this table. The index of a method is its identifier.
+     */
+    private final Method[] methods;
+
+    /**
+     * A mapping from every method in this table to its identifier.
+     */
+    private final Map<Method, Integer> identifiers;
+
+    /**
+     * The fingerprint of this table.
+     */
+    private final int fingerprint;
+
+    /**
+     * For every method the adapter that invokes it with the arguments of a {@code RequestView}, once it has been
+     * built. See {@code adapter}.
+     */
+    private final AtomicReferenceArray<Object> adapters;
+
+    /**
+     * Placeholder for methods for which no adapter can be built.
+     */
+    private static final Object NO_ADAPTER = new Object();
+
+    private MethodTable(Class<?> functionalityDefinition) {
+        List<Method> methods = new ArrayList<>();
+        for (Method method : functionalityDefinition.getMethods())
+            if (Modifier.isPublic(method.getModifiers()) && method.getAnnotation(DemandRights.class) != null)
+                methods.add(method);
+
+        Collections.sort(methods, new Comparator<Method>() {
+            @Override
+            public int compare(Method a, Method b) {
+                return MethodTable.signature(a).compareTo(MethodTable.signature(b));
+            }
+        });
+
+        this.methods = methods.toArray(new Method[methods.size()]);
+        this.identifiers = new HashMap<>();
+        StringBuilder signatures = new StringBuilder();
+        for (int i = 0; i < this.methods.length; ++i) {
+            this.identifiers.put(this.methods[i], i);
+            signatures.append(MethodTable.signature(this.methods[i])).append(';');
+        }
+        this.fingerprint = signatures.toString().hashCode();
+        this.adapters = new AtomicReferenceArray<>(this.methods.length);
+    }
+
+    /**
+     * Get the table for the given functionality definition. Tables are built once and then shared.
+     *
+     * @param functionalityDefinition The interface that defines the functionality of a module.
+     * @return The table for the given functionality definition.
+     */
+    public static MethodTable of(Class<?> functionalityDefinition) {
+        MethodTable table = MethodTable.tables.get(functionalityDefinition);
+        if (table == null) {
+            table = new MethodTable(functionalityDefinition);
+            MethodTable existing = MethodTable.tables.putIfAbsent(functionalityDefinition, table);
+            if (existing != null)
+                table = existing;
+        }
+        return table;
+    }
+
+    /**
+     * Get the identifier of the given method.
+     *
+     * @param method The method for which to get the identifier
+     * @return The identifier of the given method, or -1 if the method can not be invoked remotely.
+     */
+    public int identify(Method method) {
+        Integer identifier = this.identifiers.get(method);
+        return identifier == null ? -1 : identifier;
+    }
+
+    /**
+     * Get the method with the given identifier.
+     *
+     * @param identifier The identifier of the method
+     * @return The method with the given identifier, or null if there is no such method.
+     */
+    public Method get(int identifier) {
+        return identifier >= 0 && identifier < this.methods.length ? this.methods[identifier] : null;
+    }
+
+    /**
+     * Get the method that the given request is for.
+     *
+     * @param request The request that was received for the module of this table.
+     * @return The method with the identifier that the request carries.
+     * @throws InvalidRequestException      If the request was made with a different definition of the module.
+     * @throws UnauthorizedRequestException If this table has no method with the identifier that the request carries.
+     */
+    public Method resolve(Request request) throws UnauthorizedRequestException {
+        if (request.getFingerprint() != this.fingerprint)
+            throw new InvalidRequestException("The definition of module " + request.getRecipient() + " differs from that of the requester");
+
+        Method method = this.get(request.getMethodIdentifier());
+        if (method == null)
+            throw new UnauthorizedRequestException();
+        return method;
+    }
+
+    /**
+     * Get the number of methods in this table.
+     *
+     * @return The number of methods in this table.
+     */
+    public int size() {
+        return this.methods.length;
+    }
+
+    /**
+     * Get the fingerprint of this table. Two tables that have the same fingerprint assign the same identifiers to the
+     * same methods.
+     *
+     * @return The fingerprint of this table.
+     */
+    public int getFingerprint() {
+        return this.fingerprint;
+    }
+
+    /**
+     * Get the adapter that invokes the method with the given identifier on an implementation, taking the arguments
+     * straight from a {@code RequestView}. Primitive arguments are passed on without being boxed, and no argument
+     * array is created. The adapter has type {@code (Object,RequestView)Object}, where the first argument is the
+     * implementation to invoke the method on.
+     * <p/>
+     * Adapters are built when they are first asked for.
+     *
+     * @param identifier The identifier of the method
+     * @return The adapter, or {@code null} if there is no such method or if it can't be invoked this way.
+     */
+    public MethodHandle adapter(int identifier) {
+        if (identifier < 0 || identifier >= this.methods.length)
+            return null;
+
+        Object adapter = this.adapters.get(identifier);
+        if (adapter == null) {
+            adapter = MethodTable.buildAdapter(this.methods[identifier]);
+            this.adapters.compareAndSet(identifier, null, adapter == null ? NO_ADAPTER : adapter);
+        }
+        return adapter == NO_ADAPTER ? null : (MethodHandle) adapter;
+    }
+
+    private static MethodHandle buildAdapter(Method method) {
+        // Methods that manage listeners must go through the Module, as it keeps track of the listeners.
+        if (method.getAnnotation(AddsListener.class) != null || method.getAnnotation(RemovesListener.class) != null)
+            return null;
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            MethodHandle target;
+            try {
+                target = lookup.unreflect(method);
+            } catch (IllegalAccessException e) {
+                // The definition itself is not public
+                Method accessible = method.getDeclaringClass().getMethod(method.getName(), method.getParameterTypes());
+                accessible.setAccessible(true);
+                target = MethodHandles.lookup().unreflect(accessible);
+            }
+
+            // Read every argument from the view with the accessor that fits its type
+            Class<?>[] parameters = method.getParameterTypes();
+            MethodHandle[] readers = new MethodHandle[parameters.length];
+            for (int i = 0; i < parameters.length; ++i) {
+                MethodHandle reader = MethodTable.reader(lookup, parameters[i]);
+                if (reader == null)
+                    return null;
+                readers[i] = MethodHandles.insertArguments(reader, 1, i).asType(MethodType.methodType(parameters[i], RequestView.class));
+            }
+            target = MethodHandles.filterArguments(target, 1, readers);
+
+            // Let all readers share the single view argument
+            int[] reorder = new int[parameters.length + 1];
+            for (int i = 1; i < reorder.length; ++i)
+                reorder[i] = 1;
+            target = MethodHandles.permuteArguments(target,
+                    MethodType.methodType(target.type().returnType(), target.type().parameterType(0), RequestView.class),
+                    reorder);
+
+            return target.asType(MethodType.methodType(Object.class, Object.class, RequestView.class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get the accessor of {@code RequestView} that reads an argument of the given type, of type {@code
+     * (RequestView,int)?}.
+     */
+    private static MethodHandle reader(MethodHandles.Lookup lookup, Class<?> type) throws ReflectiveOperationException {
+        String name;
+        if (type == int.class)
+            name = "getInt";
+        else if (type == long.class)
+            name = "getLong";
+        else if (type == double.class)
+            name = "getDouble";
+        else if (type == float.class)
+            name = "getFloat";
+        else if (type == char.class)
+            name = "getChar";
+        else if (type == boolean.class)
+            name = "getBoolean";
+        else if (type.isPrimitive())
+            // Other primitives are never sent in binary
+            return null;
+        else
+            return lookup.findVirtual(RequestView.class, "getArgument", MethodType.methodType(Object.class, int.class));
+
+        return lookup.findVirtual(RequestView.class, name, MethodType.methodType(type, int.class));
+    }
+
+    private static String signature(Method method) {
+        StringBuilder signature = new StringBuilder(method.getName()).append('(');
+        for (Class<?> parameter : method.getParameterTypes())
+            signature.append(parameter.getName()).append(',');
+        return signature.append(')').toString();
+    }
+
+    @Override
+    public String toString() {
+        return "MethodTable " + Arrays.toString(this.methods);
+    }
+}
@@ -19,5 +19,13 @@ public interface Module<RemoteClass> {
 
     void notify(Notification notification);
 
+    /**
+     * Indicates that the results of the {@code @Cacheable} methods of this module have changed, such that requesters
+     * don't use what they cached of them anymore. A module must call this whenever such a result may have changed.
+     */
+    void invalidate();
+
     Class<?> getInterface();
+
+    MethodTable getMethodTable();
 }
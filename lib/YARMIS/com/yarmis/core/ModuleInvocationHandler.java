@@ -1,6 +1,7 @@
 package com.yarmis.core;
 
 import com.yarmis.core.annotations.AddsListener;
+import com.yarmis.core.annotations.Cacheable;
 import com.yarmis.core.annotations.RemovesListener;
 import com.yarmis.core.logging.Log;
 import com.yarmis.core.messages.Notification;
@@ -11,6 +12,9 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
 
 class ModuleInvocationHandler<RemoteClass> implements InvocationHandler,
         Module<RemoteClass> {
@@ -32,6 +36,34 @@ class ModuleInvocationHandler<RemoteClass> implements InvocationHandler,
      */
     private final Map<Class<?>, Set<Object>> listeners = new HashMap<>();
 
+    /**
+     * The last results of calls of methods that are answered with a {@code Delta}, by the method and the arguments of
+     * the call. Only the most recently used calls are remembered.
+     */
+    private final Map<List<Object>, HeldResult> deltas = new LinkedHashMap<List<Object>, HeldResult>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, HeldResult> eldest) {
+            return this.size() > DeltaTracker.CAPACITY;
+        }
+    };
+
+    /**
+     * The cached results of calls of methods that are annotated with {@code @Cacheable}, by the method and the
+     * arguments of the call. Only the most recently used calls are remembered.
+     */
+    private final Map<List<Object>, CachedResult> cache = new LinkedHashMap<List<Object>, CachedResult>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, CachedResult> eldest) {
+            return this.size() > DeltaTracker.CAPACITY;
+        }
+    };
+
+    /**
+     * The latest version of this module that the host invalidated the cache at. Results of older versions are not
+     * cached.
+     */
+    private long invalidated = 0;
+
     /**
      * The listener that is provided by the NotificationManager to listen to any update on the {@code Module} that this
      * {@code ModuleInvocationHandler} represents.
@@ -313,7 +345,172 @@ class ModuleInvocationHandler<RemoteClass> implements InvocationHandler,
             throws Throwable {
 
         Log.v("MIH", "Invoking " + method.getDeclaringClass().getName() + "." + method.getName() + " remotely");
-        return this.moduleManager.request(this.getIdentifier(), method, arguments).get();
+        if (Delta.isDelta(method))
+            return this.invokeWithDelta(method, arguments);
+        if (Versioned.isCacheable(method))
+            return this.invokeCached(method, arguments);
+
+        if (method.getReturnType() == Flow.Publisher.class)
+            return this.moduleManager.stream(this.getIdentifier(), this.getMethodTable(), method, arguments);
+        if (ModuleInvocationHandler.isAsynchronous(method)) {
+            // Asynchronous calls join the batch that is open on this thread, if any
+            Batch batch = Batch.current();
+            Result result = batch == null
+                    ? this.moduleManager.request(this.getIdentifier(), this.getMethodTable(), method, arguments)
+                    : batch.request(this.getIdentifier(), this.getMethodTable(), method, arguments);
+            return result.toCompletableFuture();
+        }
+        return this.moduleManager.request(this.getIdentifier(), this.getMethodTable(), method, arguments).get();
+    }
+
+    /**
+     * Checks whether the given method is called asynchronously, which is the case if it returns a {@code
+     * CompletableFuture} or a {@code CompletionStage}. Such methods return as soon as the request has been sent, or has
+     * been added to the open {@code Batch}, and their result completes once the response arrives.
+     *
+     * @param method The method to check.
+     * @return Whether the method is called asynchronously.
+     */
+    static boolean isAsynchronous(Method method) {
+        return method.getReturnType() == CompletableFuture.class || method.getReturnType() == CompletionStage.class;
+    }
+
+    /**
+     * Call to let a method that is answered with a {@code Delta} be executed remotely. The result of the previous call
+     * with the same arguments is sent along, such that the host only has to send what changed.
+     *
+     * @param method    The method to be executed remotely.
+     * @param arguments The arguments provided to the method.
+     * @return A new collection of the type that the method returns, holding the elements of the result.
+     */
+    private Object invokeWithDelta(Method method, Object[] arguments) throws Throwable {
+        List<Object> call = new ArrayList<>();
+        call.add(method);
+        if (arguments != null)
+            call.addAll(Arrays.asList(arguments));
+
+        HeldResult held;
+        synchronized (this.deltas) {
+            held = this.deltas.get(call);
+        }
+        long known = held == null ? Delta.NO_VERSION : held.version;
+        List<Object> elements = held == null ? null : held.elements;
+
+        Delta delta = (Delta) this.moduleManager.request(this.getIdentifier(), this.getMethodTable(), known, method, arguments).get();
+        if (delta == null)
+            return null;
+
+        List<Object> result = delta.apply(known, elements);
+        if (result == null) {
+            // What we hold was replaced by a concurrent call, so ask for everything
+            delta = (Delta) this.moduleManager.request(this.getIdentifier(), this.getMethodTable(), Delta.NO_VERSION, method, arguments).get();
+            result = delta.apply(Delta.NO_VERSION, null);
+        }
+
+        synchronized (this.deltas) {
+            this.deltas.put(call, new HeldResult(delta.getVersion(), result));
+        }
+
+        // Hand out a copy, such that changes made by the caller don't affect what we hold.
+        if (method.getReturnType().isAssignableFrom(ArrayList.class))
+            return new ArrayList<>(result);
+        else if (method.getReturnType().isAssignableFrom(LinkedHashSet.class))
+            return new LinkedHashSet<>(result);
+        else
+            throw new ClassCastException("Cannot convert the result to " + method.getReturnType().getName());
+    }
+
+    /**
+     * Call to let a method that is annotated with {@code @Cacheable} be executed remotely. A cached result is returned
+     * right away while its time to live lasts. Afterwards the host is asked for the result, telling it which version is
+     * held, such that it only sends the result if it changed. Cached results are shared by all callers, so they must
+     * not be modified.
+     *
+     * @param method    The method to be executed remotely.
+     * @param arguments The arguments provided to the method.
+     * @return The result of the call.
+     */
+    private Object invokeCached(Method method, Object[] arguments) throws Throwable {
+        List<Object> call = new ArrayList<>();
+        call.add(method);
+        if (arguments != null)
+            call.addAll(Arrays.asList(arguments));
+
+        CachedResult cached;
+        synchronized (this.cache) {
+            cached = this.cache.get(call);
+        }
+        if (cached != null && System.currentTimeMillis() < cached.expires)
+            return cached.value;
+
+        long known = cached == null ? Delta.NO_VERSION : cached.version;
+        Versioned answer = (Versioned) this.moduleManager.request(this.getIdentifier(), this.getMethodTable(), known, method, arguments).get();
+        Object value = answer.isModified() ? answer.getValue() : cached.value;
+
+        long expires = System.currentTimeMillis() + method.getAnnotation(Cacheable.class).value();
+        synchronized (this.cache) {
+            // A result that was computed before the latest invalidation is outdated already
+            if (answer.getVersion() >= this.invalidated)
+                this.cache.put(call, new CachedResult(answer.getVersion(), value, expires));
+        }
+        return value;
+    }
+
+    /**
+     * Forgets all cached results, as the host has told that they changed.
+     *
+     * @param version The version of this module after the change.
+     */
+    void invalidated(long version) {
+        synchronized (this.cache) {
+            this.invalidated = Math.max(this.invalidated, version);
+            this.cache.clear();
+        }
+    }
+
+    @Override
+    public void invalidate() {
+        this.moduleManager.invalidate(this.identifier);
+        // Results that were cached of this module from elsewhere are outdated as well
+        synchronized (this.cache) {
+            this.cache.clear();
+        }
+    }
+
+    /**
+     * A cached result of a call of a method that is annotated with {@code @Cacheable}.
+     */
+    private static final class CachedResult {
+
+        private final long version;
+
+        private final Object value;
+
+        /**
+         * The moment, in milliseconds, until which the result is used without asking the host.
+         */
+        private final long expires;
+
+        private CachedResult(long version, Object value, long expires) {
+            this.version = version;
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * The last result of a call of a method that is answered with a {@code Delta}.
+     */
+    private static final class HeldResult {
+
+        private final long version;
+
+        private final List<Object> elements;
+
+        private HeldResult(long version, List<Object> elements) {
+            this.version = version;
+            this.elements = elements;
+        }
     }
 
 
@@ -505,6 +702,11 @@ class ModuleInvocationHandler<RemoteClass> implements InvocationHandler,
         return this.functionalityDefinitionClass;
     }
 
+    @Override
+    public MethodTable getMethodTable() {
+        return MethodTable.of(this.functionalityDefinitionClass);
+    }
+
     /**
      * Indicate that the ModuleInvocationHandler must no longer be in its construction phase.
      */
@@ -1,17 +1,28 @@
 package com.yarmis.core;
 
+import com.yarmis.core.annotations.AddsListener;
 import com.yarmis.core.annotations.DemandRights;
+import com.yarmis.core.annotations.RemovesListener;
+import com.yarmis.core.exceptions.InvalidRequestException;
 import com.yarmis.core.exceptions.ModuleInaccessibleException;
-import com.yarmis.core.exceptions.UnauthorizedRequestException;
 import com.yarmis.core.messages.Request;
+import com.yarmis.core.messages.RequestView;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ModuleManager extends Manager {
 
@@ -30,6 +41,12 @@ public class ModuleManager extends Manager {
      */
     private Map<String, Module<?>> modules = new WeakHashMap<>();
 
+    /**
+     * The version of the results of the cacheable methods of every module, by the identifier of the module. A module
+     * that has never been invalidated is at version 0.
+     */
+    private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
     /**
      * Creates a new Module based on the given class. The resulting Module provides the functionality as defined by
      * {@code functionalityDefinition}. This functionality can be executed on a remote location or on the local machine.
@@ -82,6 +99,9 @@ public class ModuleManager extends Manager {
         // Register the rights
         yarmis.security.onModuleAdded(functionalityDefinition);
 
+        // Allow the definition and its listeners to be named by other devices
+        this.allowResolution(functionalityDefinition);
+
         // Register the Module
         this.register(module);
 
@@ -92,6 +112,21 @@ public class ModuleManager extends Manager {
 
     }
 
+    /**
+     * Allows the given functionality definition, and all listener interfaces that it accepts, to be resolved when they
+     * are named in messages from other devices.
+     *
+     * @param functionalityDefinition The class that represents the functionality of a module.
+     */
+    private void allowResolution(Class<?> functionalityDefinition) {
+        Resolver resolver = yarmis.communication.communication.getResolver();
+        resolver.allow(functionalityDefinition);
+        for (Method method : functionalityDefinition.getMethods())
+            if ((method.getAnnotation(AddsListener.class) != null || method.getAnnotation(RemovesListener.class) != null)
+                    && method.getParameterTypes().length == 1 && method.getParameterTypes()[0].isInterface())
+                resolver.allow(method.getParameterTypes()[0]);
+    }
+
     /**
      * Determine which classes a proxy must implement to be a Module for the given functionality. This result can be
      * plugged directly into the proxy creation.
@@ -221,9 +256,15 @@ public class ModuleManager extends Manager {
     private boolean validateMethod(Method method) {
         if (Modifier.isPublic(method.getModifiers())
                 && method.getAnnotation(DemandRights.class) != null) {
+            Communication communication = yarmis.communication.communication;
             for (Class<?> _class : method.getParameterTypes())
-                if (!yarmis.communication.communication.validParameter(_class))
+                if (!communication.validParameter(_class))
                     return false;
+
+            // Prepare translators for everything else that travels along with calls to this method.
+            for (Type type : method.getGenericParameterTypes())
+                communication.ensureTranslatable(type);
+            communication.ensureTranslatable(method.getGenericReturnType());
             return true;
 
         } else
@@ -264,16 +305,107 @@ public class ModuleManager extends Manager {
          * Check whether the method has been cleared for remote invocation by the connection.
          * throws exception if not
          */
-        Method method = module.getInterface().getMethod(request.getMethod(), request.getArgumentTypes());
+        MethodTable table = module.getMethodTable();
+        Method method = table.resolve(request);
 
-        if (method == null)
-            throw new UnauthorizedRequestException();
+        if (method.getParameterTypes().length != request.getArgumentCount())
+            throw new InvalidRequestException("Wrong number of arguments for " + method.getName());
 
         yarmis.security.validateMethod(method, connection.getDevice());
 
-        // It is allowed.
-        return method.invoke(this.modules.get(recipient), request.getArguments());
+        // Requesters that hold an up to date result of a cacheable method don't need it again
+        boolean cacheable = Versioned.isCacheable(method);
+        long version = cacheable ? this.getVersion(recipient) : Delta.NO_VERSION;
+        if (cacheable && request.getKnownVersion() == version)
+            return Versioned.unmodified(version);
+
+        // It is allowed, so only now read the arguments.
+        Object outcome = ModuleManager.invoke(this.modules.get(recipient), table, method, request,
+                !Delta.isDelta(method) && !cacheable);
+
+        // Only send how the result differs from what the requester holds
+        if (Delta.isDelta(method) && outcome != null) {
+            Communication communication = this.yarmis.communication.communication;
+            DeltaTracker.Call call = new DeltaTracker.Call(recipient, request.getMethodIdentifier(), request.getArguments());
+            return connection.getDeltaTracker().update(call, (Collection<?>) outcome, request.getKnownVersion(), communication);
+        }
+        // The version was taken before the call, so a concurrent change is never missed
+        if (cacheable)
+            return new Versioned(version, true, outcome);
+        return outcome;
+
+    }
+
+    /**
+     * Get the version of the results of the cacheable methods of the given module.
+     *
+     * @param identifier The identifier of the module.
+     * @return The current version of the module.
+     */
+    long getVersion(String identifier) {
+        AtomicLong version = this.versions.get(identifier);
+        return version == null ? 0 : version.get();
+    }
+
+    /**
+     * Indicates that the results of the cacheable methods of the given module have changed. Requesters won't use
+     * what they cached of it anymore, and if this device is hosting, all connected devices are told so right away.
+     *
+     * @param identifier The identifier of the module that changed.
+     */
+    public void invalidate(String identifier) {
+        AtomicLong version = this.versions.get(identifier);
+        if (version == null) {
+            AtomicLong created = new AtomicLong();
+            version = this.versions.putIfAbsent(identifier, created);
+            if (version == null)
+                version = created;
+        }
+        long current = version.incrementAndGet();
+        if (this.yarmis.connection.isHosting())
+            this.yarmis.communication.invalidate(identifier, current);
+    }
+
+    /**
+     * Lets the module with the given identifier forget what it cached of the host, as it has changed.
+     *
+     * @param identifier The identifier of the module.
+     * @param version    The version of the module after the change.
+     */
+    void invalidated(String identifier, long version) {
+        Module<?> module = this.getModule(identifier);
+        if (module != null && Proxy.isProxyClass(module.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(module);
+            if (handler instanceof ModuleInvocationHandler)
+                ((ModuleInvocationHandler<?>) handler).invalidated(version);
+        }
+    }
 
+    /**
+     * Invokes the method that the given request is for on the given module. Binary requests can pass their arguments
+     * straight from the frame to the module, through the adapter of the method. All other requests decode their
+     * arguments first. Either way, whatever the module throws is wrapped in an {@code InvocationTargetException}, such
+     * that the requester receives the same failure regardless of how the request was encoded.
+     *
+     * @param module  The module on which to invoke the method.
+     * @param table   The method table of the module.
+     * @param method  The method that the request is for.
+     * @param request The request.
+     * @param direct  Whether the arguments of a binary request may be passed straight from the frame.
+     * @return The result of the invocation.
+     * @throws InvocationTargetException If the module threw.
+     */
+    static Object invoke(Object module, MethodTable table, Method method, Request request, boolean direct)
+            throws IllegalAccessException, InvocationTargetException {
+        MethodHandle adapter = direct && request instanceof RequestView ? table.adapter(request.getMethodIdentifier()) : null;
+        if (adapter == null)
+            return method.invoke(module, request.getArguments());
+
+        try {
+            return (Object) adapter.invokeExact(module, (RequestView) request);
+        } catch (Throwable throwable) {
+            throw new InvocationTargetException(throwable);
+        }
     }
 
     /**
@@ -342,7 +474,40 @@ public class ModuleManager extends Manager {
      * @return A Result object that can be used to retrieve the return value.
      */
     public Result request(String identifier, Method method, Object[] arguments) {
-        return this.yarmis.communication.request(identifier, method, arguments);
+        return this.request(identifier, MethodTable.of(method.getDeclaringClass()), method, arguments);
+    }
+
+    /**
+     * Requests for the given method to be executed by the Host.
+     *
+     * @param table     The method table of the module on which the method must be executed.
+     * @param method    The Method to execute on the Host.
+     * @param arguments The arguments to provide to the Host
+     * @return A Result object that can be used to retrieve the return value.
+     */
+    public Result request(String identifier, MethodTable table, Method method, Object[] arguments) {
+        return this.yarmis.communication.request(identifier, table, method, arguments);
+    }
+
+    /**
+     * Creates a publisher for the items of the given method of the module with the given identifier, which returns a
+     * {@code Flow.Publisher}. See {@code CommunicationManager.stream}.
+     */
+    public Flow.Publisher<Object> stream(String identifier, MethodTable table, Method method, Object[] arguments) {
+        return this.yarmis.communication.stream(identifier, table, method, arguments);
+    }
+
+    /**
+     * Requests for the given method, which is answered with a {@code Delta}, to be executed by the Host.
+     *
+     * @param table     The method table of the module on which the method must be executed.
+     * @param known     The version of the result that is already held, or {@code Delta.NO_VERSION}.
+     * @param method    The Method to execute on the Host.
+     * @param arguments The arguments to provide to the Host
+     * @return A Result object that can be used to retrieve the {@code Delta}.
+     */
+    public Result request(String identifier, MethodTable table, long known, Method method, Object[] arguments) {
+        return this.yarmis.communication.request(identifier, table, known, method, arguments);
     }
 
     /**
@@ -11,6 +11,9 @@ import java.util.Scanner;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import java.io.File;
 import java.io.IOException;
@@ -80,15 +83,30 @@ public class PermissionRepository {
 
     /**
      * Populates this repository with the content of the given JSONArray.
+     * The addresses of all devices are resolved in parallel, so a large
+     * repository does not wait for every address in turn.
      * 
      * @param  a The JSONArray that is read from to populate this repository
      */
     public void populate(JSONArray a) throws JSONException {
         repository.clear();
         if(a == null) return;
+
+        // Start resolving all devices before waiting for any of them
+        List<CompletableFuture<Device>> devices = new ArrayList<CompletableFuture<Device>>(a.length());
+        for (int i = 0; i < a.length(); i++) {
+            JSONObject d = a.getJSONObject(i).getJSONObject(DEVICE);
+            devices.add(DeviceManager.createDeviceAsync(Device.nameOf(d), Device.addressOf(d)));
+        }
+
         for (int i = 0; i < a.length(); i++) {
             JSONObject o = a.getJSONObject(i);
-            Device device = Device.fromJSON(o.getJSONObject(DEVICE));
+            Device device;
+            try {
+                device = devices.get(i).join();
+            } catch(CompletionException e) {
+                throw new JSONException("Hostname has to be an IP address", e.getCause());
+            }
             ArrayList<String> permissions = new ArrayList<String>();
             JSONArray p = o.getJSONArray(PERMISSIONS);
             for (int j = 0; j < p.length(); j++) {
@@ -0,0 +1,127 @@
+package com.yarmis.core;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * A pool of objects that are reused instead of being allocated for every call. Every thread has its own pool, so
+ * taking an object from it and returning it requires no synchronization. An object must be returned by the thread that
+ * took it, and must not be used anymore once it has been returned.
+ * <p/>
+ * Returning an object that is still in the pool of the current thread throws an {@code IllegalStateException}. When
+ * assertions are enabled, or the system property {@code yarmis.recycler.tracking} is {@code true}, every Recycler also
+ * keeps track of the objects it handed out to the current thread. Returning an object twice, returning an object that
+ * was not handed out, or returning it from another thread then throws an {@code IllegalStateException} as well.
+ *
+ * @param <T> The type of the objects in the pool.
+ */
+public abstract class Recycler<T> {
+
+    /**
+     * The default number of objects that every thread keeps in its pool.
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Whether handed out objects are tracked, which is the case when assertions are enabled or when the system property
+     * {@code yarmis.recycler.tracking} is {@code true}.
+     */
+    static final boolean TRACKING;
+
+    static {
+        boolean tracking = Boolean.getBoolean("yarmis.recycler.tracking");
+        assert tracking = true;
+        TRACKING = tracking;
+    }
+
+    /**
+     * The number of objects that every thread keeps in its pool.
+     */
+    private final int capacity;
+
+    /**
+     * The pool of every thread.
+     */
+    private final ThreadLocal<ArrayDeque<T>> pools = new ThreadLocal<ArrayDeque<T>>() {
+        @Override
+        protected ArrayDeque<T> initialValue() {
+            return new ArrayDeque<>();
+        }
+    };
+
+    /**
+     * The objects that have been handed out to every thread, only if {@code TRACKING}.
+     */
+    private final ThreadLocal<Set<T>> outstanding = new ThreadLocal<Set<T>>() {
+        @Override
+        protected Set<T> initialValue() {
+            return Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+        }
+    };
+
+    protected Recycler() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new Recycler.
+     *
+     * @param capacity The number of objects that every thread keeps in its pool.
+     */
+    protected Recycler(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a new object for when the pool is empty.
+     *
+     * @return The created object.
+     */
+    protected abstract T create();
+
+    /**
+     * Prepares the given object to be reused.
+     *
+     * @param object The object that was returned.
+     * @return Whether the object may be reused. Objects that are not reused are left to the garbage collector.
+     */
+    protected boolean reset(T object) {
+        return true;
+    }
+
+    /**
+     * Takes an object from the pool of the current thread, or creates one if the pool is empty.
+     *
+     * @return An object that is not in use.
+     */
+    public T acquire() {
+        T object = this.pools.get().poll();
+        if (object == null)
+            object = this.create();
+        if (TRACKING)
+            this.outstanding.get().add(object);
+        return object;
+    }
+
+    /**
+     * Returns the given object to the pool of the current thread. It must not be used anymore afterwards.
+     *
+     * @param object An object that was taken from this Recycler by the current thread.
+     */
+    public void release(T object) {
+        if (TRACKING && !this.outstanding.get().remove(object))
+            throw new IllegalStateException("Released " + object.getClass().getSimpleName()
+                    + " that was not acquired by this thread, or that was released already");
+
+        // The pool is small, so looking for the object in it is cheap enough to always do
+        ArrayDeque<T> pool = this.pools.get();
+        for (T pooled : pool)
+            if (pooled == object)
+                throw new IllegalStateException("Released " + object.getClass().getSimpleName() + " twice");
+
+        if (this.reset(object) && pool.size() < this.capacity)
+            pool.push(object);
+    }
+}
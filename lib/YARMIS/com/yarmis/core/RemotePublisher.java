@@ -0,0 +1,222 @@
+package com.yarmis.core;
+
+import com.yarmis.core.logging.Log;
+import com.yarmis.core.messages.Message;
+import com.yarmis.core.messages.StreamSignal;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.function.BiConsumer;
+
+/**
+ * The publisher that a remote method which returns a {@code Flow.Publisher} returns on the requester. Every
+ * subscription sends the request anew, and receives the items of the publisher that the host returned. The demand of
+ * the subscriber is passed on to the host, which only sends as many items as were demanded.
+ * <p/>
+ * The items are passed to the subscriber on the thread that reads the connection to the host, such that they arrive
+ * in order. Subscribers therefore must not block in {@code onNext}.
+ */
+final class RemotePublisher implements Flow.Publisher<Object> {
+
+    private final CommunicationManager manager;
+
+    private final String recipient;
+
+    private final MethodTable table;
+
+    private final Method method;
+
+    private final Object[] arguments;
+
+    RemotePublisher(CommunicationManager manager, String recipient, MethodTable table, Method method, Object[] arguments) {
+        this.manager = manager;
+        this.recipient = recipient;
+        this.table = table;
+        this.method = method;
+        this.arguments = arguments;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Object> subscriber) {
+        final Subscription subscription = new Subscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        try {
+            Result opened = this.manager.openStream(subscription, this.recipient, this.table, this.method, this.arguments);
+            subscription.opening(opened);
+            opened.toCompletableFuture().whenComplete(new BiConsumer<Object, Throwable>() {
+                @Override
+                public void accept(Object value, Throwable throwable) {
+                    if (throwable instanceof CompletionException && throwable.getCause() != null)
+                        throwable = throwable.getCause();
+                    if (throwable == null)
+                        subscription.opened();
+                    else
+                        subscription.fail(throwable);
+                }
+            });
+        } catch (RuntimeException e) {
+            subscription.fail(e);
+        }
+    }
+
+    /**
+     * The subscription of a subscriber to a stream on the host.
+     */
+    final class Subscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super Object> subscriber;
+
+        /**
+         * The identifier of the request that opens the stream, or null until it has been sent.
+         */
+        private volatile String identifier;
+
+        /**
+         * The result of the request that opens the stream.
+         */
+        private Result opening;
+
+        /**
+         * Whether the host has opened the stream, after which demand is sent right away.
+         */
+        private boolean open = false;
+
+        /**
+         * The demand that was made before the stream was opened.
+         */
+        private long demand = 0;
+
+        private boolean cancelled = false;
+
+        /**
+         * Whether the subscriber has been completed or failed, after which it receives no more signals.
+         */
+        private boolean done = false;
+
+        private Subscription(Flow.Subscriber<? super Object> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        String getIdentifier() {
+            return this.identifier;
+        }
+
+        void identify(String identifier) {
+            this.identifier = identifier;
+        }
+
+        @Override
+        public void request(long count) {
+            if (count <= 0) {
+                this.fail(new IllegalArgumentException("The number of requested items must be positive"));
+                this.cancel();
+                return;
+            }
+            synchronized (this) {
+                if (this.cancelled || this.done)
+                    return;
+                if (!this.open) {
+                    this.demand = StreamSender.add(this.demand, count);
+                    return;
+                }
+            }
+            this.signal(StreamSignal.DEMAND, count);
+        }
+
+        @Override
+        public void cancel() {
+            boolean open;
+            Result opening;
+            synchronized (this) {
+                if (this.cancelled)
+                    return;
+                this.cancelled = true;
+                open = this.open;
+                opening = this.opening;
+            }
+            this.forget();
+            if (open)
+                this.signal(StreamSignal.CANCEL, 0);
+            else if (opening != null)
+                opening.cancel();
+        }
+
+        /**
+         * Remembers the result of the request that opens the stream, such that the request can be cancelled.
+         */
+        private synchronized void opening(Result opening) {
+            this.opening = opening;
+        }
+
+        /**
+         * Called once the host has opened the stream, which sends the demand that was made so far.
+         */
+        private void opened() {
+            long demand;
+            boolean cancelled;
+            synchronized (this) {
+                this.open = true;
+                demand = this.demand;
+                cancelled = this.cancelled;
+                this.demand = 0;
+            }
+            if (cancelled)
+                this.signal(StreamSignal.CANCEL, 0);
+            else if (demand > 0)
+                this.signal(StreamSignal.DEMAND, demand);
+        }
+
+        /**
+         * Passes a signal that the host sent on to the subscriber.
+         *
+         * @param signal An ITEM, COMPLETE or ERROR signal.
+         */
+        synchronized void receive(StreamSignal signal) {
+            if (this.done || this.cancelled)
+                return;
+            switch (signal.getKind()) {
+                case StreamSignal.ITEM:
+                    this.subscriber.onNext(signal.getValue());
+                    break;
+                case StreamSignal.COMPLETE:
+                    this.done = true;
+                    this.forget();
+                    this.subscriber.onComplete();
+                    break;
+                case StreamSignal.ERROR:
+                    this.done = true;
+                    this.forget();
+                    this.subscriber.onError((Throwable) signal.getValue());
+                    break;
+                default:
+                    Log.w("RemotePublisher", "Ignored " + signal);
+            }
+        }
+
+        /**
+         * Fails the subscriber, unless it has received its last signal already or has cancelled.
+         */
+        private synchronized void fail(Throwable throwable) {
+            if (this.done || this.cancelled)
+                return;
+            this.done = true;
+            this.forget();
+            this.subscriber.onError(throwable);
+        }
+
+        private void forget() {
+            String identifier = this.getIdentifier();
+            if (identifier != null)
+                RemotePublisher.this.manager.closeStream(identifier, this);
+        }
+
+        private void signal(String kind, long count) {
+            try {
+                RemotePublisher.this.manager.sendToHost(Message.makeStreamSignal(this.getIdentifier(), kind, count, null));
+            } catch (RuntimeException e) {
+                this.fail(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.yarmis.core;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Resolves class names and methods that were received from other devices. Results are kept in a bounded cache, such
+ * that resolving the same name again does not require {@code Class.forName} or {@code getMethod}.
+ * <p/>
+ * Only allowed classes can be resolved, such that a remote device can not cause arbitrary classes to be loaded. A class
+ * is allowed if it was allowed explicitly, if it is in one of the allowed packages, or if the caller expects a
+ * supertype and the class turns out to be a subtype of it. In the latter case the class is loaded without being
+ * initialized to perform the check.
+ */
+public class Resolver {
+
+    /**
+     * The default number of classes and methods that are remembered.
+     */
+    public static final int DEFAULT_CAPACITY = 512;
+
+    /**
+     * The packages of which all classes are allowed by default.
+     */
+    private static final String[] DEFAULT_PACKAGES = {"java.lang.", "java.util.", "java.io."};
+
+    /**
+     * All classes that were allowed explicitly, by their name.
+     */
+    private final Map<String, Class<?>> allowed = new ConcurrentHashMap<>();
+
+    /**
+     * The prefixes of all allowed packages.
+     */
+    private final List<String> packages = new CopyOnWriteArrayList<>(Resolver.DEFAULT_PACKAGES);
+
+    /**
+     * The cache of resolved classes. Classes that were rejected are not remembered.
+     */
+    private final Map<String, Class<?>> classes;
+
+    /**
+     * The cache of resolved methods.
+     */
+    private final Map<MethodKey, Method> methods;
+
+    public Resolver() {
+        this(Resolver.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new Resolver.
+     *
+     * @param capacity The number of classes and the number of methods that are remembered at most.
+     */
+    public Resolver(int capacity) {
+        this.classes = Resolver.boundedMap(capacity);
+        this.methods = Resolver.boundedMap(capacity);
+    }
+
+    private static <K, V> Map<K, V> boundedMap(final int capacity) {
+        return new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return this.size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Allows the given class to be resolved.
+     *
+     * @param _class The class to allow.
+     */
+    public void allow(Class<?> _class) {
+        this.allowed.put(_class.getName(), _class);
+    }
+
+    /**
+     * Allows all classes in the given package, and in packages nested in it, to be resolved.
+     *
+     * @param packageName The name of the package, such as {@code "com.example"}.
+     */
+    public void allowPackage(String packageName) {
+        this.packages.add(packageName.endsWith(".") ? packageName : packageName + ".");
+    }
+
+    /**
+     * Resolves the class with the given name.
+     *
+     * @param name     The name of the class.
+     * @param expected If not {@code null}, the class must be a subtype of this class. Classes that are not allowed
+     *                 otherwise are then allowed if they are such a subtype.
+     * @return The class with the given name.
+     * @throws ClassNotFoundException If the class doesn't exist, or if it is not allowed.
+     */
+    public Class<?> resolveClass(String name, Class<?> expected) throws ClassNotFoundException {
+        // Classes that are only allowed for being a subtype must not be handed out to callers that expect anything.
+        String key = expected == null ? name : name + " < " + expected.getName();
+        Class<?> found;
+        synchronized (this.classes) {
+            found = this.classes.get(key);
+        }
+
+        if (found == null) {
+            found = this.allowed.get(name);
+            if (found == null && (expected != null || this.inAllowedPackage(name)))
+                found = Class.forName(name, false, Resolver.class.getClassLoader());
+            else if (found == null)
+                throw new ClassNotFoundException(name + " is not allowed to be resolved");
+
+            if (expected != null && !expected.isAssignableFrom(found))
+                throw new ClassNotFoundException(name + " is not a " + expected.getName());
+
+            synchronized (this.classes) {
+                this.classes.put(key, found);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Resolves the public method with the given name and parameter types on the given class.
+     *
+     * @param _class         The class that has the method.
+     * @param name           The name of the method.
+     * @param parameterTypes The parameter types of the method.
+     * @return The method.
+     * @throws NoSuchMethodException If there is no such method.
+     */
+    public Method resolveMethod(Class<?> _class, String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        MethodKey key = new MethodKey(_class, name, parameterTypes);
+        Method found;
+        synchronized (this.methods) {
+            found = this.methods.get(key);
+        }
+        if (found == null) {
+            found = _class.getMethod(name, parameterTypes);
+            synchronized (this.methods) {
+                this.methods.put(key, found);
+            }
+        }
+        return found;
+    }
+
+    private boolean inAllowedPackage(String name) {
+        for (String prefix : this.packages)
+            if (name.startsWith(prefix))
+                return true;
+        return false;
+    }
+
+    private static final class MethodKey {
+
+        private final Class<?> _class;
+        private final String name;
+        private final Class<?>[] parameterTypes;
+        private final int hash;
+
+        private MethodKey(Class<?> _class, String name, Class<?>[] parameterTypes) {
+            this._class = _class;
+            this.name = name;
+            this.parameterTypes = parameterTypes;
+            this.hash = 31 * (31 * _class.hashCode() + name.hashCode()) + Arrays.hashCode(parameterTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MethodKey))
+                return false;
+            MethodKey other = (MethodKey) o;
+            return this._class.equals(other._class) && this.name.equals(other.name)
+                    && Arrays.equals(this.parameterTypes, other.parameterTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
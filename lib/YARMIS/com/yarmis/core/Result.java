@@ -1,9 +1,13 @@
 package com.yarmis.core;
 
+import com.yarmis.core.exceptions.CancelledException;
 import com.yarmis.core.exceptions.TimeoutException;
 import com.yarmis.core.messages.Response;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
 
 
 /**
@@ -38,6 +42,22 @@ public class Result {
      */
     private boolean hasReleased = false;
 
+    /**
+     * The future that is completed when this Result is released, or null if none was asked for.
+     */
+    private CompletableFuture<Object> future = null;
+
+    /**
+     * Indicates whether this Result was cancelled by the caller.
+     */
+    private boolean cancelled = false;
+
+    /**
+     * What is done when this Result is cancelled, such as telling the host to stop, or null if nothing needs to be
+     * done.
+     */
+    private Runnable canceller = null;
+
     /**
      * Create a new Result.
      */
@@ -57,18 +77,118 @@ public class Result {
 
         // wait for the result to be set but only it hasn't released before.
         synchronized (this) {
-            do
+            while (!this.hasReleased)
                 this.wait();
-            while (!this.hasReleased);
         }
 
-        // Check whether the actual value has been unpacked, if not, unpack.
-        if (!this.isUnpacked)
-            this.unpackResult();
+        return this.outcome();
+    }
+
+    /**
+     * Get a future that is completed once this Result is released, such that the caller doesn't have to wait for the
+     * result. The future completes exceptionally if the result is an exception, or if it times out.
+     * <p/>
+     * Dependent stages that are not asynchronous run on the thread that releases this Result, which is the thread that
+     * handles the response or the thread that times out requests. Any work that may block must therefore be done in
+     * asynchronous stages.
+     *
+     * @return A future for the value of this Result. Every call returns the same future.
+     */
+    public CompletableFuture<Object> toCompletableFuture() {
+        CompletableFuture<Object> future;
+        boolean released;
+        boolean created = false;
+        synchronized (this) {
+            if (this.future == null) {
+                this.future = new CompletableFuture<>();
+                created = true;
+            }
+            future = this.future;
+            released = this.hasReleased;
+        }
+
+        if (created) {
+            // Cancelling the future cancels this Result
+            future.whenComplete(new BiConsumer<Object, Throwable>() {
+                @Override
+                public void accept(Object value, Throwable throwable) {
+                    if (throwable instanceof CancellationException)
+                        Result.this.cancel();
+                }
+            });
+        }
+        if (released)
+            this.complete(future);
+        return future;
+    }
+
+    /**
+     * Cancels this Result, if it hasn't been released yet. Threads that wait for it are released with a {@code
+     * CancelledException}, and the host is told to stop executing the request, such that it doesn't spend time on a
+     * result that no one waits for anymore. The host doesn't respond to a cancelled request.
+     *
+     * @return Whether this Result was cancelled. This is false if it was released already.
+     */
+    public boolean cancel() {
+        if (!this.releaseWithValue(new CancelledException(), false, true, true))
+            return false;
+
+        Runnable canceller;
+        synchronized (this) {
+            canceller = this.canceller;
+        }
+        if (canceller != null)
+            canceller.run();
+        return true;
+    }
+
+    /**
+     * Indicates whether this Result was cancelled.
+     *
+     * @return Whether {@code cancel} was called before this Result was released.
+     */
+    public synchronized boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Sets what must be done when this Result is cancelled.
+     *
+     * @param canceller What to do when this Result is cancelled.
+     */
+    synchronized void onCancel(Runnable canceller) {
+        this.canceller = canceller;
+    }
+
+    /**
+     * Completes the given future with the outcome of this Result, which must have been released.
+     */
+    private void complete(CompletableFuture<Object> future) {
+        try {
+            future.complete(this.outcome());
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Get the outcome of this Result, which must have been released.
+     *
+     * @return The value of this Result.
+     * @throws Exception The exception that this Result was released with.
+     */
+    private Object outcome() throws Exception {
+        Object result;
+        synchronized (this) {
+            // Check whether the actual value has been unpacked, if not, unpack.
+            if (!this.isUnpacked)
+                this.unpackResult();
+            result = this.result;
+        }
 
         // when you get here, result has been set. Check whether it is an exception.
         if (!this.success) {
-            Exception e = (Exception) this.result;
+            Exception e = (Exception) result;
             while(InvocationTargetException.class.isAssignableFrom(e.getClass())) {
                 e = (Exception) e.getCause();
             }
@@ -76,7 +196,7 @@ public class Result {
         }
 
         // If no exception has been thrown, just return it.
-        return this.result;
+        return result;
 
     }
 
@@ -100,6 +220,17 @@ public class Result {
         this.releaseWithValue(response, response.isSuccess(), false, false);
     }
 
+    /**
+     * Set the given response as the result, unless this Result has been released already. This is used when more than
+     * one request is answered by this Result, of which the first response wins.
+     *
+     * @param response The response to release this Result with.
+     * @return Whether this Result was released with the given response.
+     */
+    boolean offer(Response response) {
+        return this.releaseWithValue(response, response.isSuccess(), false, true);
+    }
+
     /**
      * Causes a timeout for this Result. While this behaves similar to {@code Result.set(e)} where e is a {@code
      * TimeoutException}, it doesn't throw an exception if the value was already set.
@@ -123,22 +254,33 @@ public class Result {
      *                   cases it will be set to false anyway.
      * @param safe       Indicates whether this method should be executed safely. {@code safe} indicates whether an
      *                   exception should <b>not</b> be thrown in the situation that {@code result} was already set.
+     * @return Whether this Result was released by this call.
      */
-    private synchronized void releaseWithValue(Object result, boolean success, boolean isUnpacked, boolean safe) {
-
-        // See whether it was already released, and if so, determine whether an exception is required.
-        if (this.hasReleased)
-            if (!safe)
-                throw new IllegalStateException(
-                        "The result has already been set. It can only be set once.");
-            else
-                return;
-
-        // Not released yet, release it with the given result as the obtained value.
-        this.success = success;
-        this.result = result;
-        this.isUnpacked = isUnpacked || !(result != null && result.getClass().equals(Response.class));
-        this.hasReleased = true;
-        this.notify();
+    private boolean releaseWithValue(Object result, boolean success, boolean isUnpacked, boolean safe) {
+
+        CompletableFuture<Object> future;
+        synchronized (this) {
+            // See whether it was already released, and if so, determine whether an exception is required.
+            if (this.hasReleased)
+                if (!safe)
+                    throw new IllegalStateException(
+                            "The result has already been set. It can only be set once.");
+                else
+                    return false;
+
+            // Not released yet, release it with the given result as the obtained value.
+            this.success = success;
+            this.result = result;
+            this.isUnpacked = isUnpacked || !(result instanceof Response);
+            this.hasReleased = true;
+            this.cancelled = result instanceof CancelledException;
+            this.notifyAll();
+            future = this.future;
+        }
+
+        // Complete the future outside of the lock, as it runs the dependent stages
+        if (future != null)
+            this.complete(future);
+        return true;
     }
 }
@@ -2,9 +2,16 @@ package com.yarmis.core;
 
 import com.yarmis.core.exceptions.InvalidRequestException;
 import com.yarmis.core.logging.Log;
+import com.yarmis.core.messages.Chunk;
+import com.yarmis.core.messages.Message;
 import com.yarmis.core.messages.Response;
 
-import java.util.*;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Maurice on 7-11-2015.
@@ -17,21 +24,27 @@ public class ResultHandler {
     public static final long TIMEOUT = 10000;
 
     /**
-     * The amount of milliseconds that a Timeout may occur earlier then intended. If the next timeout should occur
-     * within this amount of time, then the next timeout is performed, even if its time hasn't completely run out.
+     * The amount of milliseconds that a Timeout may occur later than intended.
      */
     private static final long TIME_OUT_OFFSET = 10;
 
     /**
-     * The scheduler that will timeout results when they are ought to be timed out, or when they are within the by
-     * {@code TIME_OUT_OFFSET} defined amount of milliseconds from timing out.
+     * The timing wheel on which the timeouts of all ResultHandlers, and other short timed tasks, are scheduled. Its
+     * ticks are {@code TIME_OUT_OFFSET} long, so timeouts occur at most that much later than intended.
      */
-    private Scheduler scheduler = new Scheduler();
+    static final TimingWheel wheel = new TimingWheel(TIME_OUT_OFFSET, 1024, "yarmis-timeouts");
 
     /**
-     * A Mapping of identifiers to the accompanying result objects.
+     * The requests that are awaiting their response, by their identifiers. Entries are removed as soon as the response
+     * arrived or the request timed out, so this only holds what is actually outstanding. Identifiers are short Strings,
+     * see {@code Communication.getIdentifier}, so hashing them costs little.
      */
-    private Map<String, Result> results = new HashMap<String, Result>();
+    private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<String, Pending>();
+
+    /**
+     * The response times of the most recent requests.
+     */
+    private final LatencyTracker latencies = new LatencyTracker(256);
 
     ResultHandler() {
 
@@ -52,14 +65,108 @@ public class ResultHandler {
      * Create a new result for the given identifier, with the default timeout value.
      *
      * @param identifier The identifier for which to create a Result
+     * @param timeout    The number of milliseconds after which the Result times out.
      * @return The created {@code Result}.
+     * @throws IllegalStateException If a Result for the given identifier is still outstanding.
      */
     public Result create(String identifier, long timeout) {
+        if (timeout <= 0)
+            throw new IllegalArgumentException("Timeout must be an amount of milliseconds greater than 0");
+
+        Pending pending = new Pending(identifier, new Result());
+        if (this.pending.putIfAbsent(identifier, pending) != null)
+            throw new IllegalStateException("Request " + identifier + " is outstanding already");
+        pending.schedule(timeout);
+        return pending.result;
+    }
+
+    /**
+     * Forgets the {@code Result} for the given identifier without releasing it, for instance because the request
+     * could not be sent.
+     *
+     * @param identifier The identifier of the {@code Result} to forget.
+     */
+    public void discard(String identifier) {
+        Pending pending = this.pending.remove(identifier);
+        if (pending != null)
+            pending.cancel();
+    }
+
+    /**
+     * Forgets the {@code Result} for the given identifier because it was cancelled. If the request was hedged, the
+     * hedge is abandoned as well.
+     *
+     * @param identifier The identifier of the cancelled request.
+     */
+    public void cancel(String identifier) {
+        Pending pending = this.pending.remove(identifier);
+        if (pending != null) {
+            pending.cancel();
+            this.abandon(pending.sibling);
+        }
+    }
+
+    /**
+     * Sends a second request for the {@code Result} of the given outstanding request. The {@code Result} is released
+     * with the first response to either request, after which the other request is abandoned.
+     *
+     * @param original        The identifier of the outstanding request.
+     * @param abandonOriginal What to do with the original request if the hedge is answered first.
+     * @param hedge           The identifier of the second request.
+     * @param abandonHedge    What to do with the second request if the original is answered first.
+     * @param timeout         The number of milliseconds after which the second request times out.
+     * @return Whether the second request must be sent. This is false if the original request isn't outstanding
+     * anymore.
+     */
+    boolean hedge(String original, Runnable abandonOriginal, String hedge, Runnable abandonHedge, long timeout) {
+        Pending first = this.pending.get(original);
+        if (first == null)
+            return false;
+
+        Pending second = new Pending(hedge, first.result);
+        second.sibling = first;
+        second.abandon = abandonHedge;
+        first.abandon = abandonOriginal;
+        first.sibling = second;
+        if (this.pending.putIfAbsent(hedge, second) != null)
+            throw new IllegalStateException("Request " + hedge + " is outstanding already");
+        second.schedule(timeout);
+
+        // The original may have been answered in the meantime
+        if (!this.pending.containsKey(original)) {
+            this.discard(hedge);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Indicates whether the given request is still awaiting its response.
+     *
+     * @param identifier The identifier of the request.
+     * @return Whether the request is outstanding.
+     */
+    boolean isPending(String identifier) {
+        return this.pending.containsKey(identifier);
+    }
+
+    /**
+     * Determines the given percentile of the response times of recent requests.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The response time in milliseconds, or -1 if too few requests have been answered yet.
+     */
+    long latency(int percentile) {
+        return this.latencies.percentile(percentile);
+    }
 
-        Result result = new Result();
-        this.results.put(identifier, result);
-        this.scheduler.schedule(timeout, identifier);
-        return result;
+    /**
+     * Get the number of requests that are awaiting their response.
+     *
+     * @return The number of outstanding requests.
+     */
+    public int pending() {
+        return this.pending.size();
     }
 
     /**
@@ -71,171 +178,235 @@ public class ResultHandler {
      */
     public void release(Response response) throws InvalidRequestException {
 
-        if (this.results.containsKey(response.getIdentifier())) {
-            this.scheduler.unschedule(response.getIdentifier());
-            this.results.get(response.getIdentifier()).set(response);
-        } else
+        Pending pending = this.pending.remove(response.getIdentifier());
+        if (pending == null)
             throw new InvalidRequestException("Request " + response.getIdentifier()
                     + " is not known as an outstanding request. This can be caused by a timeout.");
+
+        pending.cancel();
+        this.latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pending.created));
+
+        Pending sibling = pending.sibling;
+        if (sibling == null) {
+            pending.result.set(response);
+        } else {
+            // The first response of a hedged request wins
+            this.abandon(sibling);
+            pending.result.offer(response);
+        }
+    }
+
+    /**
+     * Forgets the given request, if it is still outstanding, and lets its host know that it is no longer needed.
+     */
+    private void abandon(Pending pending) {
+        if (pending != null && this.pending.remove(pending.identifier, pending)) {
+            pending.cancel();
+            if (pending.abandon != null)
+                pending.abandon.run();
+        }
+    }
+
+    /**
+     * Adds the given {@code Chunk} to the value that it is part of. If it is the last {@code Chunk} of that value, this
+     * releases the relevant {@code Result} with the reassembled value. Every {@code Chunk} restarts the timeout of the
+     * {@code Result}, such that large values can take longer than the timeout in total.
+     * <p/>
+     * A {@code Chunk} that arrives out of order fails the {@code Result} of its request, unless a hedge of that request
+     * may still deliver the value. Other requests over the same connection are not affected.
+     *
+     * @param chunk A {@code Chunk} of a value with which a {@code Result} must be released.
+     * @throws InvalidRequestException If the chunk was for a request that was not expected.
+     */
+    public void receive(Chunk chunk) throws InvalidRequestException {
+        Pending pending = this.pending.get(chunk.getIdentifier());
+        if (pending == null)
+            throw new InvalidRequestException("Request " + chunk.getIdentifier()
+                    + " is not known as an outstanding request. This can be caused by a timeout.");
+
+        Object value;
+        try {
+            value = pending.add(chunk);
+        } catch (InvalidRequestException e) {
+            this.fail(pending, e);
+            return;
+        }
+
+        if (chunk.isLast())
+            this.release(Message.makeResponse(chunk.getIdentifier(), value, true));
+        else
+            pending.reschedule();
+    }
+
+    /**
+     * Forgets the given request, if it is still outstanding, and releases its {@code Result} with the given failure.
+     * If the request was hedged and the hedge is still outstanding, the {@code Result} is left to the hedge.
+     */
+    private void fail(Pending pending, Exception failure) {
+        if (!this.pending.remove(pending.identifier, pending))
+            return;
+
+        pending.cancel();
+        Pending sibling = pending.sibling;
+        if (sibling == null || !this.pending.containsKey(sibling.identifier))
+            pending.result.offer(Message.makeResponse(pending.identifier, failure, false));
     }
 
-    private class Scheduler {
+    /**
+     * A request that is awaiting its response: its {@code Result}, its timeout and the value that is being received
+     * for it in chunks, if any.
+     */
+    private final class Pending implements Runnable {
+
+        private final String identifier;
+
+        private final Result result;
+
         /**
-         * A {@code TreeMap} containing for every moment in time when a timeout is to occur the list of identifiers of
-         * {@code Results} that must then be timed out.
+         * The moment at which the request was sent, in nanoseconds.
          */
-        private TreeMap<Long, LinkedList<String>> ordered_timeouts;
+        private final long created = System.nanoTime();
 
         /**
-         * A mapping of identifiers of {@code Result}s to the moment that it is to timeout.
+         * The other request for the same {@code Result}, if the request was hedged.
          */
-        private Map<String, Long> timeouts;
+        private volatile Pending sibling;
 
         /**
-         * The {@code Timer} that will perform the timed task of timing out all required {@code Result}s.
+         * What to do with the request if it lost the race against its sibling.
          */
-        private Timer timer;
+        private volatile Runnable abandon;
 
         /**
-         * The time when the next timeout will occur, or null if there is no timeout scheduled.
+         * The timeout of the request, which is replaced whenever a chunk arrives.
          */
-        private Long next;
-
-
-        private Scheduler() {
-            this.ordered_timeouts = new TreeMap<Long, LinkedList<String>>();
-            this.timeouts = new HashMap<String, Long>();
-            this.timer = new Timer();
-            this.next = null;
-
-        }
+        private TimingWheel.Timeout timeout;
 
         /**
-         * Schedule a timeout for the given identifier. Scheduling a timeout is synchronized with {@code unschedule} and
-         * the actual timing out of identifiers.
-         *
-         * @param delay      The timeout of time until the timeout should occur. This is expressed in milliseconds.
-         * @param identifier The identifier for which to timeout after the given amount of milliseconds,
+         * The number of milliseconds after which the request times out, counted again from every chunk.
          */
-        private void schedule(long delay, String identifier) {
-            synchronized (this) {
-                if (delay <= 0)
-                    throw new IllegalArgumentException("Delay must be an amount of milliseconds greater than 0");
-
-                if (this.timeouts.containsKey(identifier))
-                    return;
+        private long delay;
 
-                long time = System.currentTimeMillis() + delay;
-
-                // indicate that the identifier will be done at given time
-                this.timeouts.put(identifier, time);
+        /**
+         * The value that is being received in chunks, or null if no chunk arrived yet.
+         */
+        private Assembly assembly;
 
-                // add the given identifier to the list of identifiers waiting for that moment.
-                LinkedList<String> identifiers = this.ordered_timeouts.get(time);
+        private Pending(String identifier, Result result) {
+            this.identifier = identifier;
+            this.result = result;
+        }
 
-                // If nothing was waiting yet, create a new list
-                if (identifiers == null) {
-                    identifiers = new LinkedList<String>();
-                    this.ordered_timeouts.put(time, identifiers);
-                }
+        private synchronized void schedule(long delay) {
+            this.delay = delay;
+            this.timeout = ResultHandler.wheel.schedule(delay, this);
+        }
 
-                // If the identifier was not yet contained, add it
-                if (!identifiers.contains(identifier))
-                    identifiers.add(identifier);
+        /**
+         * Restarts the timeout with the delay it was scheduled with, unless the request timed out already.
+         */
+        private synchronized void reschedule() {
+            if (this.timeout.cancel())
+                this.timeout = ResultHandler.wheel.schedule(this.delay, this);
+        }
 
-                // update the timer to make sure that the timer will fire for the earliest timeout
-                updateTimer();
-            }
+        private synchronized void cancel() {
+            this.timeout.cancel();
         }
 
         /**
-         * Unschedule the given identifier. The timeout will then no longer occur for the identifier at the time that
-         * was set for that identifier. Unscheduling a timeout is synchronized with {@code schedule} and the actual
-         * timing out of identifiers.
+         * Adds the given chunk to the value that is being received.
          *
-         * @param identifier The identifier for which to unschedule the timeout.
+         * @return The value that has been received so far.
+         * @throws InvalidRequestException If the chunk does not follow the chunk that was added before it.
          */
-        private void unschedule(String identifier) {
+        private Object add(Chunk chunk) {
+            Assembly assembly;
             synchronized (this) {
-                // Get the time when the identifier would fire
-                Long time = timeouts.remove(identifier);
-
-                // Not registered
-                if (time == null)
-                    return;
-
-                // Get all identifiers firing at that time.
-                LinkedList<String> identifiers = this.ordered_timeouts.get(time);
-
-                // Remove it, this should always be the case.
-                if (identifiers != null)
-                    identifiers.remove(identifier);
-
-                // If no identifiers are left waiting for that time, remove it
-                if (identifiers.size() == 0)
-                    this.ordered_timeouts.remove(time);
-
-                // Make sure that the timer won't fire for a non-existing identifier
-                updateTimer();
+                if (this.assembly == null)
+                    this.assembly = new Assembly(chunk);
+                assembly = this.assembly;
             }
+            assembly.add(chunk);
+            return chunk.isLast() ? assembly.value() : null;
         }
 
         /**
-         * Updates the timer to run {@code timeoutTask} for the first upcoming timeout. This handles times that are in
-         * the past, as to make sure that all timeouts will be send out eventually.
+         * Times out the request, if it is still outstanding.
          */
-        private synchronized void updateTimer() {
-            // Get the first timeout or null if there is none
-            Long first = ordered_timeouts.size() > 0 ? ordered_timeouts.firstKey() : null;
-
-            // If there is a timeout scheduled, but it is known as the next, nothing needs to be done
-            if (first != null && first.equals(next))
-                return;
-
-            // Next is no longer the actual next timer. Need to change timer, but only if it was set
-            if (this.next != null) {
-                timer.cancel();
-                timer = null;
+        @Override
+        public void run() {
+            if (ResultHandler.this.pending.remove(this.identifier, this)) {
+                Log.e("ResultHandler", "Timeout " + this.identifier + " @ " + System.currentTimeMillis());
+                // The hedge of a request that timed out is not waited for anymore either
+                Pending sibling = this.sibling;
+                if (sibling != null && ResultHandler.this.pending.remove(sibling.identifier, sibling))
+                    sibling.cancel();
+                this.result.timeout();
             }
+        }
+    }
 
-            // First contains the next timeout
-            this.next = first;
+    /**
+     * A value that is being reassembled from its {@code Chunk}s. Every part is added to the value as soon as it is
+     * received, such that only the value itself is kept in memory.
+     */
+    private static final class Assembly {
 
-            // If there are timeouts to happen, schedule (if required, schedule it as now).
-            if (next != null) {
-                timer = new Timer();
-                timer.schedule(new TimeoutTask(), new Date(first < System.currentTimeMillis() ? System.currentTimeMillis() + TIME_OUT_OFFSET : first));
+        /**
+         * The largest size that is reserved up front, such that a bogus total can not exhaust the memory.
+         */
+        private static final int MAX_RESERVED = 1 << 20;
+
+        private final String kind;
+        private final int total;
+        private int next = 0;
+
+        private StringBuilder string;
+        private ByteArrayOutputStream bytes;
+        private List<Object> list;
+
+        private Assembly(Chunk first) {
+            this.kind = first.getKind();
+            this.total = first.getTotal();
+            int reserved = Math.max(0, Math.min(this.total, MAX_RESERVED));
+            switch (this.kind) {
+                case Chunk.STRING:
+                    this.string = new StringBuilder(reserved);
+                    break;
+                case Chunk.BYTES:
+                    this.bytes = new ByteArrayOutputStream(reserved);
+                    break;
+                default:
+                    this.list = new ArrayList<Object>(reserved);
             }
         }
 
-        /**
-         * The TimerTask that is executed to cause timeouts for all identifiers that were scheduled to timeout at that
-         * point. This removes the identifiers from the ordering of timeouts. All timeouts that will occur within {@code
-         * TIME_OUT_OFFSET} milliseconds are also timed out. After all required identifiers are timed out, the timer
-         * will be updated to be able to handle the next entry.
-         * <p/>
-         * Obtaining the next list of identifiers to fire is synchronized with {@code schedule} and {@code unschedule}.
-         */
-        private class TimeoutTask extends TimerTask {
-
-            @Override
-            public void run() {
-
-                Map.Entry<Long, LinkedList<String>> entry;
-                do {
-                    // obtain everything to timeout
-                    synchronized (Scheduler.this) {
-                        entry = Scheduler.this.ordered_timeouts.pollFirstEntry();
-                    }
-
-                    // timeout
-                    for (String identifier : entry.getValue()) {
-                        Log.e("ResultHandler", "Timeout " + identifier + " @ " + System.currentTimeMillis());
-                        ResultHandler.this.results.get(identifier).timeout();
-                    }
-                }
-                while (Scheduler.this.ordered_timeouts.size() > 0 && entry.getKey() + TIME_OUT_OFFSET < System.currentTimeMillis());
-                Scheduler.this.updateTimer();
+        private synchronized void add(Chunk chunk) throws InvalidRequestException {
+            if (chunk.getSequence() != this.next++ || !chunk.getKind().equals(this.kind))
+                throw new InvalidRequestException("Received " + chunk + " out of order");
+
+            switch (this.kind) {
+                case Chunk.STRING:
+                    this.string.append((String) chunk.getPart());
+                    break;
+                case Chunk.BYTES:
+                    byte[] part = (byte[]) chunk.getPart();
+                    this.bytes.write(part, 0, part.length);
+                    break;
+                default:
+                    Collections.addAll(this.list, (Object[]) chunk.getPart());
+            }
+        }
+
+        private synchronized Object value() {
+            switch (this.kind) {
+                case Chunk.STRING:
+                    return this.string.toString();
+                case Chunk.BYTES:
+                    return this.bytes.toByteArray();
+                default:
+                    return this.list;
             }
         }
     }
@@ -22,6 +22,58 @@ public class Settings {
     @Setting
     public String PERMISSION_CONFIG_FILE = "permissions.config";
 
+    /**
+     * The number of stack frames that is sent along with an exception. 0 omits stack traces, a negative value sends
+     * them in full.
+     */
+    @Setting
+    public int EXCEPTION_STACKTRACE_DEPTH = -1;
+
+    /**
+     * The number of causes that is sent along with an exception. A negative value sends all causes.
+     */
+    @Setting
+    public int EXCEPTION_CAUSE_DEPTH = 8;
+
+    /**
+     * Whether objects and Strings that occur more than once in a value are sent once and referred to afterwards.
+     */
+    @Setting
+    public boolean SHARE_REFERENCES = false;
+
+    /**
+     * The number of characters or bytes per chunk in which large returned Strings and byte arrays are sent. 0 sends
+     * them as a whole.
+     */
+    @Setting
+    public int CHUNK_SIZE = 65536;
+
+    /**
+     * The number of elements per chunk in which large returned Lists are sent. 0 sends them as a whole.
+     */
+    @Setting
+    public int CHUNK_ELEMENTS = 1024;
+
+    /**
+     * The largest frame, in bytes, that is accepted from another device. A device that sends a larger frame is
+     * disconnected. Values that are not sent in chunks must fit in a single frame.
+     */
+    @Setting
+    public int MAX_FRAME_SIZE = 16 << 20;
+
+    /**
+     * Whether responses, argument arrays and encoding buffers are reused instead of being allocated for every call.
+     */
+    @Setting
+    public boolean RECYCLE_MESSAGES = false;
+
+    /**
+     * The percentile of recent response times after which a request for an {@code Idempotent} method is sent to a
+     * replica host as well, if one is connected. 0 disables this.
+     */
+    @Setting
+    public int HEDGE_PERCENTILE = 0;
+
 
     private static final String DEFAULT_SOURCE = "settings.json";
 
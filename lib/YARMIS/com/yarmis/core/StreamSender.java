@@ -0,0 +1,148 @@
+package com.yarmis.core;
+
+import com.yarmis.core.logging.Log;
+import com.yarmis.core.messages.Message;
+import com.yarmis.core.messages.StreamSignal;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Subscribes on a host to the publisher that a method returned, and sends its items to the requester as they are
+ * published. Items are only requested from the publisher as far as the requester demanded them, so the host holds no
+ * more items than the requester asked for.
+ */
+final class StreamSender implements Flow.Subscriber<Object> {
+
+    private static final String TAG = "StreamSender";
+
+    private final CommunicationManager manager;
+
+    private final Connection connection;
+
+    private final String identifier;
+
+    private Flow.Subscription subscription;
+
+    /**
+     * The demand that arrived before the publisher called {@code onSubscribe}.
+     */
+    private long demand = 0;
+
+    private boolean cancelled = false;
+
+    /**
+     * Creates a new StreamSender, and registers it with the given connection such that it receives the signals of the
+     * requester.
+     *
+     * @param manager    The CommunicationManager through which items are sent.
+     * @param connection The connection to the requester.
+     * @param identifier The identifier of the request that opened the stream.
+     */
+    StreamSender(CommunicationManager manager, Connection connection, String identifier) {
+        this.manager = manager;
+        this.connection = connection;
+        this.identifier = identifier;
+    }
+
+    /**
+     * Passes the given number of demanded items on to the publisher.
+     *
+     * @param count The number of items that the requester demanded.
+     */
+    void demand(long count) {
+        Flow.Subscription subscription;
+        synchronized (this) {
+            if (this.cancelled)
+                return;
+            if (this.subscription == null) {
+                this.demand = StreamSender.add(this.demand, count);
+                return;
+            }
+            subscription = this.subscription;
+        }
+        subscription.request(count);
+    }
+
+    /**
+     * Stops the stream, as the requester wants no more items or can't be reached anymore.
+     */
+    void cancel() {
+        Flow.Subscription subscription;
+        synchronized (this) {
+            if (this.cancelled)
+                return;
+            this.cancelled = true;
+            subscription = this.subscription;
+        }
+        this.connection.getStreams().remove(this.identifier, this);
+        if (subscription != null)
+            subscription.cancel();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        long demand;
+        boolean cancelled;
+        synchronized (this) {
+            if (this.subscription != null) {
+                // Only a single subscription is allowed
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+            demand = this.demand;
+            cancelled = this.cancelled;
+            this.demand = 0;
+        }
+
+        if (cancelled)
+            subscription.cancel();
+        else if (demand > 0)
+            subscription.request(demand);
+    }
+
+    @Override
+    public void onNext(Object item) {
+        if (!this.send(StreamSignal.ITEM, item))
+            this.cancel();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        this.connection.getStreams().remove(this.identifier, this);
+        this.send(StreamSignal.ERROR, throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        this.connection.getStreams().remove(this.identifier, this);
+        this.send(StreamSignal.COMPLETE, null);
+    }
+
+    /**
+     * Sends a signal to the requester, unless the stream was cancelled.
+     *
+     * @return Whether the requester could be reached.
+     */
+    private boolean send(String kind, Object value) {
+        synchronized (this) {
+            if (this.cancelled)
+                return true;
+        }
+        try {
+            this.manager.sendMessage(Message.makeStreamSignal(this.identifier, kind, 0, value), this.connection);
+            return true;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Could not send " + kind + " of stream " + this.identifier + ": " + e);
+            return false;
+        }
+    }
+
+    /**
+     * Adds the given demands, where a demand of {@code Long.MAX_VALUE} or more means that there is no bound.
+     */
+    static long add(long demand, long count) {
+        long sum = demand + count;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+}
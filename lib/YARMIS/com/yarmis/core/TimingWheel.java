@@ -0,0 +1,286 @@
+package com.yarmis.core;
+
+import com.yarmis.core.logging.Log;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed timing wheel that runs tasks after a delay. Time is divided into ticks, and every tick has a bucket on a
+ * wheel in which the tasks that expire during that tick are kept. Tasks that expire more than one revolution ahead
+ * are kept in the same bucket, and wait for the number of revolutions that they still have to go.
+ * <p/>
+ * Scheduling and cancelling a task take constant time, and neither takes a lock: both only add the task to a queue,
+ * which the thread of the wheel processes at the next tick. All tasks are run on that single thread, which is started
+ * when the first task is scheduled and then lives as long as the wheel. Tasks therefore must be short. Every task
+ * runs within one tick after its delay, but never before it.
+ */
+final class TimingWheel {
+
+    /**
+     * The length of a tick in nanoseconds.
+     */
+    private final long tick;
+
+    /**
+     * The buckets of the wheel. The number of buckets is a power of two.
+     */
+    private final Bucket[] buckets;
+
+    private final int mask;
+
+    /**
+     * The tasks that have been scheduled but not yet been put in a bucket.
+     */
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The tasks that have been cancelled but not yet been removed from their bucket.
+     */
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+    private final Thread worker;
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    private final CountDownLatch startup = new CountDownLatch(1);
+
+    /**
+     * The value of {@code System.nanoTime} at which the worker started, to which all deadlines are relative.
+     */
+    private volatile long startTime;
+
+    /**
+     * Creates a new TimingWheel.
+     *
+     * @param tick    The length of a tick in milliseconds.
+     * @param buckets The number of buckets, which is rounded up to a power of two.
+     * @param name    The name of the thread of the wheel.
+     */
+    TimingWheel(long tick, int buckets, String name) {
+        if (tick <= 0 || buckets <= 0)
+            throw new IllegalArgumentException("The tick and the number of buckets must be positive");
+
+        int size = Integer.highestOneBit(buckets);
+        if (size < buckets)
+            size <<= 1;
+        this.tick = TimeUnit.MILLISECONDS.toNanos(tick);
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; ++i)
+            this.buckets[i] = new Bucket();
+        this.mask = size - 1;
+
+        this.worker = new Thread(new Worker(), name);
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Schedules the given task to run once after the given delay.
+     *
+     * @param delay The delay in milliseconds.
+     * @param task  The task to run.
+     * @return The handle through which the task can be cancelled.
+     */
+    Timeout schedule(long delay, Runnable task) {
+        this.start();
+        long deadline = System.nanoTime() - this.startTime + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delay));
+        Timeout timeout = new Timeout(task, deadline);
+        this.scheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Starts the worker if it hasn't been started yet, and waits until it has recorded its start time.
+     */
+    private void start() {
+        if (this.started.compareAndSet(false, true))
+            this.worker.start();
+
+        boolean interrupted = false;
+        while (this.startTime == 0) {
+            try {
+                this.startup.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * A task that has been scheduled on the wheel.
+     */
+    final class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+
+        /**
+         * The moment at which this task expires, in nanoseconds relative to {@code startTime}.
+         */
+        private final long deadline;
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        /**
+         * The number of revolutions of the wheel that this task still has to wait. Only used by the worker.
+         */
+        private long rounds;
+
+        /**
+         * The bucket that this task is in, and its neighbours in that bucket. Only used by the worker.
+         */
+        private Bucket bucket;
+        private Timeout previous, next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels this task, such that it won't run.
+         *
+         * @return Whether the task was cancelled. This is false if it already ran or was cancelled already.
+         */
+        boolean cancel() {
+            if (!this.state.compareAndSet(PENDING, CANCELLED))
+                return false;
+            TimingWheel.this.cancelled.add(this);
+            return true;
+        }
+
+        boolean isCancelled() {
+            return this.state.get() == CANCELLED;
+        }
+
+        boolean isExpired() {
+            return this.state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!this.state.compareAndSet(PENDING, EXPIRED))
+                return;
+            try {
+                this.task.run();
+            } catch (Throwable t) {
+                Log.e("TimingWheel", "A timed task failed: " + t);
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of the tasks that expire during a tick, or that many revolutions later.
+     */
+    private static final class Bucket {
+
+        private Timeout head, tail;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.previous = this.tail;
+            if (this.tail == null)
+                this.head = timeout;
+            else
+                this.tail.next = timeout;
+            this.tail = timeout;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.previous == null)
+                this.head = timeout.next;
+            else
+                timeout.previous.next = timeout.next;
+            if (timeout.next == null)
+                this.tail = timeout.previous;
+            else
+                timeout.next.previous = timeout.previous;
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+
+        /**
+         * Runs all tasks in this bucket that expire during the current revolution.
+         */
+        private void expire() {
+            Timeout timeout = this.head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.rounds <= 0) {
+                    this.remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled())
+                    this.remove(timeout);
+                else
+                    --timeout.rounds;
+                timeout = next;
+            }
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        /**
+         * The number of ticks that have passed.
+         */
+        private long ticks = 0;
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            // 0 indicates that the worker hasn't started yet
+            TimingWheel.this.startTime = now == 0 ? 1 : now;
+            TimingWheel.this.startup.countDown();
+
+            while (true) {
+                this.awaitTick();
+                this.removeCancelled();
+                this.transferScheduled();
+                TimingWheel.this.buckets[(int) (this.ticks & TimingWheel.this.mask)].expire();
+                ++this.ticks;
+            }
+        }
+
+        /**
+         * Waits until the current tick has ended.
+         */
+        private void awaitTick() {
+            long end = TimingWheel.this.tick * (this.ticks + 1);
+            long remaining;
+            while ((remaining = end - (System.nanoTime() - TimingWheel.this.startTime)) > 0)
+                LockSupport.parkNanos(TimingWheel.this, remaining);
+        }
+
+        private void removeCancelled() {
+            Timeout timeout;
+            while ((timeout = TimingWheel.this.cancelled.poll()) != null)
+                if (timeout.bucket != null)
+                    timeout.bucket.remove(timeout);
+        }
+
+        /**
+         * Puts all newly scheduled tasks in the bucket of the tick during which they expire. Tasks whose deadline has
+         * passed already are put in the bucket of the current tick.
+         */
+        private void transferScheduled() {
+            Timeout timeout;
+            while ((timeout = TimingWheel.this.scheduled.poll()) != null) {
+                if (timeout.isCancelled())
+                    continue;
+                long expiresAt = timeout.deadline / TimingWheel.this.tick;
+                timeout.rounds = Math.max(0, (expiresAt - this.ticks) / TimingWheel.this.buckets.length);
+                TimingWheel.this.buckets[(int) (Math.max(expiresAt, this.ticks) & TimingWheel.this.mask)].add(timeout);
+            }
+        }
+    }
+}
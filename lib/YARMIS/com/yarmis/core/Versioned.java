@@ -0,0 +1,76 @@
+package com.yarmis.core;
+
+import com.yarmis.core.annotations.Cacheable;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Flow;
+
+/**
+ * The answer to a call of a method that is annotated with {@code @Cacheable}. It holds the result together with the
+ * version of the module that it was computed at, or only states that the result that the requester holds is still up
+ * to date.
+ */
+public final class Versioned {
+
+    /**
+     * The version of the module at which the result was computed.
+     */
+    private final long version;
+
+    /**
+     * Whether the result differs from the one the requester holds, and is therefore sent along.
+     */
+    private final boolean modified;
+
+    private final Object value;
+
+    public Versioned(long version, boolean modified, Object value) {
+        this.version = version;
+        this.modified = modified;
+        this.value = value;
+    }
+
+    /**
+     * Creates a Versioned that states that the result that the requester holds is up to date.
+     */
+    static Versioned unmodified(long version) {
+        return new Versioned(version, false, null);
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    public boolean isModified() {
+        return this.modified;
+    }
+
+    /**
+     * Get the result.
+     *
+     * @return The result, or null if the result was not modified.
+     */
+    public Object getValue() {
+        return this.value;
+    }
+
+    /**
+     * Checks whether the result of the given method may be cached by the requester. Methods that are answered with a
+     * {@code Delta}, asynchronous methods, methods that stream their result and void methods are never cached.
+     *
+     * @param method The method to check.
+     * @return Whether the method is annotated with {@code @Cacheable} and returns a value that can be cached.
+     */
+    static boolean isCacheable(Method method) {
+        return method.getAnnotation(Cacheable.class) != null
+                && !Delta.isDelta(method)
+                && !ModuleInvocationHandler.isAsynchronous(method)
+                && method.getReturnType() != Flow.Publisher.class
+                && method.getReturnType() != void.class;
+    }
+
+    @Override
+    public String toString() {
+        return "Versioned " + this.version + (this.modified ? "" : " (not modified)");
+    }
+}
@@ -0,0 +1,24 @@
+package com.yarmis.core.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a remote method whose result may be cached by the requester, such as a method that only reads. A cached result
+ * is used without asking the host for as long as the given time to live. After that, the requester asks the host
+ * whether it changed, and the host only sends the result again if it did. The host also tells its requesters right
+ * away when the results of a module change, through {@code Module.invalidate}.
+ * <p/>
+ * The cached results of a module are all invalidated together, so a method should only be cacheable if its module
+ * invalidates itself whenever its result may change.
+ */
+@Documented
+@Inherited
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cacheable {
+
+    /**
+     * @return The number of milliseconds for which a cached result is used without asking the host.
+     */
+    long value();
+}
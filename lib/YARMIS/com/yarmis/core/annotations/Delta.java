@@ -0,0 +1,19 @@
+package com.yarmis.core.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a remote method that returns a {@code Collection} as one that is answered with deltas. The requester sends
+ * along the version of the result that it already holds, and the host only sends how the new result differs from
+ * that version. Methods that are polled repeatedly then cost almost nothing while their result does not change.
+ * <p/>
+ * Elements are compared by their encoding. Elements that are still present are restored as the instances that the
+ * requester already held.
+ */
+@Documented
+@Inherited
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Delta {
+
+}
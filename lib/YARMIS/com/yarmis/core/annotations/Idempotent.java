@@ -0,0 +1,15 @@
+package com.yarmis.core.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a remote method as idempotent: calling it more than once has the same effect as calling it once, such as a
+ * method that only reads. Such a method may be sent to a replica host as well when the host is slow to respond, after
+ * which the first response is used. See {@code Settings.HEDGE_PERCENTILE}.
+ */
+@Documented
+@Inherited
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+}
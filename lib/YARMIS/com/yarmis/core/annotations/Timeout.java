@@ -0,0 +1,20 @@
+package com.yarmis.core.annotations;
+
+import java.lang.annotation.*;
+
+/**
+ * Sets the number of milliseconds that the caller of a remote method waits for its result, instead of the default
+ * timeout. The host is told about the timeout as well, such that it doesn't execute the method anymore once the caller
+ * has given up. A single call can still override the timeout through {@code Deadline.withTimeout}.
+ */
+@Documented
+@Inherited
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Timeout {
+
+    /**
+     * @return The number of milliseconds that the caller waits for the result.
+     */
+    long value();
+}
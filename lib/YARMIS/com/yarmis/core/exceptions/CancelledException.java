@@ -0,0 +1,18 @@
+package com.yarmis.core.exceptions;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Thrown by a {@code Result} of a request that was cancelled by the requester.
+ */
+public class CancelledException extends CancellationException {
+
+    /**
+     * Generated serial version universal identifier.
+     */
+    private static final long serialVersionUID = 4620398717294816932L;
+
+    public CancelledException() {
+        super("The request was cancelled");
+    }
+}
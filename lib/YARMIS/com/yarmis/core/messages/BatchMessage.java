@@ -0,0 +1,82 @@
+package com.yarmis.core.messages;
+
+import com.yarmis.core.Communication;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A number of Requests, or the Responses to them, that are sent as a single message. The host executes the Requests
+ * of a batch in parallel, and answers with a single batch that holds all their Responses once all of them have been
+ * executed. Requests that were skipped because their deadline had passed have no Response in it.
+ */
+public class BatchMessage extends Message {
+
+    /**
+     * The Requests or the Responses in this batch.
+     */
+    private final List<Message> messages;
+
+    protected BatchMessage(List<? extends Message> messages) {
+        super();
+        this.messages = Collections.unmodifiableList(new ArrayList<Message>(messages));
+    }
+
+    protected BatchMessage(JSONObject obj, Communication communication) throws JSONException {
+        super(obj, communication);
+        JSONArray messages = obj.getJSONArray(Communication.Batch.MESSAGES);
+        List<Message> decoded = new ArrayList<>(messages.length());
+        for (int i = 0; i < messages.length(); ++i) {
+            Message message = Message.from(messages.getJSONObject(i), communication);
+            if (!(message instanceof Request) && !(message instanceof Response))
+                throw new JSONException("A batch can only hold requests and responses");
+            decoded.add(message);
+        }
+        this.messages = Collections.unmodifiableList(decoded);
+    }
+
+    /**
+     * Get the Requests or the Responses in this batch.
+     *
+     * @return The messages in this batch, in the order in which they were added.
+     */
+    public List<Message> getMessages() {
+        return this.messages;
+    }
+
+    @Override
+    public JSONObject translate(Communication communication) throws JSONException {
+        JSONArray messages = new JSONArray();
+        for (Message message : this.messages)
+            messages.put(message.translate(communication));
+
+        return super.translate(communication)
+                .put(Communication.TYPE, Communication.BATCH)
+                .put(Communication.Batch.MESSAGES, messages);
+    }
+
+    /**
+     * Encodes this batch, letting every message in it encode itself.
+     */
+    @Override
+    public String encode(Communication communication) throws JSONException {
+        StringBuilder result = new StringBuilder(64 * (this.messages.size() + 1))
+                .append('{').append(JSONObject.quote(Communication.TYPE)).append(':').append(JSONObject.quote(Communication.BATCH))
+                .append(',').append(JSONObject.quote(Communication.Batch.MESSAGES)).append(":[");
+        for (int i = 0; i < this.messages.size(); ++i) {
+            if (i > 0)
+                result.append(',');
+            result.append(this.messages.get(i).encode(communication));
+        }
+        return result.append("]}").toString();
+    }
+
+    @Override
+    public String toString() {
+        return "Batch of " + this.messages.size() + " messages";
+    }
+}
@@ -0,0 +1,292 @@
+package com.yarmis.core.messages;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary encoding for the most common messages: Requests whose arguments are all primitives or Strings, and successful
+ * Responses whose value is a primitive, a String or null. Such messages do not need the generic JSON encoding, and can
+ * be read on the receiving side through {@code RequestView} and {@code ResponseView} without materializing them.
+ * <p/>
+ * All other messages are sent as JSON. {@code encode} returns {@code null} for those.
+ * <p/>
+ * A Request is laid out as: kind, identifier, module, method identifier (int), fingerprint (int), timeout (long),
+ * number of arguments (byte) and then every argument as a type tag followed by its value. A Response is laid out as: kind, identifier,
+ * success (byte) and its value as a type tag followed by the value. Strings are written as their length in bytes (int)
+ * followed by their UTF-8 encoding. The type tags are the same as those used by {@code Communication}.
+ */
+public final class BinaryCodec {
+
+    static final byte REQUEST = 1;
+    static final byte RESPONSE = 2;
+
+    static final byte TYPE_NULL = 'n';
+    static final byte TYPE_BOOLEAN = 'b';
+    static final byte TYPE_CHARACTER = 'c';
+    static final byte TYPE_DOUBLE = 'd';
+    static final byte TYPE_FLOAT = 'f';
+    static final byte TYPE_INTEGER = 'i';
+    static final byte TYPE_LONG = 'l';
+    static final byte TYPE_STRING = 's';
+
+    /**
+     * The maximum number of arguments that a binary Request can hold.
+     */
+    private static final int MAX_ARGUMENTS = 255;
+
+    private BinaryCodec() {
+    }
+
+    /**
+     * Encodes the given message, if it can be encoded in binary.
+     *
+     * @param message The message to encode.
+     * @return The binary encoding of the given message, or {@code null} if it must be sent as JSON instead.
+     */
+    public static byte[] encode(Message message) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        return BinaryCodec.encode(message, bytes) ? bytes.toByteArray() : null;
+    }
+
+    /**
+     * Encodes the given message into the given buffer, if it can be encoded in binary form. This allows the caller to
+     * reuse the buffer for every message it sends.
+     *
+     * @param message The message to encode.
+     * @param into    The buffer to append the encoded message to. Nothing is appended if the message can't be encoded
+     *                in binary form.
+     * @return Whether the message was encoded.
+     */
+    public static boolean encode(Message message, ByteArrayOutputStream into) {
+        try {
+            if (message instanceof Request)
+                return BinaryCodec.encode((Request) message, into);
+            else if (message instanceof Response)
+                return BinaryCodec.encode((Response) message, into);
+            else
+                return false;
+        } catch (IOException e) {
+            // Writing to memory doesn't fail
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean encode(Request request, ByteArrayOutputStream bytes) throws IOException {
+        Object[] arguments = request.getArguments();
+        Class<?>[] types = request.getArgumentTypes();
+        if (arguments.length > MAX_ARGUMENTS || request.getKnownVersion() != com.yarmis.core.Delta.NO_VERSION)
+            return false;
+        for (int i = 0; i < arguments.length; ++i)
+            if (BinaryCodec.tag(types[i], arguments[i]) == 0)
+                return false;
+
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(REQUEST);
+        BinaryCodec.writeString(out, request.getIdentifier());
+        BinaryCodec.writeString(out, request.getRecipient());
+        out.writeInt(request.getMethodIdentifier());
+        out.writeInt(request.getFingerprint());
+        out.writeLong(request.getTimeout());
+        out.writeByte(arguments.length);
+        for (int i = 0; i < arguments.length; ++i)
+            BinaryCodec.writeValue(out, BinaryCodec.tag(types[i], arguments[i]), arguments[i]);
+        out.flush();
+        return true;
+    }
+
+    private static boolean encode(Response response, ByteArrayOutputStream bytes) throws IOException {
+        Object value = response.value();
+        byte tag = BinaryCodec.tag(value == null ? null : value.getClass(), value);
+        if (!response.isSuccess() || tag == 0)
+            return false;
+
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RESPONSE);
+        BinaryCodec.writeString(out, response.getIdentifier());
+        out.writeByte(1);
+        BinaryCodec.writeValue(out, tag, value);
+        out.flush();
+        return true;
+    }
+
+    /**
+     * Creates a view over the given binary message. The view reads the message from the given buffer when it is
+     * accessed, so the buffer must not be changed afterwards.
+     *
+     * @param frame A binary message, as created by {@code encode}.
+     * @return A {@code RequestView} or a {@code ResponseView} over the given buffer.
+     * @throws IllegalArgumentException If the buffer doesn't contain a binary message.
+     */
+    public static Message decode(byte[] frame) {
+        ByteBuffer buffer = ByteBuffer.wrap(frame).asReadOnlyBuffer();
+        switch (buffer.get(0)) {
+            case REQUEST:
+                return new RequestView(buffer);
+            case RESPONSE:
+                return new ResponseView(buffer);
+            default:
+                throw new IllegalArgumentException("The given frame does not contain a binary message");
+        }
+    }
+
+    /**
+     * Determines the tag with which the given value of the given declared type is written.
+     *
+     * @return The tag to use, or 0 if the value can not be written in binary.
+     */
+    private static byte tag(Class<?> type, Object value) {
+        if (type == null || (value == null && !type.isPrimitive()))
+            return TYPE_NULL;
+        else if (type == boolean.class || type == Boolean.class)
+            return TYPE_BOOLEAN;
+        else if (type == char.class || type == Character.class)
+            return TYPE_CHARACTER;
+        else if (type == double.class || type == Double.class)
+            return TYPE_DOUBLE;
+        else if (type == float.class || type == Float.class)
+            return TYPE_FLOAT;
+        else if (type == int.class || type == Integer.class)
+            return TYPE_INTEGER;
+        else if (type == long.class || type == Long.class)
+            return TYPE_LONG;
+        else if (type == String.class)
+            return TYPE_STRING;
+        else
+            return 0;
+    }
+
+    private static void writeValue(DataOutputStream out, byte tag, Object value) throws IOException {
+        out.writeByte(tag);
+        switch (tag) {
+            case TYPE_BOOLEAN:
+                out.writeBoolean((Boolean) value);
+                break;
+            case TYPE_CHARACTER:
+                out.writeChar((Character) value);
+                break;
+            case TYPE_DOUBLE:
+                out.writeDouble((Double) value);
+                break;
+            case TYPE_FLOAT:
+                out.writeFloat((Float) value);
+                break;
+            case TYPE_INTEGER:
+                out.writeInt((Integer) value);
+                break;
+            case TYPE_LONG:
+                out.writeLong((Long) value);
+                break;
+            case TYPE_STRING:
+                BinaryCodec.writeString(out, (String) value);
+                break;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads the String that starts at the given position of the given buffer.
+     */
+    static String readString(ByteBuffer buffer, int position) {
+        int length = buffer.getInt(position);
+        if (length < 0)
+            return null;
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(position + 4).limit(position + 4 + length);
+        return StandardCharsets.UTF_8.decode(slice).toString();
+    }
+
+    /**
+     * Determines the position directly after the String that starts at the given position of the given buffer.
+     */
+    static int skipString(ByteBuffer buffer, int position) {
+        return position + 4 + Math.max(0, buffer.getInt(position));
+    }
+
+    /**
+     * Determines the position directly after the value whose tag is at the given position of the given buffer.
+     */
+    static int skipValue(ByteBuffer buffer, int position) {
+        switch (buffer.get(position)) {
+            case TYPE_NULL:
+                return position + 1;
+            case TYPE_BOOLEAN:
+                return position + 2;
+            case TYPE_CHARACTER:
+                return position + 3;
+            case TYPE_FLOAT:
+            case TYPE_INTEGER:
+                return position + 5;
+            case TYPE_DOUBLE:
+            case TYPE_LONG:
+                return position + 9;
+            case TYPE_STRING:
+                return BinaryCodec.skipString(buffer, position + 1);
+            default:
+                throw new IllegalArgumentException("Unknown type tag " + buffer.get(position));
+        }
+    }
+
+    /**
+     * Reads the value whose tag is at the given position of the given buffer. Primitive values are boxed.
+     */
+    static Object readValue(ByteBuffer buffer, int position) {
+        switch (buffer.get(position)) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_BOOLEAN:
+                return buffer.get(position + 1) != 0;
+            case TYPE_CHARACTER:
+                return buffer.getChar(position + 1);
+            case TYPE_DOUBLE:
+                return buffer.getDouble(position + 1);
+            case TYPE_FLOAT:
+                return buffer.getFloat(position + 1);
+            case TYPE_INTEGER:
+                return buffer.getInt(position + 1);
+            case TYPE_LONG:
+                return buffer.getLong(position + 1);
+            case TYPE_STRING:
+                return BinaryCodec.readString(buffer, position + 1);
+            default:
+                throw new IllegalArgumentException("Unknown type tag " + buffer.get(position));
+        }
+    }
+
+    /**
+     * Gives the type that belongs to the value whose tag is at the given position of the given buffer.
+     */
+    static Class<?> readType(ByteBuffer buffer, int position) {
+        switch (buffer.get(position)) {
+            case TYPE_NULL:
+                return Object.class;
+            case TYPE_BOOLEAN:
+                return boolean.class;
+            case TYPE_CHARACTER:
+                return char.class;
+            case TYPE_DOUBLE:
+                return double.class;
+            case TYPE_FLOAT:
+                return float.class;
+            case TYPE_INTEGER:
+                return int.class;
+            case TYPE_LONG:
+                return long.class;
+            case TYPE_STRING:
+                return String.class;
+            default:
+                throw new IllegalArgumentException("Unknown type tag " + buffer.get(position));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.yarmis.core.messages;
+
+import com.yarmis.core.Communication;
+import org.json.JSONObject;
+
+/**
+ * Tells the host that the requester is no longer interested in the outcome of a request. The host skips the request
+ * if it hasn't started executing it yet, and interrupts it otherwise. No response is sent for a cancelled request.
+ */
+public class Cancel extends IdentifyableMessage {
+
+    protected Cancel(String identifier) {
+        super(identifier);
+    }
+
+    protected Cancel(JSONObject object, Communication c) {
+        super(object, c);
+    }
+
+    @Override
+    public String toString() {
+        return "Cancel of request " + this.identifier;
+    }
+}
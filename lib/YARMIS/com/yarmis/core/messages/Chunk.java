@@ -0,0 +1,242 @@
+package com.yarmis.core.messages;
+
+import com.yarmis.core.Communication;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A part of a large successful response. Strings, byte arrays and Lists that are larger than a single chunk are not
+ * sent as one Response, but as a sequence of Chunks that each hold a consecutive part of the value. The receiver
+ * reassembles the value from the Chunks, and releases the Result once the last Chunk arrived.
+ * <p/>
+ * Chunks that are to be sent only refer to their part of the value, which is encoded when the Chunk is sent. The
+ * encoding of the whole value therefore never exists at once, on either side.
+ */
+public class Chunk extends IdentifyableMessage {
+
+    /**
+     * Kind of Chunk that holds a part of a String.
+     */
+    public static final String STRING = "string";
+
+    /**
+     * Kind of Chunk that holds a part of a byte array.
+     */
+    public static final String BYTES = "bytes";
+
+    /**
+     * Kind of Chunk that holds a part of a List.
+     */
+    public static final String LIST = "list";
+
+    /**
+     * The kind of value of which this is a part.
+     */
+    private final String kind;
+
+    /**
+     * The position of this Chunk in the sequence of Chunks of the value, starting at 0.
+     */
+    private final int sequence;
+
+    /**
+     * The size of the whole value, in characters, bytes or elements.
+     */
+    private final int total;
+
+    /**
+     * Whether this is the last Chunk of the value.
+     */
+    private final boolean last;
+
+    /**
+     * The whole value of which this Chunk is to send a part, or {@code null} for received Chunks.
+     */
+    private final Object value;
+
+    /**
+     * The start (inclusive) and end (exclusive) of the part that this Chunk is to send.
+     */
+    private final int from, to;
+
+    /**
+     * The decoded part of a received Chunk: a String, a byte array or an array of elements.
+     */
+    private final Object part;
+
+    private Chunk(String identifier, String kind, int sequence, int total, boolean last, Object value, int from, int to) {
+        super(identifier);
+        this.kind = kind;
+        this.sequence = sequence;
+        this.total = total;
+        this.last = last;
+        this.value = value;
+        this.from = from;
+        this.to = to;
+        this.part = null;
+    }
+
+    protected Chunk(JSONObject obj, Communication communication) throws JSONException {
+        super(obj, communication);
+        this.kind = obj.getString(Communication.Chunk.KIND);
+        this.sequence = obj.getInt(Communication.Chunk.SEQUENCE);
+        this.total = obj.getInt(Communication.Chunk.TOTAL);
+        this.last = obj.getBoolean(Communication.Chunk.LAST);
+        this.value = null;
+        this.from = 0;
+        this.to = 0;
+
+        switch (this.kind) {
+            case STRING:
+                this.part = obj.getString(Communication.Chunk.VALUES);
+                break;
+            case BYTES:
+                try {
+                    this.part = Base64.getDecoder().decode(obj.getString(Communication.Chunk.VALUES));
+                } catch (IllegalArgumentException e) {
+                    throw new JSONException("Chunk does not contain valid base64", e);
+                }
+                break;
+            case LIST:
+                this.part = communication.convertToArguments(obj.getJSONArray(Communication.Chunk.VALUES));
+                break;
+            default:
+                throw new JSONException("Unknown kind of chunk " + this.kind);
+        }
+    }
+
+    /**
+     * Splits the given value into Chunks, if it is too large to be sent as a single Response.
+     *
+     * @param identifier The identifier of the request to which the value is the response.
+     * @param value      The value to send.
+     * @param size       The number of characters or bytes in a Chunk of a String or byte array. Use 0 to never split
+     *                   these.
+     * @param elements   The number of elements in a Chunk of a List. Use 0 to never split Lists.
+     * @return The Chunks that the value must be sent as, which are created while they are iterated over. This is
+     * {@code null} if the value must be sent as a single Response.
+     */
+    public static Iterator<Chunk> split(String identifier, Object value, int size, int elements) {
+        if (value instanceof String && size > 0 && ((String) value).length() > size)
+            return new Splitter(identifier, STRING, value, ((String) value).length(), size);
+        else if (value instanceof byte[] && size > 0 && ((byte[]) value).length > size)
+            return new Splitter(identifier, BYTES, value, ((byte[]) value).length, size);
+        else if (value instanceof List && elements > 0 && ((List<?>) value).size() > elements)
+            return new Splitter(identifier, LIST, value, ((List<?>) value).size(), elements);
+        else
+            return null;
+    }
+
+    public String getKind() {
+        return this.kind;
+    }
+
+    public int getSequence() {
+        return this.sequence;
+    }
+
+    /**
+     * Get the size of the whole value of which this Chunk is a part.
+     *
+     * @return The number of characters, bytes or elements in the whole value.
+     */
+    public int getTotal() {
+        return this.total;
+    }
+
+    public boolean isLast() {
+        return this.last;
+    }
+
+    /**
+     * Get the part of the value that this received Chunk holds.
+     *
+     * @return A String, a byte array or an array of elements, depending on the kind of Chunk.
+     */
+    public Object getPart() {
+        return this.part;
+    }
+
+    @Override
+    public JSONObject translate(Communication communication) throws JSONException {
+        JSONObject result = super.translate(communication)
+                .put(Communication.Chunk.KIND, this.kind)
+                .put(Communication.Chunk.SEQUENCE, this.sequence)
+                .put(Communication.Chunk.TOTAL, this.total)
+                .put(Communication.Chunk.LAST, this.last);
+
+        switch (this.kind) {
+            case STRING:
+                return result.put(Communication.Chunk.VALUES, ((String) this.value).substring(this.from, this.to));
+            case BYTES:
+                return result.put(Communication.Chunk.VALUES,
+                        Base64.getEncoder().encodeToString(Arrays.copyOfRange((byte[]) this.value, this.from, this.to)));
+            default:
+                JSONArray values = new JSONArray();
+                for (Object element : ((List<?>) this.value).subList(this.from, this.to))
+                    values.put(communication.convertValue(element));
+                return result.put(Communication.Chunk.VALUES, values);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Chunk " + this.sequence + " of " + this.kind + " for identifier: " + this.identifier;
+    }
+
+    /**
+     * Creates the Chunks of a value while they are iterated over.
+     */
+    private static final class Splitter implements Iterator<Chunk> {
+
+        private final String identifier;
+        private final String kind;
+        private final Object value;
+        private final int total;
+        private final int size;
+
+        private int position = 0;
+        private int sequence = 0;
+
+        private Splitter(String identifier, String kind, Object value, int total, int size) {
+            this.identifier = identifier;
+            this.kind = kind;
+            this.value = value;
+            this.total = total;
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.position < this.total;
+        }
+
+        @Override
+        public Chunk next() {
+            if (!this.hasNext())
+                throw new NoSuchElementException();
+
+            int end = Math.min(this.position + this.size, this.total);
+            // Never split a surrogate pair over two Chunks
+            if (this.kind.equals(STRING) && end < this.total && end - 1 > this.position && Character.isHighSurrogate(((String) this.value).charAt(end - 1)))
+                --end;
+
+            Chunk chunk = new Chunk(this.identifier, this.kind, this.sequence++, this.total, end == this.total,
+                    this.value, this.position, end);
+            this.position = end;
+            return chunk;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
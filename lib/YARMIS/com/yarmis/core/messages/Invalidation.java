@@ -0,0 +1,51 @@
+package com.yarmis.core.messages;
+
+import com.yarmis.core.Communication;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Tells the requesters of a host that the results of the cacheable methods of a module have changed, such that they
+ * don't use what they cached anymore.
+ */
+public class Invalidation extends Message {
+
+    private final String moduleIdentifier;
+
+    /**
+     * The version of the module after the change.
+     */
+    private final long version;
+
+    protected Invalidation(String moduleIdentifier, long version) {
+        super();
+        this.moduleIdentifier = moduleIdentifier;
+        this.version = version;
+    }
+
+    protected Invalidation(JSONObject obj, Communication communication) throws JSONException {
+        super(obj, communication);
+        this.moduleIdentifier = obj.getString(Communication.Invalidation.MODULE);
+        this.version = obj.getLong(Communication.Invalidation.VERSION);
+    }
+
+    public String getModuleIdentifier() {
+        return this.moduleIdentifier;
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    @Override
+    public JSONObject translate(Communication communication) throws JSONException {
+        return super.translate(communication)
+                .put(Communication.Invalidation.MODULE, this.moduleIdentifier)
+                .put(Communication.Invalidation.VERSION, this.version);
+    }
+
+    @Override
+    public String toString() {
+        return "Invalidation of module " + this.moduleIdentifier + " at version " + this.version;
+    }
+}
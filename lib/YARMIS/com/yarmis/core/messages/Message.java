@@ -6,6 +6,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.lang.reflect.Method;
+import java.util.List;
 
 public abstract class Message {
 
@@ -36,6 +37,16 @@ public abstract class Message {
     }
 
 
+    /**
+     * Encodes this message as the text that is sent. By default this is the text of {@code translate}, messages that
+     * are sent often may encode themselves more efficiently.
+     *
+     * @return The JSON text of this message.
+     */
+    public String encode(Communication c) throws JSONException {
+        return this.translate(c).toString();
+    }
+
     public static Message from(JSONObject obj, Communication c) throws JSONException {
         String type = obj.getString(Communication.TYPE);
 
@@ -49,14 +60,76 @@ public abstract class Message {
                     return new Response(obj, c);
                 case Communication.HOOK:
                     return new Hook(obj, c);
+                case Communication.CHUNK:
+                    return new Chunk(obj, c);
+                case Communication.BATCH:
+                    return new BatchMessage(obj, c);
+                case Communication.CANCEL:
+                    return new Cancel(obj, c);
+                case Communication.STREAM_SIGNAL:
+                    return new StreamSignal(obj, c);
+                case Communication.INVALIDATION:
+                    return new Invalidation(obj, c);
 
             }
         }
         throw new IllegalArgumentException("The given JSONObject was not a valid message");
     }
 
-    public static Request makeRequest(String identifier, String recipient, Method m, Object[] args) {
-        return new Request(identifier, recipient, m, args);
+    public static Request makeRequest(String identifier, String recipient, int method, int fingerprint, Method m, Object[] args) {
+        return new Request(identifier, recipient, method, fingerprint, m, args);
+    }
+
+    public static Request makeRequest(String identifier, String recipient, int method, int fingerprint, long known, Method m, Object[] args) {
+        return new Request(identifier, recipient, method, fingerprint, known, m, args);
+    }
+
+    public static Request makeRequest(String identifier, String recipient, int method, int fingerprint, long known, long timeout, Method m, Object[] args) {
+        return new Request(identifier, recipient, method, fingerprint, known, timeout, m, args);
+    }
+
+    /**
+     * Creates a batch of the given Requests, or of the given Responses, that is sent as a single message.
+     *
+     * @param messages The Requests or the Responses to send together.
+     * @return The batch.
+     */
+    public static BatchMessage makeBatch(List<? extends Message> messages) {
+        return new BatchMessage(messages);
+    }
+
+    /**
+     * Creates a message that tells the host that the request with the given identifier is no longer of interest.
+     *
+     * @param identifier The identifier of the request to cancel.
+     * @return The created Cancel.
+     */
+    public static Cancel makeCancel(String identifier) {
+        return new Cancel(identifier);
+    }
+
+    /**
+     * Creates a signal of the stream of items that was opened by the request with the given identifier.
+     *
+     * @param identifier The identifier of the request that opened the stream.
+     * @param kind       The kind of signal, such as {@code StreamSignal.ITEM}.
+     * @param count      The number of demanded items, for a DEMAND signal.
+     * @param value      The item or the exception, for an ITEM or an ERROR signal.
+     * @return The created StreamSignal.
+     */
+    public static StreamSignal makeStreamSignal(String identifier, String kind, long count, Object value) {
+        return new StreamSignal(identifier, kind, count, value);
+    }
+
+    /**
+     * Creates a message that tells that the results of the cacheable methods of the given module have changed.
+     *
+     * @param moduleIdentifier The identifier of the module that changed.
+     * @param version          The version of the module after the change.
+     * @return The created Invalidation.
+     */
+    public static Invalidation makeInvalidation(String moduleIdentifier, long version) {
+        return new Invalidation(moduleIdentifier, version);
     }
 
     public static Response makeResponse(String identifier, Object result, boolean isSuccess) {
@@ -2,6 +2,7 @@ package com.yarmis.core.messages;
 
 import com.yarmis.core.Communication;
 import com.yarmis.core.Module;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -39,16 +40,17 @@ public class Notification extends Message {
         super(jsonObject, communication);
         this.moduleIdentifier = jsonObject.optString(Communication.Notification.MODULE, null);
 
-        Class<?>[] parameterTypes = communication.convertToArgumentTypes(jsonObject.getJSONArray(Communication.Notification.VALUES));
+        JSONArray values = jsonObject.getJSONArray(Communication.Notification.VALUES);
+        Class<?>[] parameterTypes = new Class<?>[values.length()];
+        this.arguments = communication.convertToArguments(values, parameterTypes);
         try {
-            this.method = ((Class<?>) communication.parseValue(jsonObject.getJSONObject(Communication.Notification.LISTENER)))
-                    .getMethod(jsonObject.getString(Communication.Notification.METHOD), parameterTypes);
+            this.method = communication.getResolver().resolveMethod(
+                    (Class<?>) communication.parseValue(jsonObject.getJSONObject(Communication.Notification.LISTENER)),
+                    jsonObject.getString(Communication.Notification.METHOD), parameterTypes);
         } catch (NoSuchMethodException e) {
             throw (ClassCastException) new ClassCastException("Cannot convert object to JSON").initCause(e);
         }
 
-        this.arguments = communication.convertToArguments(jsonObject.getJSONArray(Communication.Notification.VALUES));
-
 
     }
 
@@ -76,6 +78,38 @@ public class Notification extends Message {
                 .put(Communication.Notification.VALUES, c.convertArguments(this.arguments, this.method.getParameterTypes()));
     }
 
+    /**
+     * Encodes this notification. Everything but the arguments is the same for all notifications of the same method to
+     * the same module, so that is only encoded once.
+     */
+    @Override
+    public String encode(Communication c) throws JSONException {
+        String variant = Communication.NOTIFICATION + ":" + this.moduleIdentifier;
+        String template = c.getTemplate(this.method, variant);
+        if (template == null) {
+            template = super.translate(c)
+                    .put(Communication.Notification.MODULE, this.moduleIdentifier)
+                    .put(Communication.Notification.METHOD, this.method.getName())
+                    .put(Communication.Notification.LISTENER, c.convertValue(this.method.getDeclaringClass()))
+                    .toString();
+            // Leave the object open for the values
+            template = template.substring(0, template.length() - 1) + ",\"" + Communication.Notification.VALUES + "\":";
+            c.putTemplate(this.method, variant, template);
+        }
+
+        boolean recycling = c.isRecycling();
+        StringBuilder result = recycling ? c.acquireBuilder()
+                : new StringBuilder(template.length() + 32 * (this.arguments == null ? 1 : this.arguments.length + 1));
+        try {
+            result.append(template);
+            c.appendArguments(result, this.method, this.arguments);
+            return result.append('}').toString();
+        } finally {
+            if (recycling)
+                c.releaseBuilder(result);
+        }
+    }
+
     public String getModuleIdentifier() {
         return moduleIdentifier;
     }
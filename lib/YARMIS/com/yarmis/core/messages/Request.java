@@ -1,6 +1,7 @@
 package com.yarmis.core.messages;
 
 import com.yarmis.core.Communication;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -17,38 +18,166 @@ public class Request extends IdentifyableMessage {
     private final String recipient;
 
     /**
-     * The name of the intended method to be executed
+     * The identifier of the intended method to be executed, as given by the method table of the recipient.
      */
-    private final String method;
+    private final int method;
 
     /**
-     * The types of the arguments of the intended method to be executed. Before this can be accessed, {@code unpack()}
-     * must be called.
+     * The fingerprint of the method table that was used to identify the intended method.
+     */
+    private final int fingerprint;
+
+    /**
+     * The version of the result that the requester already holds, for methods that are answered with a {@code Delta},
+     * or {@code Delta.NO_VERSION}.
+     */
+    private final long known;
+
+    /**
+     * The number of milliseconds that the requester waits for the response, or {@code Deadline.NONE}.
+     */
+    private final long timeout;
+
+    /**
+     * The method to be executed, for requests that are to be sent.
+     */
+    private final Method m;
+
+    /**
+     * The types of the arguments of the intended method to be executed. For received requests these are decoded
+     * together with the arguments, when the arguments are first needed.
      */
     private Class<?>[] argumentTypes;
 
     /**
-     * The actual arguments of the intended method to be executed. Before this can be accessed, {@code unpack()} must be
-     * called.
+     * The actual arguments of the intended method to be executed. For received requests these are decoded when they
+     * are first needed.
      */
     private Object[] arguments;
 
-    protected Request(String identifier, String recipient, Method m, Object[] arguments) {
+    /**
+     * The encoded arguments of a received request, or null once they have been decoded.
+     */
+    private JSONArray values;
+
+    /**
+     * The Communication instance with which the encoded arguments of a received request must be decoded.
+     */
+    private final Communication communication;
+
+    /**
+     * Whether the arrays of the decoded arguments were taken from the pools of the Communication instance, and must be
+     * returned to them by {@code recycle}.
+     */
+    private boolean pooled = false;
+
+    /**
+     * Whether this request has been recycled, after which its arguments must not be used anymore.
+     */
+    private boolean recycled = false;
+
+    protected Request(String identifier, String recipient, int method, int fingerprint, Method m, Object[] arguments) {
+        this(identifier, recipient, method, fingerprint, com.yarmis.core.Delta.NO_VERSION, m, arguments);
+    }
+
+    protected Request(String identifier, String recipient, int method, int fingerprint, long known, Method m, Object[] arguments) {
+        this(identifier, recipient, method, fingerprint, known, com.yarmis.core.Deadline.NONE, m, arguments);
+    }
+
+    protected Request(String identifier, String recipient, int method, int fingerprint, long known, long timeout, Method m, Object[] arguments) {
         super(identifier);
         this.recipient = recipient;
-        this.method = m.getName();
+        this.method = method;
+        this.fingerprint = fingerprint;
+        this.known = known;
+        this.timeout = timeout;
+        this.m = m;
         this.argumentTypes = m.getParameterTypes();
         this.arguments = arguments != null ? arguments : new Object[0];
+        this.communication = null;
+    }
+
+    /**
+     * Constructor for views over received requests, which read their properties themselves.
+     *
+     * @param identifier The identifier of the request.
+     */
+    protected Request(String identifier) {
+        super(identifier);
+        this.recipient = null;
+        this.method = -1;
+        this.fingerprint = 0;
+        this.known = com.yarmis.core.Delta.NO_VERSION;
+        this.timeout = com.yarmis.core.Deadline.NONE;
+        this.m = null;
+        this.arguments = new Object[0];
+        this.communication = null;
     }
 
     protected Request(JSONObject obj, Communication communication) throws JSONException {
         super(obj, communication);
         this.recipient = obj.getString(Communication.Request.MODULE);
-        this.method = obj.getString(Communication.Request.METHOD);
-        this.argumentTypes = communication.convertToArgumentTypes(obj.getJSONArray(Communication.Request.VALUES));
-        this.arguments = communication.convertToArguments(obj.getJSONArray(Communication.Request.VALUES));
+        this.method = obj.getInt(Communication.Request.METHOD);
+        this.fingerprint = obj.getInt(Communication.Request.FINGERPRINT);
+        this.known = obj.optLong(Communication.Request.KNOWN, com.yarmis.core.Delta.NO_VERSION);
+        this.timeout = obj.optLong(Communication.Request.TIMEOUT, com.yarmis.core.Deadline.NONE);
+        this.m = null;
+        // The arguments are only decoded once it is known that the request is allowed.
+        this.values = obj.getJSONArray(Communication.Request.VALUES);
+        this.communication = communication;
     }
 
+    /**
+     * Decodes the arguments of a received request, if this hasn't been done yet. The types and the values of the
+     * arguments are decoded in a single pass.
+     */
+    private synchronized void decode() throws JSONException {
+        if (this.values == null)
+            return;
+
+        if (this.communication.isRecycling()) {
+            int length = this.values.length();
+            Class<?>[] types = this.communication.acquireTypes(length);
+            Object[] arguments = this.communication.acquireArguments(length);
+            this.pooled = true;
+            this.argumentTypes = types;
+            this.arguments = arguments;
+            this.communication.convertToArguments(this.values, types, arguments);
+        } else {
+            Class<?>[] types = new Class<?>[this.values.length()];
+            this.arguments = this.communication.convertToArguments(this.values, types);
+            this.argumentTypes = types;
+        }
+        this.values = null;
+    }
+
+    /**
+     * Releases the arguments of this received request once it has been handled. If they were decoded into pooled
+     * arrays, these are returned to their pools. The arguments must not be used anymore afterwards.
+     * <p/>
+     * This must be called by the thread that decoded the arguments.
+     */
+    public synchronized void recycle() {
+        if (this.recycled)
+            throw new IllegalStateException("Request recycled twice");
+        this.recycled = true;
+        if (this.pooled) {
+            this.communication.releaseArguments(this.arguments);
+            this.communication.releaseTypes(this.argumentTypes);
+            this.pooled = false;
+        }
+    }
+
+
+    /**
+     * Checks that the arguments of this Request can still be used.
+     *
+     * @throws IllegalStateException If this Request has been recycled.
+     */
+    private void checkNotRecycled() {
+        if (this.recycled)
+            throw new IllegalStateException("Request used after it was recycled");
+    }
 
     /**
      * Get the identifier of the Request.
@@ -69,14 +198,43 @@ public class Request extends IdentifyableMessage {
     }
 
     /**
-     * Get the name of the intended method
+     * Get the identifier of the intended method in the method table of the recipient.
      *
-     * @return
+     * @return The identifier of the intended method.
      */
-    public String getMethod() {
+    public int getMethodIdentifier() {
         return method;
     }
 
+    /**
+     * Get the fingerprint of the method table that the requester used to identify the intended method.
+     *
+     * @return The fingerprint of the method table of the requester.
+     */
+    public int getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Get the version of the result that the requester already holds. This is only used for methods that are answered
+     * with a {@code Delta}.
+     *
+     * @return The version that the requester holds, or {@code Delta.NO_VERSION}.
+     */
+    public long getKnownVersion() {
+        return this.known;
+    }
+
+    /**
+     * Get the number of milliseconds that the requester waits for the response. The host derives the deadline of the
+     * request from this.
+     *
+     * @return The timeout of the request, or {@code Deadline.NONE}.
+     */
+    public long getTimeout() {
+        return this.timeout;
+    }
+
     /**
      * Get the argument types of the request
      *
@@ -84,9 +242,21 @@ public class Request extends IdentifyableMessage {
      * These classes are in order.
      */
     public Class<?>[] getArgumentTypes() {
+        this.checkNotRecycled();
+        this.decode();
         return this.argumentTypes;
     }
 
+    /**
+     * Get the number of arguments of the request. This does not require the arguments to be decoded.
+     *
+     * @return The number of arguments that are supplied for the intended method.
+     */
+    public int getArgumentCount() {
+        JSONArray values = this.values;
+        return values != null ? values.length() : this.arguments.length;
+    }
+
     /**
      * Get the arguments of the request
      *
@@ -94,19 +264,73 @@ public class Request extends IdentifyableMessage {
      * These Objects are unpacked to the correct classes and are placed in the required order.
      */
     public Object[] getArguments() {
-
+        this.checkNotRecycled();
+        this.decode();
         return this.arguments;
     }
 
 
+    /**
+     * Translates this request. Its properties are read through the getters, such that views over received requests
+     * and requests whose arguments were not decoded yet are translated as well.
+     */
     @Override
     public JSONObject translate(Communication communication) throws JSONException {
 
-        return super.translate(communication)
-                .put(Communication.Request.MODULE, this.recipient)
-                .put(Communication.Request.METHOD, this.method)
-                .put(Communication.Request.VALUES, communication.convertArguments(this.arguments, this.argumentTypes));
+        JSONObject result = super.translate(communication);
+        if (this.getKnownVersion() != com.yarmis.core.Delta.NO_VERSION)
+            result.put(Communication.Request.KNOWN, this.getKnownVersion());
+        if (this.getTimeout() != com.yarmis.core.Deadline.NONE)
+            result.put(Communication.Request.TIMEOUT, this.getTimeout());
+
+        return result
+                .put(Communication.Request.MODULE, this.getRecipient())
+                .put(Communication.Request.METHOD, this.getMethodIdentifier())
+                .put(Communication.Request.FINGERPRINT, this.getFingerprint())
+                .put(Communication.Request.VALUES, communication.convertArguments(this.getArguments(), this.getArgumentTypes()));
+
+    }
+
+    /**
+     * Encodes this request. Everything but the identifier and the arguments is the same for all requests for the same
+     * method, so that is only encoded once.
+     */
+    @Override
+    public String encode(Communication communication) throws JSONException {
+        if (this.m == null)
+            return super.encode(communication);
+
+        String template = communication.getTemplate(this.m, this.recipient);
+        if (template == null) {
+            template = new JSONObject()
+                    .put(Communication.TYPE, Communication.REQUEST)
+                    .put(Communication.Request.MODULE, this.recipient)
+                    .put(Communication.Request.METHOD, this.method)
+                    .put(Communication.Request.FINGERPRINT, this.fingerprint)
+                    .toString();
+            // Leave the object open for the remaining members
+            template = template.substring(0, template.length() - 1) + ",";
+            communication.putTemplate(this.m, this.recipient, template);
+        }
 
+        boolean recycling = communication.isRecycling();
+        StringBuilder result = recycling ? communication.acquireBuilder()
+                : new StringBuilder(template.length() + 32 + 32 * this.arguments.length);
+        try {
+            result.append(template)
+                    .append('"').append(Communication.IdentifyableMessage.IDENTIFIER).append("\":")
+                    .append(JSONObject.quote(this.identifier)).append(',');
+            if (this.known != com.yarmis.core.Delta.NO_VERSION)
+                result.append('"').append(Communication.Request.KNOWN).append("\":").append(this.known).append(',');
+            if (this.timeout != com.yarmis.core.Deadline.NONE)
+                result.append('"').append(Communication.Request.TIMEOUT).append("\":").append(this.timeout).append(',');
+            result.append('"').append(Communication.Request.VALUES).append("\":");
+            communication.appendArguments(result, this.m, this.arguments);
+            return result.append('}').toString();
+        } finally {
+            if (recycling)
+                communication.releaseBuilder(result);
+        }
     }
 
     @Override
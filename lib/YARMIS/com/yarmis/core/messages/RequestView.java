@@ -0,0 +1,169 @@
+package com.yarmis.core.messages;
+
+import com.yarmis.core.Communication;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only view over a Request that was received in binary form. Nothing is copied out of the receive buffer until
+ * it is asked for: the recipient is decoded when it is first needed, and every argument is read straight from the
+ * buffer when it is accessed. Primitive arguments can be read without boxing through {@code getInt}, {@code getLong},
+ * {@code getDouble} and {@code getBoolean}.
+ * <p/>
+ * See {@code BinaryCodec} for the layout of the buffer.
+ */
+public final class RequestView extends Request {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * The position of the recipient in the buffer.
+     */
+    private final int recipientPosition;
+
+    /**
+     * The position of the method identifier in the buffer. The fingerprint, the timeout and the number of arguments
+     * follow it.
+     */
+    private final int methodPosition;
+
+    /**
+     * The position of the tag of every argument, determined when the first argument is accessed.
+     */
+    private int[] positions;
+
+    RequestView(ByteBuffer buffer) {
+        super(BinaryCodec.readString(buffer, 1));
+        this.buffer = buffer;
+        this.recipientPosition = BinaryCodec.skipString(buffer, 1);
+        this.methodPosition = BinaryCodec.skipString(buffer, this.recipientPosition);
+    }
+
+    @Override
+    public String getRecipient() {
+        return BinaryCodec.readString(this.buffer, this.recipientPosition);
+    }
+
+    @Override
+    public int getMethodIdentifier() {
+        return this.buffer.getInt(this.methodPosition);
+    }
+
+    @Override
+    public int getFingerprint() {
+        return this.buffer.getInt(this.methodPosition + 4);
+    }
+
+    @Override
+    public long getTimeout() {
+        return this.buffer.getLong(this.methodPosition + 8);
+    }
+
+    @Override
+    public int getArgumentCount() {
+        return this.buffer.get(this.methodPosition + 16) & 0xFF;
+    }
+
+    /**
+     * Get the position of the tag of the argument with the given index.
+     */
+    private int position(int index) {
+        int[] positions = this.positions;
+        if (positions == null) {
+            positions = new int[this.getArgumentCount()];
+            int position = this.methodPosition + 17;
+            for (int i = 0; i < positions.length; ++i) {
+                positions[i] = position;
+                position = BinaryCodec.skipValue(this.buffer, position);
+            }
+            this.positions = positions;
+        }
+        return positions[index];
+    }
+
+    /**
+     * Get the type tag of the argument with the given index, as used by {@code Communication}.
+     *
+     * @param index The index of the argument.
+     * @return The type tag of the argument.
+     */
+    public char getTag(int index) {
+        return (char) this.buffer.get(this.position(index));
+    }
+
+    public int getInt(int index) {
+        this.expect(index, BinaryCodec.TYPE_INTEGER);
+        return this.buffer.getInt(this.position(index) + 1);
+    }
+
+    public long getLong(int index) {
+        this.expect(index, BinaryCodec.TYPE_LONG);
+        return this.buffer.getLong(this.position(index) + 1);
+    }
+
+    public double getDouble(int index) {
+        this.expect(index, BinaryCodec.TYPE_DOUBLE);
+        return this.buffer.getDouble(this.position(index) + 1);
+    }
+
+    public float getFloat(int index) {
+        this.expect(index, BinaryCodec.TYPE_FLOAT);
+        return this.buffer.getFloat(this.position(index) + 1);
+    }
+
+    public char getChar(int index) {
+        this.expect(index, BinaryCodec.TYPE_CHARACTER);
+        return this.buffer.getChar(this.position(index) + 1);
+    }
+
+    public boolean getBoolean(int index) {
+        this.expect(index, BinaryCodec.TYPE_BOOLEAN);
+        return this.buffer.get(this.position(index) + 1) != 0;
+    }
+
+    /**
+     * Get the argument with the given index. Primitive values are boxed.
+     *
+     * @param index The index of the argument.
+     * @return The argument with the given index.
+     */
+    public Object getArgument(int index) {
+        return BinaryCodec.readValue(this.buffer, this.position(index));
+    }
+
+    private void expect(int index, byte tag) {
+        if (this.buffer.get(this.position(index)) != tag)
+            throw new ClassCastException("Argument " + index + " is not of type " + (char) tag);
+    }
+
+    @Override
+    public Object[] getArguments() {
+        Object[] arguments = new Object[this.getArgumentCount()];
+        for (int i = 0; i < arguments.length; ++i)
+            arguments[i] = this.getArgument(i);
+        return arguments;
+    }
+
+    @Override
+    public Class<?>[] getArgumentTypes() {
+        Class<?>[] types = new Class<?>[this.getArgumentCount()];
+        for (int i = 0; i < types.length; ++i)
+            types[i] = BinaryCodec.readType(this.buffer, this.position(i));
+        return types;
+    }
+
+    /**
+     * Translates the request that this is a view over, such that it can be sent on. This decodes all arguments.
+     */
+    @Override
+    public JSONObject translate(Communication communication) throws JSONException {
+        return super.translate(communication).put(Communication.TYPE, Communication.REQUEST);
+    }
+
+    @Override
+    public String toString() {
+        return "Request (" + this.identifier + ") for module: " + this.getRecipient() + " method: " + this.getMethodIdentifier();
+    }
+}
@@ -1,6 +1,7 @@
 package com.yarmis.core.messages;
 
 import com.yarmis.core.Communication;
+import com.yarmis.core.Recycler;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -12,13 +13,13 @@ public class Response extends Message {
     /**
      * The identifier of the request for which this is a response.
      */
-    private final String identifier;
+    private String identifier;
 
     /**
      * Indication whether this result is a success, or whether it is an exception, or other indication of a failure
      * during the execution of the request for which this is a response.
      */
-    private final boolean isSuccess;
+    private boolean isSuccess;
 
     /**
      * The value for the response. This must be unpacked before it can be used as the actual result. This is only an
@@ -28,6 +29,21 @@ public class Response extends Message {
 
     private Class<?> type;
 
+    /**
+     * Whether this Response has been returned to the pool, after which it must not be used anymore.
+     */
+    private boolean recycled = false;
+
+    /**
+     * The pool of Responses that are sent when recycling, see {@code obtain}.
+     */
+    private static final Recycler<Response> recycler = new Recycler<Response>() {
+        @Override
+        protected Response create() {
+            return new Response(null, null, null, false);
+        }
+    };
+
     protected Response(String identifier, Object value, boolean isSuccess) {
         this(identifier, value, value == null ? null : value.getClass(), isSuccess);
     }
@@ -40,6 +56,16 @@ public class Response extends Message {
         this.isSuccess = isSuccess;
     }
 
+    /**
+     * Constructor for views over received responses, which read their value themselves.
+     *
+     * @param identifier The identifier of the request for which this is a response.
+     * @param isSuccess  Whether the request was executed successfully.
+     */
+    protected Response(String identifier, boolean isSuccess) {
+        this(identifier, null, null, isSuccess);
+    }
+
     protected Response(JSONObject obj, Communication communication) throws JSONException {
         super(obj, communication);
         this.identifier = obj.getString(Communication.Response.IDENTIFIER);
@@ -48,11 +74,58 @@ public class Response extends Message {
         this.isSuccess = obj.getBoolean(Communication.Response.SUCCESS);
     }
 
+    /**
+     * Takes a Response from the pool of the current thread, and fills it in. It must be returned through {@code
+     * recycle} by the same thread once it has been sent.
+     *
+     * @param identifier The identifier of the request for which this is a response.
+     * @param value      The value of the response.
+     * @param isSuccess  Whether the request was executed successfully.
+     * @return A Response with the given properties.
+     */
+    public static Response obtain(String identifier, Object value, boolean isSuccess) {
+        Response response = Response.recycler.acquire();
+        response.identifier = identifier;
+        response.value = value;
+        response.type = value == null ? null : value.getClass();
+        response.isSuccess = isSuccess;
+        response.recycled = false;
+        return response;
+    }
+
+    /**
+     * Returns this Response to the pool of the current thread. It must have been taken through {@code obtain}, and
+     * must not be used anymore afterwards.
+     */
+    public void recycle() {
+        if (this.getClass() != Response.class)
+            throw new IllegalStateException("Only Responses that were obtained from the pool can be recycled");
+        if (this.recycled)
+            throw new IllegalStateException("Response recycled twice");
+        this.recycled = true;
+        this.identifier = null;
+        this.value = null;
+        this.type = null;
+        Response.recycler.release(this);
+    }
+
+    /**
+     * Checks that this Response is still in use.
+     *
+     * @throws IllegalStateException If this Response has been recycled.
+     */
+    private void checkNotRecycled() {
+        if (this.recycled)
+            throw new IllegalStateException("Response used after it was recycled");
+    }
+
     public String getIdentifier() {
+        this.checkNotRecycled();
         return identifier;
     }
 
     public boolean isSuccess() {
+        this.checkNotRecycled();
         return isSuccess;
     }
 
@@ -62,16 +135,18 @@ public class Response extends Message {
      * @return The unpacked value.
      */
     public Object value() {
+        this.checkNotRecycled();
         return this.value;
     }
 
     @Override
     public JSONObject translate(Communication communication) throws JSONException {
+        this.checkNotRecycled();
 
         return super.translate(communication)
                 .put(Communication.Response.IDENTIFIER, this.identifier)
                 .put(Communication.Response.SUCCESS, this.isSuccess)
-                .put(Communication.Response.VALUE, communication.convertValue(this.value));
+                .put(Communication.Response.VALUE, communication.convertValue(this.value()));
 
     }
 
@@ -0,0 +1,42 @@
+package com.yarmis.core.messages;
+
+import com.yarmis.core.Communication;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only view over a Response that was received in binary form. Its value is read straight from the receive
+ * buffer when it is asked for.
+ * <p/>
+ * See {@code BinaryCodec} for the layout of the buffer.
+ */
+public final class ResponseView extends Response {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * The position of the tag of the value in the buffer.
+     */
+    private final int valuePosition;
+
+    ResponseView(ByteBuffer buffer) {
+        super(BinaryCodec.readString(buffer, 1), buffer.get(BinaryCodec.skipString(buffer, 1)) != 0);
+        this.buffer = buffer;
+        this.valuePosition = BinaryCodec.skipString(buffer, 1) + 1;
+    }
+
+    @Override
+    public Object value() {
+        return BinaryCodec.readValue(this.buffer, this.valuePosition);
+    }
+
+    /**
+     * Translates the response that this is a view over, such that it can be sent on.
+     */
+    @Override
+    public JSONObject translate(Communication communication) throws JSONException {
+        return super.translate(communication).put(Communication.TYPE, Communication.RESPONSE);
+    }
+}
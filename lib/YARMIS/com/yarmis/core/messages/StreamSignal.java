@@ -0,0 +1,106 @@
+package com.yarmis.core.messages;
+
+import com.yarmis.core.Communication;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A signal of a stream of items, which is what is sent for a method that returns a {@code Flow.Publisher}. The
+ * requester sends DEMAND and CANCEL signals, which are passed on to the subscription to the publisher on the host. The
+ * host sends an ITEM signal for every item, and ends the stream with a COMPLETE or an ERROR signal. A stream is
+ * identified by the identifier of the request that opened it.
+ * <p/>
+ * Items are only sent when they are demanded, so neither side needs to hold more items than it asked for.
+ */
+public class StreamSignal extends IdentifyableMessage {
+
+    /**
+     * Kind of signal through which the requester asks for a number of items.
+     */
+    public static final String DEMAND = "demand";
+
+    /**
+     * Kind of signal that holds an item.
+     */
+    public static final String ITEM = "item";
+
+    /**
+     * Kind of signal that tells that all items have been sent.
+     */
+    public static final String COMPLETE = "complete";
+
+    /**
+     * Kind of signal that holds the exception with which the stream failed.
+     */
+    public static final String ERROR = "error";
+
+    /**
+     * Kind of signal through which the requester tells that it wants no more items.
+     */
+    public static final String CANCEL = "cancel";
+
+    private final String kind;
+
+    /**
+     * The number of items that is demanded, only used by DEMAND signals.
+     */
+    private final long count;
+
+    /**
+     * The item or the exception, only used by ITEM and ERROR signals.
+     */
+    private final Object value;
+
+    protected StreamSignal(String identifier, String kind, long count, Object value) {
+        super(identifier);
+        this.kind = kind;
+        this.count = count;
+        this.value = value;
+    }
+
+    protected StreamSignal(JSONObject obj, Communication communication) throws JSONException {
+        super(obj, communication);
+        this.kind = obj.getString(Communication.StreamSignal.KIND);
+        this.count = obj.optLong(Communication.StreamSignal.COUNT, 0);
+        this.value = obj.has(Communication.StreamSignal.VALUE)
+                ? communication.parseValue(obj.getJSONObject(Communication.StreamSignal.VALUE)) : null;
+    }
+
+    public String getKind() {
+        return this.kind;
+    }
+
+    /**
+     * Get the number of items that is demanded.
+     *
+     * @return The demanded number of items, or 0 if this is not a DEMAND signal.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Get the item or the exception of this signal.
+     *
+     * @return The item of an ITEM signal, the exception of an ERROR signal, or null otherwise.
+     */
+    public Object getValue() {
+        return this.value;
+    }
+
+    @Override
+    public JSONObject translate(Communication communication) throws JSONException {
+        JSONObject result = super.translate(communication)
+                .put(Communication.StreamSignal.KIND, this.kind);
+        if (DEMAND.equals(this.kind))
+            result.put(Communication.StreamSignal.COUNT, this.count);
+        if (ITEM.equals(this.kind) || ERROR.equals(this.kind))
+            result.put(Communication.StreamSignal.VALUE, communication.convertValue(this.value));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Stream signal " + this.kind + " for " + this.identifier;
+    }
+}
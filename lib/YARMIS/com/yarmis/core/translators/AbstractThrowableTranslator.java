@@ -0,0 +1,251 @@
+package com.yarmis.core.translators;
+
+import com.yarmis.core.Communication;
+import com.yarmis.core.JSONTranslator;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared logic of the translators for exceptions. How much of an exception is sent is determined by {@code
+ * Communication.getStackTraceDepth()} and {@code Communication.getCauseDepth()}. Stack frames are sent as compact
+ * arrays, and causes are written inline rather than as separately translated values. The frames that a cause has in
+ * common with the exception that encloses it are not repeated, but only counted, just like {@code printStackTrace}
+ * does.
+ * <p/>
+ * On the receiving side the constructors of every exception class are resolved once into {@code MethodHandle}s, such
+ * that restoring an exception does not require any reflective lookups.
+ */
+public abstract class AbstractThrowableTranslator<T extends Throwable> implements JSONTranslator<T> {
+    private static final String MESSAGE = "message";
+    private static final String CAUSE = "cause";
+    private static final String CLASS = "class";
+    private static final String STACKTRACE = "stacktrace";
+    private static final String OMITTED = "omitted";
+    private static final String COMMON = "common";
+
+    /**
+     * The constructors of all exception classes that have been received.
+     */
+    private static final Map<Class<?>, Constructors> constructors = new ConcurrentHashMap<>();
+
+    /**
+     * The type of the exceptions that this translator restores.
+     */
+    private final Class<T> type;
+
+    protected AbstractThrowableTranslator(Class<T> type) {
+        this.type = type;
+    }
+
+    @Override
+    public JSONObject toJSON(T e, Communication communication) throws ClassCastException {
+        try {
+            return this.encode(e, communication, communication.getCauseDepth(), null);
+        } catch (JSONException ee) {
+            throw (ClassCastException) new ClassCastException("Cannot convert object to JSON").initCause(ee);
+        }
+    }
+
+    /**
+     * Encodes the given exception.
+     *
+     * @param causes    The number of causes to encode along with it.
+     * @param enclosing The stack trace of the exception of which this is the cause, if the receiver can restore that
+     *                  in full. Otherwise {@code null}.
+     */
+    private JSONObject encode(Throwable e, Communication communication, int causes, StackTraceElement[] enclosing) throws JSONException {
+        JSONObject result = new JSONObject();
+
+        if (e.getMessage() != null)
+            result.put(MESSAGE, e.getMessage());
+
+        result.put(CLASS, e.getClass().getName());
+
+        StackTraceElement[] stackTrace = e.getStackTrace();
+        int common = AbstractThrowableTranslator.framesInCommon(stackTrace, enclosing);
+        int own = stackTrace.length - common;
+        int depth = communication.getStackTraceDepth();
+        int length = depth < 0 ? own : Math.min(depth, own);
+        if (length > 0) {
+            JSONArray frames = new JSONArray();
+            for (int i = 0; i < length; ++i) {
+                StackTraceElement s = stackTrace[i];
+                frames.put(new JSONArray()
+                        .put(s.getClassName())
+                        .put(s.getMethodName())
+                        .put(s.getFileName() == null ? JSONObject.NULL : s.getFileName())
+                        .put(s.getLineNumber()));
+            }
+            result.put(STACKTRACE, frames);
+        }
+        if (length < own)
+            result.put(OMITTED, stackTrace.length - length);
+        else if (common > 0)
+            result.put(COMMON, common);
+
+        // A negative depth means that there is no limit
+        if (e.getCause() != null && e.getCause() != e && causes != 0)
+            result.put(CAUSE, this.encode(e.getCause(), communication, causes - 1, length < own ? null : stackTrace));
+
+        return result;
+    }
+
+    /**
+     * Counts the frames at the bottom of the given stack trace that are the same as those of the enclosing trace.
+     */
+    private static int framesInCommon(StackTraceElement[] stackTrace, StackTraceElement[] enclosing) {
+        if (enclosing == null)
+            return 0;
+        int i = stackTrace.length - 1;
+        int j = enclosing.length - 1;
+        while (i >= 0 && j >= 0 && stackTrace[i].equals(enclosing[j])) {
+            --i;
+            --j;
+        }
+        return stackTrace.length - 1 - i;
+    }
+
+    @Override
+    public T fromJSON(String identifier, JSONObject o, Communication communication) throws ClassCastException {
+        Throwable e;
+        try {
+            e = this.decode(o, communication, null);
+        } catch (JSONException ee) {
+            throw (ClassCastException) new ClassCastException("Cannot convert argument to " + this.type.getSimpleName() + ".").initCause(ee);
+        }
+
+        if (!this.type.isInstance(e))
+            throw new ClassCastException("Cannot convert argument of type " + e.getClass().getName() + " to " + this.type.getSimpleName() + ".");
+        return this.type.cast(e);
+    }
+
+    private Throwable decode(JSONObject o, Communication communication, StackTraceElement[] enclosing) throws JSONException {
+        String className = o.getString(CLASS);
+        String message = o.has(MESSAGE) ? o.getString(MESSAGE) : null;
+
+        JSONArray frames = o.has(STACKTRACE) ? o.getJSONArray(STACKTRACE) : new JSONArray();
+        int common = o.has(COMMON) ? o.getInt(COMMON) : 0;
+        if (common > 0 && (enclosing == null || common > enclosing.length))
+            throw new JSONException("The enclosing stack trace has less than " + common + " frames");
+
+        StackTraceElement[] stackTrace = new StackTraceElement[frames.length() + common];
+        for (int i = 0; i < frames.length(); i++) {
+            JSONArray frame = frames.getJSONArray(i);
+            stackTrace[i] = new StackTraceElement(
+                    frame.getString(0),
+                    frame.getString(1),
+                    frame.isNull(2) ? null : frame.getString(2),
+                    frame.getInt(3));
+        }
+        // The frames in common are the last ones of the enclosing trace
+        if (common > 0)
+            System.arraycopy(enclosing, enclosing.length - common, stackTrace, frames.length(), common);
+
+        Throwable cause = o.has(CAUSE) ? this.decode(o.getJSONObject(CAUSE), communication, stackTrace) : null;
+
+        Throwable e;
+        try {
+            e = AbstractThrowableTranslator.constructorsFor(communication.getResolver().resolveClass(className, Throwable.class))
+                    .create(message, cause);
+        } catch (Throwable ee) {
+            throw (ClassCastException) new ClassCastException("Cannot convert argument of type " + className + " to " + this.type.getSimpleName() + ".").initCause(ee);
+        }
+        e.setStackTrace(stackTrace);
+        return e;
+    }
+
+    private static Constructors constructorsFor(Class<?> _class) throws ReflectiveOperationException {
+        Constructors found = AbstractThrowableTranslator.constructors.get(_class);
+        if (found == null) {
+            found = new Constructors(_class.asSubclass(Throwable.class));
+            AbstractThrowableTranslator.constructors.put(_class, found);
+        }
+        return found;
+    }
+
+    /**
+     * The public constructors of an exception class that can be used to restore an exception of that class. Every
+     * handle is {@code null} if the class lacks the accompanying constructor.
+     */
+    private static final class Constructors {
+
+        /**
+         * Handle of type {@code (String,Throwable)Throwable}
+         */
+        private final MethodHandle messageAndCause;
+
+        /**
+         * Handle of type {@code (String)Throwable}
+         */
+        private final MethodHandle message;
+
+        /**
+         * Handle of type {@code (Throwable)Throwable}
+         */
+        private final MethodHandle cause;
+
+        /**
+         * Handle of type {@code ()Throwable}
+         */
+        private final MethodHandle empty;
+
+        private Constructors(Class<? extends Throwable> _class) throws NoSuchMethodException {
+            this.messageAndCause = Constructors.find(_class, String.class, Throwable.class);
+            this.message = Constructors.find(_class, String.class);
+            this.cause = Constructors.find(_class, Throwable.class);
+            this.empty = Constructors.find(_class);
+
+            if (this.messageAndCause == null && this.message == null && this.cause == null && this.empty == null)
+                throw new NoSuchMethodException(_class.getName() + " has no constructor that can be used to restore it");
+        }
+
+        private static MethodHandle find(Class<?> _class, Class<?>... parameters) {
+            try {
+                return MethodHandles.publicLookup()
+                        .findConstructor(_class, MethodType.methodType(void.class, parameters))
+                        .asType(MethodType.methodType(Throwable.class, parameters));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Creates an exception with the given message and cause, using the constructor that fits best. If the class
+         * has no constructor that accepts the message, the message of the created exception is the one that the class
+         * gives it itself.
+         */
+        private Throwable create(String message, Throwable cause) throws Throwable {
+            Throwable e;
+            if (message != null && cause != null && this.messageAndCause != null)
+                return (Throwable) this.messageAndCause.invokeExact(message, cause);
+            else if (message != null && this.message != null)
+                e = (Throwable) this.message.invokeExact(message);
+            else if (cause != null && this.cause != null)
+                return (Throwable) this.cause.invokeExact(cause);
+            else if (this.empty != null)
+                e = (Throwable) this.empty.invokeExact();
+            else if (this.message != null)
+                e = (Throwable) this.message.invokeExact(message);
+            else if (this.messageAndCause != null)
+                return (Throwable) this.messageAndCause.invokeExact(message, cause);
+            else
+                return (Throwable) this.cause.invokeExact(cause);
+
+            if (cause != null && e.getCause() == null) {
+                try {
+                    e.initCause(cause);
+                } catch (IllegalStateException ee) {
+                    // The class has set its cause already, so keep that one.
+                }
+            }
+            return e;
+        }
+    }
+}
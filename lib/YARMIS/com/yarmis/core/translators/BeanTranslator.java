@@ -0,0 +1,181 @@
+package com.yarmis.core.translators;
+
+import com.yarmis.core.Communication;
+import com.yarmis.core.JSONTranslator;
+import org.json.JSONObject;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translates simple beans: classes with a no-argument constructor whose state is exposed through public getters with
+ * matching setters. Only properties that have both a getter and a matching setter are translated. The constructor and
+ * the setters don't need to be public, such that a class can restore its state without making it mutable for all of
+ * its users. The constructor and the accessors are resolved once into {@code MethodHandle}s when the translator is
+ * created.
+ */
+public class BeanTranslator<T> implements JSONTranslator<T> {
+
+    private final Class<T> type;
+
+    /**
+     * The names of all translated properties.
+     */
+    private final String[] names;
+
+    /**
+     * Whether the property with the same index has a primitive type, and thus can not be set to {@code null}.
+     */
+    private final boolean[] primitive;
+
+    /**
+     * The generic types of all translated properties.
+     */
+    private final Type[] propertyTypes;
+
+    /**
+     * For every property a handle of type {@code (Object)Object} that reads it.
+     */
+    private final MethodHandle[] getters;
+
+    /**
+     * For every property a handle of type {@code (Object,Object)void} that writes it.
+     */
+    private final MethodHandle[] setters;
+
+    /**
+     * A handle of type {@code ()Object} that creates a new, empty, instance.
+     */
+    private final MethodHandle constructor;
+
+    /**
+     * Creates a translator for the given bean class.
+     *
+     * @param type The class to translate.
+     * @throws IllegalAccessException If the constructor or a setter can not be made accessible.
+     * @throws NoSuchMethodException  If there is no no-argument constructor.
+     */
+    public BeanTranslator(Class<T> type) throws IllegalAccessException, NoSuchMethodException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        List<String> names = new ArrayList<>();
+        List<Class<?>> types = new ArrayList<>();
+        List<Type> propertyTypes = new ArrayList<>();
+        List<MethodHandle> getters = new ArrayList<>();
+        List<MethodHandle> setters = new ArrayList<>();
+
+        for (Method getter : type.getMethods()) {
+            String name = BeanTranslator.propertyName(getter);
+            if (name == null)
+                continue;
+
+            Method setter = BeanTranslator.findSetter(type, name, getter.getReturnType());
+            if (setter == null || Modifier.isStatic(setter.getModifiers()))
+                // Read only, so it can not be restored on the other side
+                continue;
+            setter.setAccessible(true);
+
+            names.add(Character.toLowerCase(name.charAt(0)) + name.substring(1));
+            types.add(getter.getReturnType());
+            propertyTypes.add(getter.getGenericReturnType());
+            getters.add(lookup.unreflect(getter).asType(MethodType.methodType(Object.class, Object.class)));
+            setters.add(lookup.unreflect(setter).asType(MethodType.methodType(void.class, Object.class, Object.class)));
+        }
+
+        this.type = type;
+        this.names = names.toArray(new String[names.size()]);
+        this.primitive = new boolean[this.names.length];
+        for (int i = 0; i < this.names.length; ++i)
+            this.primitive[i] = types.get(i).isPrimitive();
+        this.propertyTypes = propertyTypes.toArray(new Type[propertyTypes.size()]);
+        this.getters = getters.toArray(new MethodHandle[getters.size()]);
+        this.setters = setters.toArray(new MethodHandle[setters.size()]);
+        Constructor<T> constructor = type.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        this.constructor = lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+    }
+
+    /**
+     * Finds the setter for the given property, regardless of its accessibility.
+     *
+     * @param type      The class in which, or in whose superclasses, the setter is declared.
+     * @param name      The capitalized name of the property.
+     * @param parameter The type of the property.
+     * @return The setter, or {@code null} if there is none.
+     */
+    private static Method findSetter(Class<?> type, String name, Class<?> parameter) {
+        for (Class<?> c = type; c != null && !c.equals(Object.class); c = c.getSuperclass()) {
+            try {
+                return c.getDeclaredMethod("set" + name, parameter);
+            } catch (NoSuchMethodException e) {
+                // Maybe a superclass declares it
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the generic types of all properties that this translator translates.
+     *
+     * @return The types of the properties, in no particular order.
+     */
+    public Type[] getPropertyTypes() {
+        return this.propertyTypes.clone();
+    }
+
+    /**
+     * Determines the name of the property that the given method is a getter for.
+     *
+     * @param method The method to inspect.
+     * @return The capitalized name of the property, or {@code null} if the method is not a getter.
+     */
+    private static String propertyName(Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterTypes().length != 0
+                || method.getDeclaringClass().equals(Object.class))
+            return null;
+
+        String name = method.getName();
+        if (name.startsWith("get") && name.length() > 3 && !method.getReturnType().equals(void.class))
+            return name.substring(3);
+        else if (name.startsWith("is") && name.length() > 2 && method.getReturnType().equals(boolean.class))
+            return name.substring(2);
+        else
+            return null;
+    }
+
+    @Override
+    public JSONObject toJSON(T object, Communication c) throws ClassCastException {
+        try {
+            JSONObject result = new JSONObject();
+            for (int i = 0; i < this.names.length; ++i)
+                result.put(this.names[i], c.convertValue((Object) this.getters[i].invokeExact((Object) object)));
+            return result;
+        } catch (Throwable e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert object to JSON").initCause(e);
+        }
+    }
+
+    @Override
+    public T fromJSON(String identifier, JSONObject o, Communication c) throws ClassCastException {
+        try {
+            Object bean = (Object) this.constructor.invokeExact();
+            for (int i = 0; i < this.names.length; ++i) {
+                if (!o.has(this.names[i]))
+                    continue;
+                Object value = c.parseValue(o.getJSONObject(this.names[i]));
+                if (value != null || !this.primitive[i])
+                    this.setters[i].invokeExact(bean, value);
+            }
+            return this.type.cast(bean);
+        } catch (Throwable e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert JSON to " + this.type.getName()).initCause(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.yarmis.core.translators;
+
+import java.nio.ByteBuffer;
+
+public class ByteArrayTranslator extends PackedArrayTranslator<byte[]> {
+
+    public ByteArrayTranslator() {
+        super(Byte.BYTES);
+    }
+
+    @Override
+    protected int length(byte[] array) {
+        return array.length;
+    }
+
+    @Override
+    protected void pack(byte[] array, ByteBuffer buffer) {
+        buffer.put(array);
+    }
+
+    @Override
+    protected byte[] unpack(ByteBuffer buffer, int length) {
+        byte[] array = new byte[length];
+        buffer.get(array);
+        return array;
+    }
+}
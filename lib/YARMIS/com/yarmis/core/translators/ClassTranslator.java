@@ -22,7 +22,7 @@ public class ClassTranslator implements JSONTranslator<Class> {
     @Override
     public Class<?> fromJSON(String identifier, JSONObject o, Communication c) throws ClassCastException {
         try {
-            return Class.forName(o.getString("class name"));
+            return c.getResolver().resolveClass(o.getString("class name"), null);
         } catch (ClassNotFoundException e) {
             throw (ClassCastException) new ClassCastException("Cannot convert JSON to object").initCause(e);
         }
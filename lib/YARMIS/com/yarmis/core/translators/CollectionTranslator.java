@@ -0,0 +1,66 @@
+package com.yarmis.core.translators;
+
+import com.yarmis.core.Communication;
+import com.yarmis.core.JSONTranslator;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collection;
+
+/**
+ * Base class for translators of collections. Elements are written straight into the resulting JSONArray. The receiver
+ * creates a collection of the right size up front, from the length of that array.
+ */
+@SuppressWarnings("rawtypes")
+public abstract class CollectionTranslator<C extends Collection> implements JSONTranslator<C> {
+
+    static final String VALUES = "values";
+
+    /**
+     * Creates an empty collection that can hold the given number of elements without growing.
+     *
+     * @param size The number of elements that will be added.
+     * @return The created collection.
+     */
+    protected abstract C create(int size);
+
+    @Override
+    public JSONObject toJSON(C collection, Communication c) throws ClassCastException {
+        try {
+            JSONArray values = new JSONArray();
+            for (Object o : collection)
+                values.put(c.convertValue(o));
+
+            return new JSONObject().put(VALUES, values);
+        } catch (JSONException e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert object to JSON").initCause(e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public C fromJSON(String identifier, JSONObject o, Communication c) throws ClassCastException {
+        try {
+            JSONArray values = o.getJSONArray(VALUES);
+            int size = values.length();
+            C result = this.create(size);
+            for (int i = 0; i < size; i++)
+                result.add(c.parseValue(values.getJSONObject(i)));
+            return result;
+        } catch (JSONException e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert JSON to object").initCause(e);
+        }
+    }
+
+    /**
+     * Determines the initial capacity that a hash based collection needs to hold the given number of elements without
+     * rehashing, given the default load factor.
+     *
+     * @param size The number of elements to hold.
+     * @return The initial capacity to use.
+     */
+    static int hashCapacity(int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+}
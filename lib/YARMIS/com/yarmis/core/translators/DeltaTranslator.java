@@ -0,0 +1,60 @@
+package com.yarmis.core.translators;
+
+import com.yarmis.core.Communication;
+import com.yarmis.core.Delta;
+import com.yarmis.core.JSONTranslator;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Translates a {@code Delta}. The positions of the kept elements are written as plain numbers, only the added elements
+ * are written as values.
+ */
+public class DeltaTranslator implements JSONTranslator<Delta> {
+
+    private static final String BASE = "base";
+    private static final String VERSION = "version";
+    private static final String SOURCES = "sources";
+    private static final String ADDED = "added";
+
+    @Override
+    public JSONObject toJSON(Delta delta, Communication c) throws ClassCastException {
+        try {
+            JSONObject result = new JSONObject()
+                    .put(BASE, delta.getBase())
+                    .put(VERSION, delta.getVersion());
+
+            if (!delta.isUnchanged()) {
+                JSONArray sources = new JSONArray();
+                for (int source : delta.getSources())
+                    sources.put(source);
+                JSONArray added = new JSONArray();
+                for (Object element : delta.getAdded())
+                    added.put(c.convertValue(element));
+                result.put(SOURCES, sources).put(ADDED, added);
+            }
+            return result;
+        } catch (JSONException e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert object to JSON").initCause(e);
+        }
+    }
+
+    @Override
+    public Delta fromJSON(String identifier, JSONObject o, Communication c) throws ClassCastException {
+        try {
+            int[] sources = null;
+            Object[] added = new Object[0];
+            if (o.has(SOURCES)) {
+                JSONArray values = o.getJSONArray(SOURCES);
+                sources = new int[values.length()];
+                for (int i = 0; i < sources.length; ++i)
+                    sources[i] = values.getInt(i);
+                added = c.convertToArguments(o.getJSONArray(ADDED));
+            }
+            return new Delta(o.getLong(BASE), o.getLong(VERSION), sources, added);
+        } catch (JSONException e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert JSON to object").initCause(e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.yarmis.core.translators;
+
+import java.nio.ByteBuffer;
+
+public class DoubleArrayTranslator extends PackedArrayTranslator<double[]> {
+
+    public DoubleArrayTranslator() {
+        super(Double.BYTES);
+    }
+
+    @Override
+    protected int length(double[] array) {
+        return array.length;
+    }
+
+    @Override
+    protected void pack(double[] array, ByteBuffer buffer) {
+        buffer.asDoubleBuffer().put(array);
+    }
+
+    @Override
+    protected double[] unpack(ByteBuffer buffer, int length) {
+        double[] array = new double[length];
+        buffer.asDoubleBuffer().get(array);
+        return array;
+    }
+}
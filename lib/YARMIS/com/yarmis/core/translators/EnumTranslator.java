@@ -0,0 +1,56 @@
+package com.yarmis.core.translators;
+
+import com.yarmis.core.Communication;
+import com.yarmis.core.JSONTranslator;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Translates the constants of a single enum type. Constants are either encoded by their name, which survives
+ * reordering of the constants, or by their ordinal, which is smaller on the wire but requires both sides to declare
+ * the constants in the same order.
+ */
+public class EnumTranslator<E extends Enum<E>> implements JSONTranslator<E> {
+
+    private static final String NAME = "name";
+    private static final String ORDINAL = "ordinal";
+
+    private final Class<E> type;
+
+    /**
+     * All constants of {@code type}, indexed by their ordinal.
+     */
+    private final E[] constants;
+
+    private final boolean byOrdinal;
+
+    public EnumTranslator(Class<E> type, boolean byOrdinal) {
+        this.type = type;
+        this.constants = type.getEnumConstants();
+        this.byOrdinal = byOrdinal;
+    }
+
+    @Override
+    public JSONObject toJSON(E object, Communication c) throws ClassCastException {
+        try {
+            if (this.byOrdinal)
+                return new JSONObject().put(ORDINAL, object.ordinal());
+            else
+                return new JSONObject().put(NAME, object.name());
+        } catch (JSONException e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert object to JSON").initCause(e);
+        }
+    }
+
+    @Override
+    public E fromJSON(String identifier, JSONObject o, Communication c) throws ClassCastException {
+        try {
+            if (o.has(ORDINAL))
+                return this.constants[o.getInt(ORDINAL)];
+            else
+                return Enum.valueOf(this.type, o.getString(NAME));
+        } catch (JSONException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert JSON to " + this.type.getName()).initCause(e);
+        }
+    }
+}
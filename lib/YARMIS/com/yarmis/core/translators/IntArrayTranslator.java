@@ -0,0 +1,27 @@
+package com.yarmis.core.translators;
+
+import java.nio.ByteBuffer;
+
+public class IntArrayTranslator extends PackedArrayTranslator<int[]> {
+
+    public IntArrayTranslator() {
+        super(Integer.BYTES);
+    }
+
+    @Override
+    protected int length(int[] array) {
+        return array.length;
+    }
+
+    @Override
+    protected void pack(int[] array, ByteBuffer buffer) {
+        buffer.asIntBuffer().put(array);
+    }
+
+    @Override
+    protected int[] unpack(ByteBuffer buffer, int length) {
+        int[] array = new int[length];
+        buffer.asIntBuffer().get(array);
+        return array;
+    }
+}
@@ -0,0 +1,16 @@
+package com.yarmis.core.translators;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translates any {@code List}. Lists are restored as an {@code ArrayList}.
+ */
+@SuppressWarnings("rawtypes")
+public class ListTranslator extends CollectionTranslator<List> {
+
+    @Override
+    protected List create(int size) {
+        return new ArrayList(size);
+    }
+}
@@ -0,0 +1,27 @@
+package com.yarmis.core.translators;
+
+import java.nio.ByteBuffer;
+
+public class LongArrayTranslator extends PackedArrayTranslator<long[]> {
+
+    public LongArrayTranslator() {
+        super(Long.BYTES);
+    }
+
+    @Override
+    protected int length(long[] array) {
+        return array.length;
+    }
+
+    @Override
+    protected void pack(long[] array, ByteBuffer buffer) {
+        buffer.asLongBuffer().put(array);
+    }
+
+    @Override
+    protected long[] unpack(ByteBuffer buffer, int length) {
+        long[] array = new long[length];
+        buffer.asLongBuffer().get(array);
+        return array;
+    }
+}
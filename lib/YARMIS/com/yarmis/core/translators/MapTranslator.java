@@ -0,0 +1,51 @@
+package com.yarmis.core.translators;
+
+import com.yarmis.core.Communication;
+import com.yarmis.core.JSONTranslator;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Translates any {@code Map}. Keys and values are written alternately into a single JSONArray. Maps are restored as a
+ * {@code LinkedHashMap} of the right size, such that the iteration order of the sender is kept.
+ */
+@SuppressWarnings("rawtypes")
+public class MapTranslator implements JSONTranslator<Map> {
+
+    private static final String ENTRIES = "entries";
+
+    @Override
+    public JSONObject toJSON(Map map, Communication c) throws ClassCastException {
+        try {
+            JSONArray entries = new JSONArray();
+            for (Object o : map.entrySet()) {
+                Map.Entry entry = (Map.Entry) o;
+                entries.put(c.convertValue(entry.getKey()));
+                entries.put(c.convertValue(entry.getValue()));
+            }
+
+            return new JSONObject().put(ENTRIES, entries);
+        } catch (JSONException e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert object to JSON").initCause(e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map fromJSON(String identifier, JSONObject o, Communication c) throws ClassCastException {
+        try {
+            JSONArray entries = o.getJSONArray(ENTRIES);
+            int length = entries.length();
+            Map result = new LinkedHashMap(CollectionTranslator.hashCapacity(length / 2));
+            for (int i = 0; i + 1 < length; i += 2)
+                result.put(c.parseValue(entries.getJSONObject(i)), c.parseValue(entries.getJSONObject(i + 1)));
+            return result;
+        } catch (JSONException e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert JSON to object").initCause(e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.yarmis.core.translators;
+
+import com.yarmis.core.Communication;
+import com.yarmis.core.JSONTranslator;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Base class for translators of primitive arrays. The elements are packed into one contiguous big-endian block of
+ * bytes, which is stored as a single base64 string, instead of wrapping every element in its own value.
+ */
+public abstract class PackedArrayTranslator<T> implements JSONTranslator<T> {
+
+    private static final String LENGTH = "length";
+    private static final String DATA = "data";
+
+    /**
+     * The number of bytes that a single element occupies in the packed block.
+     */
+    private final int elementSize;
+
+    protected PackedArrayTranslator(int elementSize) {
+        this.elementSize = elementSize;
+    }
+
+    /**
+     * Get the number of elements in the given array.
+     */
+    protected abstract int length(T array);
+
+    /**
+     * Write all elements of the given array to the given buffer.
+     */
+    protected abstract void pack(T array, ByteBuffer buffer);
+
+    /**
+     * Read an array of the given length from the given buffer.
+     */
+    protected abstract T unpack(ByteBuffer buffer, int length);
+
+    @Override
+    public JSONObject toJSON(T array, Communication c) throws ClassCastException {
+        try {
+            int length = this.length(array);
+            ByteBuffer buffer = ByteBuffer.allocate(length * this.elementSize);
+            this.pack(array, buffer);
+            return new JSONObject()
+                    .put(LENGTH, length)
+                    .put(DATA, Base64.getEncoder().encodeToString(buffer.array()));
+        } catch (JSONException e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert object to JSON").initCause(e);
+        }
+    }
+
+    @Override
+    public T fromJSON(String identifier, JSONObject o, Communication c) throws ClassCastException {
+        try {
+            int length = o.getInt(LENGTH);
+            byte[] data = Base64.getDecoder().decode(o.getString(DATA));
+            if (data.length != length * this.elementSize)
+                throw new ClassCastException("Expected " + length + " elements, but received " + data.length + " bytes");
+            return this.unpack(ByteBuffer.wrap(data), length);
+        } catch (JSONException | IllegalArgumentException e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert JSON to " + identifier).initCause(e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.yarmis.core.translators;
+
+import com.yarmis.core.Communication;
+import com.yarmis.core.JSONTranslator;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+
+/**
+ * Translates instances of a record class. The accessors and the canonical constructor are resolved once into {@code
+ * MethodHandle}s when the translator is created, so translating an instance does not use reflection.
+ */
+public class RecordTranslator<T> implements JSONTranslator<T> {
+
+    private final Class<T> type;
+
+    /**
+     * The names of the record components, in declaration order.
+     */
+    private final String[] names;
+
+    /**
+     * The primitive types of the record components, or {@code null} for components of a reference type.
+     */
+    private final Class<?>[] primitives;
+
+    /**
+     * The generic types of the record components, in declaration order.
+     */
+    private final Type[] componentTypes;
+
+    /**
+     * For every component a handle of type {@code (Object)Object} that reads it from an instance.
+     */
+    private final MethodHandle[] accessors;
+
+    /**
+     * A handle of type {@code (Object[])Object} that invokes the canonical constructor.
+     */
+    private final MethodHandle constructor;
+
+    /**
+     * Creates a translator for the given record class.
+     *
+     * @param type The record class to translate.
+     * @throws IllegalAccessException If the accessors or the canonical constructor are not public.
+     * @throws NoSuchMethodException  If the canonical constructor could not be found.
+     */
+    public RecordTranslator(Class<T> type) throws IllegalAccessException, NoSuchMethodException {
+        if (!type.isRecord())
+            throw new IllegalArgumentException(type.getName() + " is not a record");
+
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        RecordComponent[] components = type.getRecordComponents();
+
+        this.type = type;
+        this.names = new String[components.length];
+        this.primitives = new Class<?>[components.length];
+        this.accessors = new MethodHandle[components.length];
+        this.componentTypes = new Type[components.length];
+        Class<?>[] parameterTypes = new Class<?>[components.length];
+
+        for (int i = 0; i < components.length; ++i) {
+            this.names[i] = components[i].getName();
+            parameterTypes[i] = components[i].getType();
+            this.componentTypes[i] = components[i].getGenericType();
+            this.primitives[i] = parameterTypes[i].isPrimitive() ? parameterTypes[i] : null;
+            this.accessors[i] = lookup.unreflect(components[i].getAccessor())
+                    .asType(MethodType.methodType(Object.class, Object.class));
+        }
+
+        this.constructor = lookup.unreflectConstructor(type.getConstructor(parameterTypes))
+                .asSpreader(Object[].class, components.length)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+
+    /**
+     * Get the generic types of all components of the record.
+     *
+     * @return The types of the components, in declaration order.
+     */
+    public Type[] getPropertyTypes() {
+        return this.componentTypes.clone();
+    }
+
+    @Override
+    public JSONObject toJSON(T object, Communication c) throws ClassCastException {
+        try {
+            JSONObject result = new JSONObject();
+            for (int i = 0; i < this.names.length; ++i)
+                result.put(this.names[i], c.convertValue((Object) this.accessors[i].invokeExact((Object) object)));
+            return result;
+        } catch (Throwable e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert object to JSON").initCause(e);
+        }
+    }
+
+    @Override
+    public T fromJSON(String identifier, JSONObject o, Communication c) throws ClassCastException {
+        try {
+            Object[] arguments = new Object[this.names.length];
+            for (int i = 0; i < this.names.length; ++i) {
+                if (o.has(this.names[i]))
+                    arguments[i] = c.parseValue(o.getJSONObject(this.names[i]));
+                if (arguments[i] == null && this.primitives[i] != null)
+                    throw new JSONException("Missing value for primitive component " + this.names[i]);
+            }
+            return this.type.cast((Object) this.constructor.invokeExact(arguments));
+        } catch (Throwable e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert JSON to " + this.type.getName()).initCause(e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.yarmis.core.translators;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Translates any {@code Set}. Sets are restored as a {@code LinkedHashSet}, such that the iteration order of the
+ * sender is kept.
+ */
+@SuppressWarnings("rawtypes")
+public class SetTranslator extends CollectionTranslator<Set> {
+
+    @Override
+    protected Set create(int size) {
+        return new LinkedHashSet(CollectionTranslator.hashCapacity(size));
+    }
+}
@@ -0,0 +1,39 @@
+package com.yarmis.core.translators;
+
+import com.yarmis.core.Communication;
+import com.yarmis.core.JSONTranslator;
+import com.yarmis.core.Versioned;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Translates a {@code Versioned}. The value is only written if it was modified.
+ */
+public class VersionedTranslator implements JSONTranslator<Versioned> {
+
+    private static final String VERSION = "version";
+    private static final String VALUE = "value";
+
+    @Override
+    public JSONObject toJSON(Versioned versioned, Communication c) throws ClassCastException {
+        try {
+            JSONObject result = new JSONObject().put(VERSION, versioned.getVersion());
+            if (versioned.isModified())
+                result.put(VALUE, c.convertValue(versioned.getValue()));
+            return result;
+        } catch (JSONException e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert object to JSON").initCause(e);
+        }
+    }
+
+    @Override
+    public Versioned fromJSON(String identifier, JSONObject o, Communication c) throws ClassCastException {
+        try {
+            if (!o.has(VALUE))
+                return new Versioned(o.getLong(VERSION), false, null);
+            return new Versioned(o.getLong(VERSION), true, c.parseValue(o.getJSONObject(VALUE)));
+        } catch (JSONException e) {
+            throw (ClassCastException) new ClassCastException("Cannot convert JSON to object").initCause(e);
+        }
+    }
+}
@@ -1,18 +1,58 @@
 package com.knoop.casey;
 
+import java.util.Objects;
+
 /**
  * Created by Maurice on 26-12-2015.
  */
 public class Device {
 
-    protected final String identifier;
+    protected String identifier;
 
     /**
      * The connectable item that connects this Device to the power grid.
      */
     protected Connectable connectable;
 
+    /**
+     * Creates an empty Device. This is only used to restore a Device that was received from elsewhere, which is why
+     * it and the setters are not public: the identifier of a Device never changes once it is in use.
+     */
+    Device() {
+    }
+
     Device(String identifier) {
         this.identifier = identifier;
     }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    void setIdentifier(String identifier) {
+        this.identifier = identifier;
+    }
+
+    public Connectable getConnectable() {
+        return connectable;
+    }
+
+    void setConnectable(Connectable connectable) {
+        this.connectable = connectable;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof Device))
+            return false;
+
+        return Objects.equals(this.identifier, ((Device) o).identifier);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(this.identifier);
+    }
 }
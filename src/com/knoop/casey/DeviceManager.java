@@ -1,63 +1,96 @@
 package com.knoop.casey;
 
 import com.knoop.casey.modules.DeviceManagerModule;
+import com.yarmis.core.Module;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * Created by Maurice on 23-12-2015.
  */
 public class DeviceManager implements DeviceManagerModule {
 
-    private Set<Device> devices = new HashSet<>();
+    /**
+     * All known devices, keyed by their identifier. This map and the counter are only used while holding the lock of
+     * this DeviceManager.
+     */
+    private final Map<String, Device> devices = new HashMap<>();
 
     private int counter = 0;
 
     private Casey casey;
 
+    /**
+     * The module through which this DeviceManager is available, or null if it isn't.
+     */
+    private Module<?> module;
+
     DeviceManager(Casey casey) {
         this.casey = casey;
-        this.casey.yarmis.modules().createModule(this, DeviceManagerModule.class);
+        this.module = (Module<?>) this.casey.yarmis.modules().createModule(this, DeviceManagerModule.class);
+    }
+
+    /**
+     * Creates a DeviceManager that is not available as a module.
+     */
+    DeviceManager() {
     }
 
 
-    private synchronized String createIdentifier() {
-        return "device" + counter++;
+    /**
+     * Creates the identifier of a new device. This must be called while holding the lock of this DeviceManager.
+     */
+    private String createIdentifier() {
+        return "device" + this.counter++;
     }
 
     @Override
     public Device makeDevice() {
-        String identifier = this.createIdentifier();
-        Device device = new Device(identifier);
-        this.devices.add(device);
-
+        Device device;
+        synchronized (this) {
+            String identifier = this.createIdentifier();
+            device = new Device(identifier);
+            this.devices.put(identifier, device);
+        }
+
+        this.invalidate();
         return device;
     }
 
     @Override
-    public List<Device> getDevices() {
-        return new ArrayList<>(this.devices);
+    public synchronized List<Device> getDevices() {
+        return new ArrayList<>(this.devices.values());
     }
 
-    public Device getDevice(String identifier) {
-        return (Device) casey.yarmis.modules().getModule(identifier);
+    public synchronized Device getDevice(String identifier) {
+        return this.devices.get(identifier);
     }
 
-    public boolean exists(String identifier) {
-        return this.devices.contains(identifier);
+    public synchronized boolean exists(String identifier) {
+        return this.devices.containsKey(identifier);
     }
 
 
     @Override
     public boolean removeDevice(String identifier) {
-        if (!this.exists(identifier))
-            return false;
+        synchronized (this) {
+            if (this.devices.remove(identifier) == null)
+                return false;
+        }
 
-        this.devices.remove(identifier);
-        casey.yarmis.modules().unregister(casey.yarmis.modules().getModule(identifier));
+        this.invalidate();
         return true;
     }
+
+    /**
+     * Tells the clients that the devices changed, such that they don't use the results they cached anymore. This is
+     * done without holding the lock, as the clients are told over the network.
+     */
+    private void invalidate() {
+        if (this.module != null)
+            this.module.invalidate();
+    }
 }
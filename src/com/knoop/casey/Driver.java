@@ -1,11 +1,13 @@
 package com.knoop.casey;
 
 import com.knoop.casey.exceptions.FailedCommandExecution;
+import com.yarmis.core.Deadline;
 import com.yarmis.core.exceptions.FailedExecutionException;
 import com.yarmis.core.logging.Log;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by Maurice on 24-12-2015.
@@ -13,24 +15,54 @@ import java.io.IOException;
 public class Driver {
 
     /**
-     * Starts a new process in which TestServer is executed.
+     * The maximum number of milliseconds a command may take before it is considered to hang. Commands that are run for
+     * a request are given less if the request has less time left, see {@code runCommand}.
+     */
+    public static final long TIMEOUT = 8000;
+
+    /**
+     * The number of milliseconds that is left for a failure to reach the caller, when a command is run for a request.
+     */
+    private static final long MARGIN = 500;
+
+    /**
+     * Runs the given command and waits for it to finish. When this is done while executing a request, the command is
+     * given at most the time that is left for that request.
      *
-     * @return The exit value of running the command
-     * @throws IOException
-     * @throws InterruptedException
+     * @param command The command to run.
+     * @throws FailedCommandExecution If the command could not be started, if it didn't finish in time or if it
+     *                                finished with an unexpected exit value.
      */
     public static void runCommand(Command command) {
 
+        long timeout = Math.min(TIMEOUT, Deadline.remaining() - MARGIN);
+        if (timeout <= 0)
+            throw new FailedCommandExecution("No time is left to run command: " + command.format());
+
         File location = new File("lib/lights");
         Log.d("Driver", "Running command: " + command.format());
         ProcessBuilder builder = new ProcessBuilder("bash", "-c", location.getPath() + "/" + command.format());
         builder.inheritIO();
         builder.redirectErrorStream(true);
+        Process process;
+        try{
+            process = builder.start();
+        } catch (IOException e) {
+            throw new FailedCommandExecution("Could not start command: " + command.format(), e);
+        }
+
         int result = -1;
         try{
-            result = builder.start().waitFor();
-        } catch (InterruptedException | IOException e) {
-            throw (FailedCommandExecution) new FailedCommandExecution().initCause(e);
+            if (!process.waitFor(timeout, TimeUnit.MILLISECONDS)) {
+                process.destroy();
+                throw new FailedCommandExecution("Command timed out after " + timeout + " ms: " + command.format());
+            }
+            result = process.exitValue();
+        } catch (InterruptedException e) {
+            // The caller is no longer interested, so don't leave the command running
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new FailedCommandExecution("Command was interrupted: " + command.format(), e);
         }
 
         if(result != 0)
@@ -9,6 +9,16 @@ public class FailedCommandExecution extends RuntimeException {
 
     }
 
+    public FailedCommandExecution(String message) {
+        super(message);
+
+    }
+
+    public FailedCommandExecution(String message, Throwable cause) {
+        super(message, cause);
+
+    }
+
     public FailedCommandExecution(int result) {
         super("Executed command resulted in unexpected value " + result);
 
@@ -1,7 +1,10 @@
 package com.knoop.casey.modules;
 
 import com.knoop.casey.Device;
+import com.yarmis.core.annotations.Cacheable;
 import com.yarmis.core.annotations.DemandRights;
+import com.yarmis.core.annotations.Delta;
+import com.yarmis.core.annotations.Idempotent;
 
 import java.util.List;
 
@@ -13,9 +16,12 @@ public interface DeviceManagerModule {
     @DemandRights("register_devices")
     Device makeDevice();
 
+    @Delta
     @DemandRights("see_devices")
     List<Device> getDevices();
 
+    @Idempotent
+    @Cacheable(1000)
     @DemandRights("see_devices")
     boolean exists(String identifier);
 
@@ -0,0 +1,60 @@
+package com.knoop.casey;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class DeviceManagerTest {
+
+    private final DeviceManager manager = new DeviceManager();
+
+    @Test
+    public void madeDevicesExist() {
+        Device device = this.manager.makeDevice();
+
+        assertTrue(this.manager.exists(device.getIdentifier()));
+        assertEquals(device, this.manager.getDevice(device.getIdentifier()));
+        assertTrue(this.manager.getDevices().contains(device));
+    }
+
+    @Test
+    public void removedDevicesNoLongerExist() {
+        Device device = this.manager.makeDevice();
+
+        assertTrue(this.manager.removeDevice(device.getIdentifier()));
+        assertFalse(this.manager.exists(device.getIdentifier()));
+        assertNull(this.manager.getDevice(device.getIdentifier()));
+        assertFalse(this.manager.removeDevice(device.getIdentifier()));
+    }
+
+    @Test
+    public void concurrentChangesAreAllMade() throws InterruptedException {
+        final Set<String> identifiers = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; ++i) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 500; ++j) {
+                        String identifier = DeviceManagerTest.this.manager.makeDevice().getIdentifier();
+                        identifiers.add(identifier);
+                        assertTrue(DeviceManagerTest.this.manager.removeDevice(identifier));
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(8 * 500, identifiers.size());
+        assertTrue(this.manager.getDevices().isEmpty());
+    }
+}
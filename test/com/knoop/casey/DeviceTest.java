@@ -0,0 +1,27 @@
+package com.knoop.casey;
+
+import com.yarmis.core.Communication;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DeviceTest {
+
+    private final Communication communication = new Communication(null);
+
+    @Test
+    public void devicesAreRestoredWithTheirIdentifier() {
+        this.communication.ensureTranslatable(Device.class);
+        Device device = new Device("device0");
+        device.setConnectable(new Socket("socket0"));
+
+        JSONObject json = this.communication.convertValue(device);
+        Device copy = (Device) this.communication.parseValue(new JSONObject(json.toString()));
+
+        assertEquals(device, copy);
+        assertNotSame(device, copy);
+        // A Socket can't be restored by itself, so it is only known as the Connectable that the property declares.
+        assertEquals(Connectable.class, copy.getConnectable().getClass());
+    }
+}
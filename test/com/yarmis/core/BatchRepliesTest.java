@@ -0,0 +1,116 @@
+package com.yarmis.core;
+
+import com.yarmis.core.annotations.DemandRights;
+import com.yarmis.core.messages.Message;
+import com.yarmis.core.messages.Request;
+import com.yarmis.core.messages.Response;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+import static org.junit.Assert.*;
+
+public class BatchRepliesTest {
+
+    public interface Target {
+        @DemandRights("target")
+        int value();
+
+        @DemandRights("target")
+        Flow.Publisher<String> items();
+    }
+
+    private final CommunicationManager manager = new CommunicationManager(null);
+
+    /**
+     * Replies that answer every publisher on its own, and remember what they sent.
+     */
+    private static class Recording extends BatchReplies {
+
+        private final List<Request> separate = new ArrayList<>();
+
+        private final List<List<Response>> sent = new ArrayList<>();
+
+        /**
+         * What the responses held while they were sent, as "identifier=value".
+         */
+        private final List<String> contents = new ArrayList<>();
+
+        private Recording(List<Request> requests, boolean recycling) {
+            super(requests, recycling);
+        }
+
+        @Override
+        protected boolean answerSeparately(Request request, Object value, boolean success) {
+            if (!(success && value instanceof Flow.Publisher))
+                return false;
+            this.separate.add(request);
+            return true;
+        }
+
+        @Override
+        protected void send(List<Response> responses) {
+            this.sent.add(responses);
+            for (Response response : responses)
+                this.contents.add(response.getIdentifier() + "=" + response.value());
+        }
+    }
+
+    private static Request request(String identifier, String name) throws Exception {
+        MethodTable table = MethodTable.of(Target.class);
+        Method method = Target.class.getMethod(name);
+        return Message.makeRequest(identifier, "target", table.identify(method), table.getFingerprint(), method,
+                new Object[0]);
+    }
+
+    @Test
+    public void streamsInABatchAreAnsweredOnTheirOwn() throws Exception {
+        Request value = request("1", "value"), items = request("2", "items"), late = request("3", "value");
+        Recording replies = new Recording(Arrays.asList(value, items, late), false);
+
+        replies.complete(1, new SubmissionPublisher<String>(), true);
+        replies.complete(0, 42, true);
+        assertTrue(replies.sent.isEmpty());
+        replies.skip(2);
+
+        assertEquals(Arrays.asList(items), replies.separate);
+        assertEquals(1, replies.sent.size());
+        assertEquals(Arrays.asList("1=42"), replies.contents);
+    }
+
+    @Test
+    public void recycledResponsesAreReturnedOnceSent() throws Exception {
+        Recording replies = new Recording(Arrays.asList(request("1", "value"), request("2", "value")), true);
+        replies.complete(0, 1, true);
+        replies.complete(1, 2, true);
+
+        assertEquals(Arrays.asList("1=1", "2=2"), replies.contents);
+        try {
+            replies.sent.get(0).get(0).value();
+            fail("The responses should have been recycled after they were sent");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void nothingIsSentIfNoRequestIsLeftToAnswer() throws Exception {
+        Recording replies = new Recording(Arrays.asList(request("1", "items"), request("2", "value")), false);
+        replies.complete(0, new SubmissionPublisher<String>(), true);
+        replies.skip(1);
+
+        assertTrue(replies.sent.isEmpty());
+    }
+
+    @Test
+    public void smallValuesAndFailuresAreNotAnsweredSeparately() throws Exception {
+        Request request = request("1", "value");
+        assertFalse(this.manager.answerSeparately(request, null, 42, true));
+        assertFalse(this.manager.answerSeparately(request, null, new IllegalStateException("failed"), false));
+    }
+}
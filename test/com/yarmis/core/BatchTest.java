@@ -0,0 +1,91 @@
+package com.yarmis.core;
+
+import com.yarmis.core.annotations.DemandRights;
+import com.yarmis.core.annotations.Delta;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchTest {
+
+    public interface Target {
+        @DemandRights("target")
+        int first();
+
+        @DemandRights("target")
+        String second(String value);
+
+        @DemandRights("target")
+        @Delta
+        List<String> changes();
+    }
+
+    private final CommunicationManager manager = new CommunicationManager(null);
+
+    private static Method method(String name, Class<?>... types) throws Exception {
+        return Target.class.getMethod(name, types);
+    }
+
+    @Test
+    public void batchesAreOpenUntilClosed() {
+        assertNull(Batch.current());
+        try (Batch outer = this.manager.batch()) {
+            assertSame(outer, Batch.current());
+            Batch inner = this.manager.batch();
+            assertSame(inner, Batch.current());
+            inner.close();
+            assertSame(outer, Batch.current());
+        }
+        assertNull(Batch.current());
+    }
+
+    @Test
+    public void requestsAreOutstandingOnceAdded() throws Exception {
+        Batch batch = this.manager.batch();
+        try {
+            batch.request("target", method("first"));
+            batch.request("target", method("second", String.class), "value");
+            assertEquals(2, batch.size());
+            assertEquals(2, this.manager.getPendingRequests());
+        } finally {
+            try {
+                batch.close();
+            } catch (RuntimeException e) {
+                // There is no host to send it to
+            }
+        }
+    }
+
+    @Test
+    public void requestsOfUnsentBatchesAreForgotten() throws Exception {
+        Batch batch = this.manager.batch();
+        batch.request("target", method("first"));
+        batch.request("target", method("second", String.class), "value");
+        try {
+            batch.send();
+            fail("There is no host to send the batch to");
+        } catch (RuntimeException e) {
+            assertEquals(0, this.manager.getPendingRequests());
+        } finally {
+            batch.close();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void sentBatchesCanNotGrow() throws Exception {
+        try (Batch batch = this.manager.batch()) {
+            batch.send();
+            batch.request("target", method("first"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void deltasAreNotBatched() throws Exception {
+        try (Batch batch = this.manager.batch()) {
+            batch.request("target", method("changes"));
+        }
+    }
+}
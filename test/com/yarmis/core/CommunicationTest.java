@@ -0,0 +1,105 @@
+package com.yarmis.core;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class CommunicationTest {
+
+    private final Communication communication = new Communication(null);
+
+    private Object roundTrip(Object value) {
+        JSONObject json = this.communication.convertValue(value);
+        return this.communication.parseValue(new JSONObject(json.toString()));
+    }
+
+    @Test
+    public void repeatedValuesAreWrittenInFullByDefault() {
+        List<Object> shared = new ArrayList<>(Arrays.asList(1, 2));
+        List<?> copy = (List<?>) this.roundTrip(Arrays.asList(shared, shared));
+
+        assertEquals(copy.get(0), copy.get(1));
+        assertNotSame(copy.get(0), copy.get(1));
+    }
+
+    @Test
+    public void repeatedObjectsAreSharedWhenEnabled() {
+        this.communication.setShareReferences(true);
+        List<Object> shared = new ArrayList<>(Arrays.asList(1, 2));
+        List<?> copy = (List<?>) this.roundTrip(Arrays.asList(shared, shared, new ArrayList<>(shared)));
+
+        assertEquals(shared, copy.get(0));
+        assertSame(copy.get(0), copy.get(1));
+        assertNotSame(copy.get(0), copy.get(2));
+    }
+
+    @Test
+    public void repeatedStringsAreWrittenOnce() {
+        this.communication.setShareReferences(true);
+        String text = "a string that repeats";
+        JSONObject json = this.communication.convertValue(Arrays.asList(text, new String(text), "short", "short"));
+
+        String encoded = json.toString();
+        assertEquals(encoded.indexOf(text), encoded.lastIndexOf(text));
+        assertEquals(Arrays.asList(text, text, "short", "short"), this.communication.parseValue(new JSONObject(encoded)));
+    }
+
+    @Test
+    public void argumentsShareTheirReferences() {
+        this.communication.setShareReferences(true);
+        List<Object> shared = new ArrayList<>(Arrays.asList("x"));
+        JSONArray json = this.communication.convertArguments(new Object[]{shared, shared}, new Class<?>[]{List.class, List.class});
+
+        Object[] copy = this.communication.convertToArguments(new JSONArray(json.toString()), new Class<?>[2]);
+        assertSame(copy[0], copy[1]);
+    }
+
+    @Test
+    public void referencesDoNotOutliveTheirValue() {
+        this.communication.setShareReferences(true);
+        List<Object> shared = new ArrayList<>(Arrays.asList(1, 2));
+        JSONObject json = this.communication.convertValue(Arrays.asList(shared, shared));
+        JSONObject reference = json.getJSONObject(Communication.Value.VALUE).getJSONArray("values").getJSONObject(1);
+        assertTrue(reference.has(Communication.Value.REFERENCE));
+
+        assertNotNull(this.communication.parseValue(new JSONObject(json.toString())));
+        try {
+            this.communication.parseValue(new JSONObject(reference.toString()));
+            fail("A reference was resolved to a value of an earlier scope");
+        } catch (JSONException e) {
+            // This is expected, as every value starts out without references
+        }
+    }
+
+    @Test
+    public void identifiersAreUniqueAcrossThreads() throws Exception {
+        final Communication communication = new Communication(null);
+        final Set<String> identifiers = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        final int threads = 8, count = 1000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; ++t) {
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < count; ++i)
+                        identifiers.add(communication.getIdentifier());
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers)
+            worker.join();
+
+        assertEquals(threads * count, identifiers.size());
+    }
+}
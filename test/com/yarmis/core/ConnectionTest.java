@@ -0,0 +1,42 @@
+package com.yarmis.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class ConnectionTest {
+
+    private static DataInputStream frame(int length, int available) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(length);
+        out.write(new byte[available]);
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Test
+    public void framesUpToTheMaximumAreRead() throws IOException {
+        assertEquals(16, Connection.readFrame(frame(16, 16), 16).length);
+    }
+
+    @Test
+    public void largerFramesAreRefusedBeforeTheyAreAllocated() throws IOException {
+        try {
+            Connection.readFrame(frame(Integer.MAX_VALUE, 0), 16);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("exceeds the maximum"));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void negativeLengthsAreRefused() throws IOException {
+        Connection.readFrame(frame(-1, 0), 16);
+    }
+}
@@ -0,0 +1,71 @@
+package com.yarmis.core;
+
+import com.yarmis.core.annotations.Timeout;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.*;
+
+public class DeadlineTest {
+
+    public interface Target {
+        void plain();
+
+        @Timeout(2500)
+        void annotated();
+    }
+
+    private static Method method(String name) throws Exception {
+        return Target.class.getMethod(name);
+    }
+
+    @Test
+    public void methodsUseTheDefaultOrTheirAnnotatedTimeout() throws Exception {
+        assertEquals(ResultHandler.TIMEOUT, Deadline.timeoutFor(method("plain")));
+        assertEquals(2500, Deadline.timeoutFor(method("annotated")));
+    }
+
+    @Test
+    public void callsCanOverrideTheTimeout() throws Exception {
+        Deadline.Scope outer = Deadline.withTimeout(300);
+        try {
+            assertEquals(300, Deadline.timeoutFor(method("annotated")));
+            Deadline.Scope inner = Deadline.withTimeout(100);
+            try {
+                assertEquals(100, Deadline.timeoutFor(method("plain")));
+            } finally {
+                inner.close();
+            }
+            assertEquals(300, Deadline.timeoutFor(method("plain")));
+        } finally {
+            outer.close();
+        }
+        assertEquals(2500, Deadline.timeoutFor(method("annotated")));
+    }
+
+    @Test
+    public void requestsThatAreExecutedKnowTheirRemainingTime() throws Exception {
+        assertEquals(Long.MAX_VALUE, Deadline.remaining());
+        assertFalse(Deadline.isExpired());
+
+        Deadline.Scope scope = Deadline.enter(System.currentTimeMillis() + 1000);
+        try {
+            long remaining = Deadline.remaining();
+            assertTrue(remaining > 0 && remaining <= 1000);
+            // Calls made while executing the request don't wait longer than its caller
+            assertTrue(Deadline.timeoutFor(method("annotated")) <= 1000);
+        } finally {
+            scope.close();
+        }
+
+        scope = Deadline.enter(System.currentTimeMillis() - 1);
+        try {
+            assertTrue(Deadline.isExpired());
+            assertEquals(1, Deadline.timeoutFor(method("plain")));
+        } finally {
+            scope.close();
+        }
+        assertEquals(Long.MAX_VALUE, Deadline.remaining());
+    }
+}
@@ -0,0 +1,96 @@
+package com.yarmis.core;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DeltaTrackerTest {
+
+    private final Communication communication = new Communication(null);
+
+    private final DeltaTracker tracker = new DeltaTracker();
+
+    /**
+     * Sends the given Delta through JSON, as the requester would receive it.
+     */
+    private Delta receive(Delta delta) {
+        return (Delta) this.communication.parseValue(new JSONObject(this.communication.convertValue(delta).toString()));
+    }
+
+    @Test
+    public void theFirstResultIsSentInFull() {
+        Delta delta = this.receive(this.tracker.update("call", Arrays.asList("a", "b"), Delta.NO_VERSION, this.communication));
+
+        assertEquals(Delta.NO_VERSION, delta.getBase());
+        assertEquals(Arrays.<Object>asList("a", "b"), delta.apply(Delta.NO_VERSION, null));
+    }
+
+    @Test
+    public void unchangedResultsAreNotSent() {
+        Delta first = this.tracker.update("call", Arrays.asList("a", "b"), Delta.NO_VERSION, this.communication);
+        Delta second = this.receive(this.tracker.update("call", Arrays.asList("a", "b"), first.getVersion(), this.communication));
+
+        assertTrue(second.isUnchanged());
+        assertEquals(first.getVersion(), second.getVersion());
+        List<Object> held = Arrays.<Object>asList("a", "b");
+        assertSame(held, second.apply(first.getVersion(), held));
+    }
+
+    @Test
+    public void onlyNewElementsAreSent() {
+        Delta first = this.tracker.update("call", Arrays.asList("a", "b", "c"), Delta.NO_VERSION, this.communication);
+        List<Object> held = first.apply(Delta.NO_VERSION, null);
+
+        Delta second = this.receive(this.tracker.update("call", Arrays.asList("c", "d", "a"), first.getVersion(), this.communication));
+        assertArrayEquals(new Object[]{"d"}, second.getAdded());
+        assertEquals(Arrays.<Object>asList("c", "d", "a"), second.apply(first.getVersion(), held));
+        assertSame(held.get(0), second.apply(first.getVersion(), held).get(2));
+    }
+
+    @Test
+    public void staleVersionsGetEverything() {
+        Delta first = this.tracker.update("call", Arrays.asList("a"), Delta.NO_VERSION, this.communication);
+        this.tracker.update("call", Arrays.asList("b"), first.getVersion(), this.communication);
+
+        Delta third = this.tracker.update("call", Arrays.asList("c"), first.getVersion(), this.communication);
+        assertEquals(Delta.NO_VERSION, third.getBase());
+        assertEquals(Arrays.<Object>asList("c"), third.apply(first.getVersion(), Arrays.<Object>asList("a")));
+    }
+
+    @Test
+    public void deltasAreNotAppliedToOtherVersions() {
+        Delta first = this.tracker.update("call", Arrays.asList("a"), Delta.NO_VERSION, this.communication);
+        Delta second = this.tracker.update("call", Arrays.asList("a", "b"), first.getVersion(), this.communication);
+
+        assertNull(second.apply(first.getVersion() + 1000, Arrays.<Object>asList("a")));
+        assertNull(second.apply(Delta.NO_VERSION, null));
+    }
+
+    @Test
+    public void callsAreTrackedSeparately() {
+        Delta first = this.tracker.update("one", Arrays.asList("a"), Delta.NO_VERSION, this.communication);
+        Delta other = this.tracker.update("two", Arrays.asList("a"), first.getVersion(), this.communication);
+
+        assertEquals(Delta.NO_VERSION, other.getBase());
+        assertNotEquals(first.getVersion(), other.getVersion());
+    }
+
+    @Test
+    public void callsAreKeyedOnTheirArguments() {
+        Object[] arguments = {"kitchen", Arrays.asList(1, 2)};
+        DeltaTracker.Call call = new DeltaTracker.Call("devices", 3, arguments);
+
+        // Reusing the array of arguments does not change the call
+        arguments[0] = "hall";
+        assertEquals(call, new DeltaTracker.Call("devices", 3, new Object[]{"kitchen", Arrays.asList(1, 2)}));
+        assertEquals(call.hashCode(), new DeltaTracker.Call("devices", 3, new Object[]{"kitchen", Arrays.asList(1, 2)}).hashCode());
+
+        assertNotEquals(call, new DeltaTracker.Call("devices", 3, arguments));
+        assertNotEquals(call, new DeltaTracker.Call("devices", 4, new Object[]{"kitchen", Arrays.asList(1, 2)}));
+        assertNotEquals(call, new DeltaTracker.Call("rooms", 3, new Object[]{"kitchen", Arrays.asList(1, 2)}));
+    }
+}
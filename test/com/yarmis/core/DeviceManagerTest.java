@@ -0,0 +1,50 @@
+package com.yarmis.core;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.net.InetAddress;
+
+import static org.junit.Assert.*;
+
+public class DeviceManagerTest {
+
+    @Test
+    public void devicesAreCanonical() throws Exception {
+        Device device = DeviceManager.createDevice("lamp", "127.0.0.1");
+
+        assertSame(device, DeviceManager.createDevice("lamp", InetAddress.getByName("127.0.0.1")));
+        assertSame(device, Device.fromJSON(device.toJSON()));
+        assertNotSame(device, DeviceManager.createDevice("other", "127.0.0.1"));
+    }
+
+    @Test
+    public void equalDevicesMatchTheSameEntries() throws Exception {
+        Device device = new Device(InetAddress.getByName("127.0.0.2"), "lamp");
+        Device same = new Device(InetAddress.getByName("127.0.0.2"), "lamp");
+
+        assertEquals(device, same);
+        assertEquals(device.hashCode(), same.hashCode());
+        assertNotEquals(device, new Device(InetAddress.getByName("127.0.0.3"), "lamp"));
+    }
+
+    @Test
+    public void addressesAreResolvedOnce() {
+        assertSame(DeviceManager.resolve("127.0.0.4"), DeviceManager.resolve("127.0.0.4"));
+    }
+
+    @Test
+    public void permissionsArePopulatedForCanonicalDevices() throws Exception {
+        JSONArray entries = new JSONArray();
+        for (int i = 1; i <= 20; ++i)
+            entries.put(new JSONObject()
+                    .put("device", DeviceManager.createDevice("device" + i, "10.0.0." + i).toJSON())
+                    .put("permissions", new JSONArray().put("see_devices")));
+
+        PermissionRepository repository = new PermissionRepository(entries);
+
+        assertTrue(repository.isKnown(DeviceManager.createDevice("device7", "10.0.0.7")));
+        assertEquals(1, repository.getPermissions(new Device(InetAddress.getByName("10.0.0.20"), "device20")).size());
+    }
+}
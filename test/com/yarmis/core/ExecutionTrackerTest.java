@@ -0,0 +1,80 @@
+package com.yarmis.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ExecutionTrackerTest {
+
+    private final ExecutionTracker tracker = new ExecutionTracker();
+
+    @Test
+    public void requestsCancelledBeforeTheyStartAreSkipped() {
+        this.tracker.cancel(null, "early");
+        assertNull(this.tracker.start(null, "early"));
+        assertEquals(0, this.tracker.size());
+    }
+
+    @Test
+    public void finishedRequestsAreForgotten() {
+        ExecutionTracker.Execution execution = this.tracker.start(null, "done");
+        assertNotNull(execution);
+        assertEquals(1, this.tracker.size());
+
+        execution.returned(42);
+        assertEquals(0, this.tracker.size());
+        assertFalse(execution.isCancelled());
+    }
+
+    @Test
+    public void runningRequestsAreInterrupted() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                ExecutionTracker.Execution execution = ExecutionTrackerTest.this.tracker.start(null, "running");
+                started.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                execution.returned(null);
+            }
+        });
+        thread.start();
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        this.tracker.cancel(null, "running");
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        thread.join(5000);
+        assertEquals(0, this.tracker.size());
+    }
+
+    @Test
+    public void interruptsDoNotOutliveTheRequest() {
+        ExecutionTracker.Execution execution = this.tracker.start(null, "late");
+        this.tracker.cancel(null, "late");
+        execution.returned(null);
+        assertTrue(execution.isCancelled());
+        assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void pendingResultsOfAsynchronousRequestsAreCancelled() {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        ExecutionTracker.Execution execution = this.tracker.start(null, "async");
+        execution.returned(future);
+        assertEquals(1, this.tracker.size());
+
+        this.tracker.cancel(null, "async");
+        assertTrue(future.isCancelled());
+        execution.done();
+        assertEquals(0, this.tracker.size());
+    }
+}
@@ -0,0 +1,33 @@
+package com.yarmis.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyTrackerTest {
+
+    @Test
+    public void percentilesNeedEnoughSamples() {
+        LatencyTracker tracker = new LatencyTracker(100);
+        for (int i = 1; i < LatencyTracker.MIN_SAMPLES; ++i)
+            tracker.record(i);
+        assertEquals(-1, tracker.percentile(50));
+
+        tracker.record(LatencyTracker.MIN_SAMPLES);
+        assertEquals(10, tracker.percentile(50));
+    }
+
+    @Test
+    public void percentilesAreOfTheRecentSamples() {
+        LatencyTracker tracker = new LatencyTracker(100);
+        for (int i = 1; i <= 100; ++i)
+            tracker.record(i);
+        assertEquals(95, tracker.percentile(95));
+        assertEquals(100, tracker.percentile(100));
+
+        // Older samples are replaced by newer ones
+        for (int i = 0; i < 100; ++i)
+            tracker.record(1000);
+        assertEquals(1000, tracker.percentile(1));
+    }
+}
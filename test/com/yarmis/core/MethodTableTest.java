@@ -0,0 +1,122 @@
+package com.yarmis.core;
+
+import com.yarmis.core.annotations.DemandRights;
+import com.yarmis.core.exceptions.InvalidRequestException;
+import com.yarmis.core.exceptions.UnauthorizedRequestException;
+import com.yarmis.core.messages.BinaryCodec;
+import com.yarmis.core.messages.Message;
+import com.yarmis.core.messages.RequestView;
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.*;
+
+public class MethodTableTest {
+
+    public interface Lamp {
+        @DemandRights("lamp")
+        void switchOn(int brightness);
+
+        @DemandRights("lamp")
+        void switchOff();
+
+        @DemandRights("lamp")
+        boolean isOn();
+
+        void notRemote();
+    }
+
+    public interface DimmableLamp {
+        @DemandRights("lamp")
+        void switchOn(int brightness);
+
+        @DemandRights("lamp")
+        void switchOff();
+
+        @DemandRights("lamp")
+        boolean isOn();
+
+        @DemandRights("lamp")
+        void dim(double factor);
+    }
+
+    public interface Thermostat {
+        @DemandRights("heating")
+        String describe(int target, long since, double offset, boolean eco, char unit, float margin, String room);
+    }
+
+    @Test
+    public void onlyRemoteMethodsAreIdentified() throws Exception {
+        MethodTable table = MethodTable.of(Lamp.class);
+        assertEquals(3, table.size());
+        assertEquals(-1, table.identify(Lamp.class.getMethod("notRemote")));
+        assertNull(table.get(3));
+        assertNull(table.get(-1));
+    }
+
+    @Test
+    public void identifiersFollowTheSignatures() throws Exception {
+        MethodTable table = MethodTable.of(Lamp.class);
+        for (Method method : Lamp.class.getMethods())
+            if (table.identify(method) >= 0)
+                assertEquals(method, table.get(table.identify(method)));
+
+        assertEquals(0, table.identify(Lamp.class.getMethod("isOn")));
+        assertEquals(1, table.identify(Lamp.class.getMethod("switchOff")));
+        assertEquals(2, table.identify(Lamp.class.getMethod("switchOn", int.class)));
+    }
+
+    @Test
+    public void tablesAreShared() {
+        assertSame(MethodTable.of(Lamp.class), MethodTable.of(Lamp.class));
+    }
+
+    @Test
+    public void differentDefinitionsHaveDifferentFingerprints() {
+        assertNotEquals(MethodTable.of(Lamp.class).getFingerprint(), MethodTable.of(DimmableLamp.class).getFingerprint());
+    }
+
+    @Test
+    public void requestsResolveToTheirMethod() throws Exception {
+        MethodTable table = MethodTable.of(Lamp.class);
+        Method isOn = Lamp.class.getMethod("isOn");
+        assertEquals(isOn, table.resolve(Message.makeRequest("id", "lamp", 0, table.getFingerprint(), isOn, new Object[0])));
+    }
+
+    @Test(expected = UnauthorizedRequestException.class)
+    public void unknownIdentifiersAreRejected() throws Exception {
+        MethodTable table = MethodTable.of(Lamp.class);
+        table.resolve(Message.makeRequest("id", "lamp", 3, table.getFingerprint(), Lamp.class.getMethod("isOn"), new Object[0]));
+    }
+
+    @Test(expected = InvalidRequestException.class)
+    public void otherDefinitionsAreRejected() throws Exception {
+        MethodTable table = MethodTable.of(Lamp.class);
+        Method dim = DimmableLamp.class.getMethod("dim", double.class);
+        table.resolve(Message.makeRequest("id", "lamp", MethodTable.of(DimmableLamp.class).identify(dim),
+                MethodTable.of(DimmableLamp.class).getFingerprint(), dim, new Object[]{0.5}));
+    }
+
+    @Test
+    public void adaptersPassArgumentsStraightFromTheView() throws Throwable {
+        MethodTable table = MethodTable.of(Thermostat.class);
+        Method describe = table.get(0);
+        RequestView view = (RequestView) BinaryCodec.decode(BinaryCodec.encode(Message.makeRequest("id", "thermostat",
+                0, table.getFingerprint(), describe, new Object[]{21, 5L, -0.5, true, 'C', 0.25f, "hall"})));
+
+        Thermostat thermostat = new Thermostat() {
+            @Override
+            public String describe(int target, long since, double offset, boolean eco, char unit, float margin, String room) {
+                return target + " " + since + " " + offset + " " + eco + " " + unit + " " + margin + " " + room;
+            }
+        };
+
+        MethodHandle adapter = table.adapter(0);
+        assertNotNull(adapter);
+        assertSame(adapter, table.adapter(0));
+        assertEquals("21 5 -0.5 true C 0.25 hall", (Object) adapter.invokeExact((Object) thermostat, view));
+        assertNull(table.adapter(1));
+    }
+}
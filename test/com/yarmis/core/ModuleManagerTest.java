@@ -0,0 +1,94 @@
+package com.yarmis.core;
+
+import com.yarmis.core.annotations.DemandRights;
+import com.yarmis.core.messages.BinaryCodec;
+import com.yarmis.core.messages.Message;
+import com.yarmis.core.messages.Request;
+import com.yarmis.core.messages.RequestView;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import static org.junit.Assert.*;
+
+public class ModuleManagerTest {
+
+    public interface Valve {
+        @DemandRights("valve")
+        int open(int percentage);
+    }
+
+    private final Communication communication = new Communication(null);
+
+    private final MethodTable table = MethodTable.of(Valve.class);
+
+    private final Valve valve = new Valve() {
+        @Override
+        public int open(int percentage) {
+            if (percentage > 100)
+                throw new IllegalArgumentException("Can't open beyond 100%: " + percentage);
+            return percentage;
+        }
+    };
+
+    /**
+     * A module that passes its calls on to the valve, as the module proxy of a local implementation does.
+     */
+    private final Valve module = (Valve) Proxy.newProxyInstance(Valve.class.getClassLoader(), new Class<?>[]{Valve.class},
+            new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+                    return method.invoke(ModuleManagerTest.this.valve, arguments);
+                }
+            });
+
+    private Request request(int percentage) throws NoSuchMethodException {
+        Method open = Valve.class.getMethod("open", int.class);
+        return Message.makeRequest("id", "valve", this.table.identify(open), this.table.getFingerprint(), open,
+                new Object[]{percentage});
+    }
+
+    private Request json(Request request) {
+        return (Request) Message.from(new JSONObject(request.encode(this.communication)), this.communication);
+    }
+
+    private Request binary(Request request) {
+        return (RequestView) BinaryCodec.decode(BinaryCodec.encode(request));
+    }
+
+    private Throwable failure(Request request) throws Exception {
+        try {
+            ModuleManager.invoke(this.module, this.table, this.table.get(0), request, true);
+        } catch (InvocationTargetException e) {
+            return e;
+        }
+        fail("The invocation did not fail");
+        return null;
+    }
+
+    @Test
+    public void bothCodecsInvokeThroughTheModule() throws Exception {
+        assertEquals(40, ModuleManager.invoke(this.module, this.table, this.table.get(0), this.json(this.request(40)), true));
+        assertEquals(40, ModuleManager.invoke(this.module, this.table, this.table.get(0), this.binary(this.request(40)), true));
+    }
+
+    @Test
+    public void bothCodecsFailTheSameWay() throws Exception {
+        Throwable json = this.failure(this.json(this.request(150)));
+        Throwable binary = this.failure(this.binary(this.request(150)));
+
+        // Every level of wrapping is the same, down to what the implementation threw
+        while (json != null || binary != null) {
+            assertNotNull(json);
+            assertNotNull(binary);
+            assertEquals(json.getClass(), binary.getClass());
+            assertEquals(json.getMessage(), binary.getMessage());
+            json = json.getCause();
+            binary = binary.getCause();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.yarmis.core;
+
+import com.yarmis.core.messages.Response;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class RecyclerTest {
+
+    private static class Counting extends Recycler<StringBuilder> {
+
+        private int created = 0;
+
+        private Counting(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        protected StringBuilder create() {
+            ++this.created;
+            return new StringBuilder();
+        }
+
+        @Override
+        protected boolean reset(StringBuilder builder) {
+            builder.setLength(0);
+            return builder.capacity() < 1024;
+        }
+    }
+
+    @Test
+    public void releasedObjectsAreReused() {
+        Counting recycler = new Counting(4);
+        StringBuilder first = recycler.acquire();
+        first.append("used");
+        recycler.release(first);
+
+        StringBuilder second = recycler.acquire();
+        assertSame(first, second);
+        assertEquals(0, second.length());
+        assertEquals(1, recycler.created);
+    }
+
+    @Test
+    public void objectsThatCanNotBeResetAreNotReused() {
+        Counting recycler = new Counting(4);
+        StringBuilder large = recycler.acquire();
+        large.ensureCapacity(4096);
+        recycler.release(large);
+
+        assertNotSame(large, recycler.acquire());
+    }
+
+    @Test
+    public void poolsAreBounded() {
+        Counting recycler = new Counting(1);
+        StringBuilder a = recycler.acquire(), b = recycler.acquire();
+        recycler.release(a);
+        recycler.release(b);
+
+        recycler.acquire();
+        recycler.acquire();
+        assertEquals(3, recycler.created);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releasingTwiceIsDetected() {
+        Counting recycler = new Counting(4);
+        StringBuilder builder = recycler.acquire();
+        recycler.release(builder);
+        recycler.release(builder);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releasingForeignObjectsIsDetected() {
+        // Only tracked objects can be told apart from foreign ones
+        assumeTrue(Recycler.TRACKING);
+        new Counting(4).release(new StringBuilder());
+    }
+
+    @Test
+    public void releasingFromAnotherThreadIsDetected() throws Exception {
+        assumeTrue(Recycler.TRACKING);
+        final Counting recycler = new Counting(4);
+        final StringBuilder builder = recycler.acquire();
+        final Throwable[] thrown = new Throwable[1];
+        Thread other = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    recycler.release(builder);
+                } catch (Throwable t) {
+                    thrown[0] = t;
+                }
+            }
+        });
+        other.start();
+        other.join();
+        assertTrue(thrown[0] instanceof IllegalStateException);
+    }
+
+    @Test
+    public void responsesAreReusedAndCanNotBeUsedAfterwards() {
+        Response response = Response.obtain("1", 42, true);
+        assertEquals("1", response.getIdentifier());
+        assertEquals(42, response.value());
+        response.recycle();
+
+        try {
+            response.value();
+            fail("Using a recycled Response should be detected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        Response next = Response.obtain("2", null, false);
+        assertSame(response, next);
+        assertEquals("2", next.getIdentifier());
+        assertFalse(next.isSuccess());
+        next.recycle();
+    }
+}
@@ -0,0 +1,62 @@
+package com.yarmis.core;
+
+import com.yarmis.core.annotations.DemandRights;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class RemotePublisherTest {
+
+    public interface Target {
+        @DemandRights("target")
+        Flow.Publisher<String> items(int count);
+    }
+
+    private final CommunicationManager manager = new CommunicationManager(null);
+
+    @Test
+    public void unsentStreamsFailTheSubscriber() throws Exception {
+        Method method = Target.class.getMethod("items", int.class);
+        final AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        this.manager.stream("target", MethodTable.of(Target.class), method, 10).subscribe(new Flow.Subscriber<Object>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription.set(s);
+                // Demand that is made before the stream is open is kept until it is
+                s.request(5);
+            }
+
+            @Override
+            public void onNext(Object item) {
+                fail("No items can arrive without a host");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                failure.set(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                fail("The stream can't complete without a host");
+            }
+        });
+
+        assertNotNull(subscription.get());
+        assertNotNull(failure.get());
+        assertEquals(0, this.manager.getPendingRequests());
+    }
+
+    @Test
+    public void demandsSaturate() {
+        assertEquals(10, StreamSender.add(3, 7));
+        assertEquals(Long.MAX_VALUE, StreamSender.add(Long.MAX_VALUE, 1));
+        assertEquals(Long.MAX_VALUE, StreamSender.add(Long.MAX_VALUE - 1, Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,67 @@
+package com.yarmis.core;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.*;
+
+public class ResolverTest {
+
+    public interface Listener {
+        void changed(int value);
+    }
+
+    public static class Unlisted {
+    }
+
+    @Test
+    public void allowedClassesAreResolved() throws Exception {
+        Resolver resolver = new Resolver();
+        resolver.allow(Listener.class);
+
+        assertSame(Listener.class, resolver.resolveClass(Listener.class.getName(), null));
+        assertSame(String.class, resolver.resolveClass("java.lang.String", null));
+    }
+
+    @Test(expected = ClassNotFoundException.class)
+    public void otherClassesAreRefused() throws Exception {
+        new Resolver().resolveClass(Unlisted.class.getName(), null);
+    }
+
+    @Test
+    public void subtypesOfTheExpectedTypeAreAllowedForThatTypeOnly() throws Exception {
+        Resolver resolver = new Resolver();
+        String name = "com.knoop.casey.exceptions.FailedCommandExecution";
+        assertEquals(name, resolver.resolveClass(name, Throwable.class).getName());
+
+        try {
+            resolver.resolveClass(name, null);
+            fail("A class that was only allowed as a Throwable must not be resolved for anything else");
+        } catch (ClassNotFoundException e) {
+            // expected
+        }
+
+        try {
+            resolver.resolveClass(Unlisted.class.getName(), Throwable.class);
+            fail("A class that is not a Throwable must not be resolved as one");
+        } catch (ClassNotFoundException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void allowedPackagesCanBeAdded() throws Exception {
+        Resolver resolver = new Resolver();
+        resolver.allowPackage("com.yarmis.core");
+        assertSame(Unlisted.class, resolver.resolveClass(Unlisted.class.getName(), null));
+    }
+
+    @Test
+    public void methodsAreRemembered() throws Exception {
+        Resolver resolver = new Resolver(1);
+        Method method = resolver.resolveMethod(Listener.class, "changed", int.class);
+        assertSame(method, resolver.resolveMethod(Listener.class, "changed", int.class));
+        assertEquals(Listener.class.getMethod("changed", int.class), method);
+    }
+}
@@ -0,0 +1,329 @@
+package com.yarmis.core;
+
+import com.yarmis.core.exceptions.CancelledException;
+import com.yarmis.core.exceptions.InvalidRequestException;
+import com.yarmis.core.exceptions.TimeoutException;
+import com.yarmis.core.messages.Chunk;
+import com.yarmis.core.messages.Message;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ResultHandlerTest {
+
+    private final Communication communication = new Communication(null);
+
+    private final ResultHandler handler = new ResultHandler();
+
+    /**
+     * Sends the given value in chunks to a new Result, and returns the value that the Result was released with.
+     */
+    private Object transfer(String identifier, Object value, int size, int elements) throws Exception {
+        Result result = this.handler.create(identifier);
+        Iterator<Chunk> chunks = Chunk.split(identifier, value, size, elements);
+        assertNotNull(chunks);
+
+        int count = 0;
+        while (chunks.hasNext()) {
+            String encoded = chunks.next().translate(this.communication).toString();
+            this.handler.receive((Chunk) Message.from(new JSONObject(encoded), this.communication));
+            ++count;
+        }
+        assertTrue(count > 1);
+        return result.get();
+    }
+
+    @Test
+    public void smallValuesAreNotSplit() {
+        assertNull(Chunk.split("id", "short", 16, 16));
+        assertNull(Chunk.split("id", new byte[16], 16, 16));
+        assertNull(Chunk.split("id", 42, 1, 1));
+    }
+
+    @Test
+    public void stringsAreReassembled() throws Exception {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 100; ++i)
+            value.append(i).append("\uD83D\uDE00");
+
+        assertEquals(value.toString(), this.transfer("string", value.toString(), 7, 0));
+    }
+
+    @Test
+    public void byteArraysAreReassembled() throws Exception {
+        byte[] value = new byte[1000];
+        for (int i = 0; i < value.length; ++i)
+            value[i] = (byte) i;
+
+        assertArrayEquals(value, (byte[]) this.transfer("bytes", value, 64, 0));
+    }
+
+    @Test
+    public void listsAreReassembled() throws Exception {
+        List<Object> value = new ArrayList<>();
+        for (int i = 0; i < 50; ++i)
+            value.add(i % 2 == 0 ? "element " + i : i);
+
+        assertEquals(value, this.transfer("list", value, 0, 8));
+    }
+
+    /**
+     * Passes the given chunk to the handler the way it would be received.
+     */
+    private void receive(Chunk chunk) {
+        this.handler.receive((Chunk) Message.from(new JSONObject(chunk.translate(this.communication).toString()), this.communication));
+    }
+
+    @Test
+    public void chunksOutOfOrderFailOnlyTheirRequest() throws Exception {
+        Result order = this.handler.create("order");
+        Result other = this.handler.create("other");
+        Iterator<Chunk> chunks = Chunk.split("order", "0123456789", 2, 0);
+        chunks.next();
+        this.receive(chunks.next());
+
+        try {
+            order.get();
+            fail("A chunk out of order should fail the request");
+        } catch (InvalidRequestException e) {
+            // expected
+        }
+        assertEquals(1, this.handler.pending());
+
+        this.handler.release(Message.makeResponse("other", 3, true));
+        assertEquals(3, other.get());
+    }
+
+    @Test
+    public void chunksRestartTheTimeoutOfTheirRequest() throws Exception {
+        CompletableFuture<Object> future = this.handler.create("chunked", 40).toCompletableFuture();
+        this.receive(Chunk.split("chunked", "0123456789", 2, 0).next());
+
+        try {
+            // The request times out long before the default timeout
+            future.get(ResultHandler.TIMEOUT / 2, TimeUnit.MILLISECONDS);
+            fail("The request should time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void resultsTimeOut() throws Exception {
+        this.handler.create("late", 20).get();
+    }
+
+    @Test
+    public void releasedResultsDoNotTimeOut() throws Exception {
+        Result result = this.handler.create("early", 20);
+        this.handler.release(Message.makeResponse("early", 42, true));
+        Thread.sleep(60);
+        assertEquals(42, result.get());
+    }
+
+    @Test
+    public void futuresCompleteWithTheResponse() throws Exception {
+        Result result = this.handler.create("future");
+        CompletableFuture<Object> future = result.toCompletableFuture();
+        assertFalse(future.isDone());
+
+        this.handler.release(Message.makeResponse("future", "value", true));
+        assertEquals("value", future.get(1, TimeUnit.SECONDS));
+        assertSame(future, result.toCompletableFuture());
+        assertEquals("value", result.get());
+    }
+
+    @Test
+    public void futuresOfReleasedResultsAreComplete() throws Exception {
+        Result result = this.handler.create("released");
+        this.handler.release(Message.makeResponse("released", 7, true));
+        assertEquals(7, result.toCompletableFuture().getNow(null));
+    }
+
+    @Test
+    public void futuresCompleteExceptionallyWithFailures() throws Exception {
+        Result result = this.handler.create("failure");
+        this.handler.release(Message.makeResponse("failure", new IllegalArgumentException("bad"), false));
+        try {
+            result.toCompletableFuture().get();
+            fail("The failure should complete the future exceptionally");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void futuresCompleteExceptionallyOnTimeout() throws Exception {
+        CompletableFuture<Object> future = this.handler.create("slow", 20).toCompletableFuture();
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("The timeout should complete the future exceptionally");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void answeredAndTimedOutRequestsAreForgotten() throws Exception {
+        this.handler.create("answered");
+        Result late = this.handler.create("late", 20);
+        this.handler.create("discarded");
+        assertEquals(3, this.handler.pending());
+
+        this.handler.release(Message.makeResponse("answered", 1, true));
+        this.handler.discard("discarded");
+        assertEquals(1, this.handler.pending());
+
+        try {
+            late.get();
+            fail("The request should have timed out");
+        } catch (TimeoutException e) {
+            assertEquals(0, this.handler.pending());
+        }
+    }
+
+    @Test(expected = InvalidRequestException.class)
+    public void responsesAreOnlyAcceptedOnce() {
+        this.handler.create("once");
+        this.handler.release(Message.makeResponse("once", 1, true));
+        this.handler.release(Message.makeResponse("once", 2, true));
+    }
+
+    @Test
+    public void concurrentRequestsAreAllAnswered() throws Exception {
+        final int threads = 8, calls = 500;
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicInteger answered = new AtomicInteger();
+        for (int t = 0; t < threads; ++t) {
+            final int thread = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < calls; ++i) {
+                            String identifier = thread + ":" + i;
+                            Result result = ResultHandlerTest.this.handler.create(identifier);
+                            ResultHandlerTest.this.handler.release(Message.makeResponse(identifier, i, true));
+                            if (result.get().equals(i))
+                                answered.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(threads * calls, answered.get());
+        assertEquals(0, this.handler.pending());
+    }
+
+    @Test
+    public void cancelledResultsAreForgotten() throws Exception {
+        Result result = this.handler.create("cancelled");
+        final AtomicInteger cancels = new AtomicInteger();
+        result.onCancel(new Runnable() {
+            @Override
+            public void run() {
+                cancels.incrementAndGet();
+                ResultHandlerTest.this.handler.discard("cancelled");
+            }
+        });
+
+        assertTrue(result.cancel());
+        assertFalse(result.cancel());
+        assertTrue(result.isCancelled());
+        assertEquals(1, cancels.get());
+        assertEquals(0, this.handler.pending());
+        try {
+            result.get();
+            fail("A cancelled result has no value");
+        } catch (CancelledException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void releasedResultsCanNotBeCancelled() throws Exception {
+        Result result = this.handler.create("answered");
+        this.handler.release(Message.makeResponse("answered", 3, true));
+        assertFalse(result.cancel());
+        assertFalse(result.isCancelled());
+        assertEquals(3, result.get());
+    }
+
+    @Test
+    public void cancellingTheFutureCancelsTheResult() {
+        Result result = this.handler.create("future");
+        assertTrue(result.toCompletableFuture().cancel(true));
+        assertTrue(result.isCancelled());
+    }
+
+    /**
+     * Creates a task that counts how often it was run.
+     */
+    private static Runnable counting(final AtomicInteger count) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                count.incrementAndGet();
+            }
+        };
+    }
+
+    @Test
+    public void hedgedResultsTakeTheFirstResponse() throws Exception {
+        AtomicInteger originalAbandoned = new AtomicInteger(), hedgeAbandoned = new AtomicInteger();
+        Result result = this.handler.create("original");
+        assertTrue(this.handler.hedge("original", counting(originalAbandoned), "hedge", counting(hedgeAbandoned), 1000));
+        assertEquals(2, this.handler.pending());
+
+        this.handler.release(Message.makeResponse("hedge", "fast", true));
+        assertEquals("fast", result.get());
+        assertEquals(1, originalAbandoned.get());
+        assertEquals(0, hedgeAbandoned.get());
+        assertEquals(0, this.handler.pending());
+    }
+
+    @Test
+    public void answeredRequestsAreNotHedged() {
+        this.handler.create("answered");
+        this.handler.release(Message.makeResponse("answered", 1, true));
+        assertFalse(this.handler.hedge("answered", null, "hedge", null, 1000));
+        assertEquals(0, this.handler.pending());
+    }
+
+    @Test
+    public void cancellingAbandonsTheHedge() {
+        AtomicInteger hedgeAbandoned = new AtomicInteger();
+        this.handler.create("original");
+        this.handler.hedge("original", null, "hedge", counting(hedgeAbandoned), 1000);
+
+        this.handler.cancel("original");
+        assertEquals(1, hedgeAbandoned.get());
+        assertEquals(0, this.handler.pending());
+    }
+
+    @Test
+    public void unsentHedgesLeaveTheOriginalOutstanding() throws Exception {
+        Result result = this.handler.create("original");
+        this.handler.hedge("original", null, "hedge", null, 1000);
+        this.handler.discard("hedge");
+
+        this.handler.release(Message.makeResponse("original", 2, true));
+        assertEquals(2, result.get());
+    }
+}
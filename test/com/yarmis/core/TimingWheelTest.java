@@ -0,0 +1,102 @@
+package com.yarmis.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TimingWheelTest {
+
+    // A small wheel, such that most delays take several revolutions
+    private final TimingWheel wheel = new TimingWheel(1, 4, "test-wheel");
+
+    @Test
+    public void tasksNeverRunBeforeTheirDelay() throws Exception {
+        final int count = 50;
+        final CountDownLatch done = new CountDownLatch(count);
+        final ConcurrentLinkedQueue<String> early = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < count; ++i) {
+            final long delay = i;
+            final long scheduled = System.nanoTime();
+            this.wheel.schedule(delay, new Runnable() {
+                @Override
+                public void run() {
+                    if (System.nanoTime() - scheduled < TimeUnit.MILLISECONDS.toNanos(delay))
+                        early.add("Task with delay " + delay);
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(early.toString(), early.isEmpty());
+    }
+
+    @Test
+    public void cancelledTasksDoNotRun() throws Exception {
+        final AtomicInteger ran = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                ran.incrementAndGet();
+            }
+        };
+
+        TimingWheel.Timeout cancelled = this.wheel.schedule(20, task);
+        // Give the wheel time to put the task in its bucket, such that it is removed from there
+        TimingWheel.Timeout late = this.wheel.schedule(40, task);
+        Thread.sleep(5);
+        assertTrue(cancelled.cancel());
+        assertTrue(late.cancel());
+        assertFalse(late.cancel());
+
+        final CountDownLatch done = new CountDownLatch(1);
+        this.wheel.schedule(60, new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, ran.get());
+        assertTrue(cancelled.isCancelled());
+        assertFalse(cancelled.isExpired());
+    }
+
+    @Test
+    public void expiredTasksCanNotBeCancelled() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        TimingWheel.Timeout timeout = this.wheel.schedule(1, new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    public void failingTasksDoNotStopTheWheel() throws Exception {
+        this.wheel.schedule(1, new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("failed");
+            }
+        });
+
+        final CountDownLatch done = new CountDownLatch(1);
+        this.wheel.schedule(10, new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+}
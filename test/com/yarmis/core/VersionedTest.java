@@ -0,0 +1,55 @@
+package com.yarmis.core;
+
+import com.yarmis.core.annotations.Cacheable;
+import com.yarmis.core.annotations.Delta;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.junit.Assert.*;
+
+public class VersionedTest {
+
+    private interface Cached {
+
+        @Cacheable(1000)
+        long version();
+
+        long uncached();
+
+        @Cacheable(1000)
+        void nothing();
+
+        @Delta
+        @Cacheable(1000)
+        List<String> delta();
+
+        @Cacheable(1000)
+        Flow.Publisher<String> stream();
+    }
+
+    private static boolean isCacheable(String name) throws NoSuchMethodException {
+        return Versioned.isCacheable(Cached.class.getMethod(name));
+    }
+
+    @Test
+    public void annotatedMethodsAreCacheable() throws NoSuchMethodException {
+        assertTrue(isCacheable("version"));
+        assertFalse(isCacheable("uncached"));
+    }
+
+    @Test
+    public void methodsWithoutCacheableResultsAreNotCached() throws NoSuchMethodException {
+        assertFalse(isCacheable("nothing"));
+        assertFalse(isCacheable("delta"));
+        assertFalse(isCacheable("stream"));
+    }
+
+    @Test
+    public void unmodifiedResultsCarryTheirVersion() {
+        Versioned versioned = Versioned.unmodified(4);
+        assertEquals(4, versioned.getVersion());
+        assertFalse(versioned.isModified());
+    }
+}
@@ -0,0 +1,59 @@
+package com.yarmis.core.messages;
+
+import com.yarmis.core.Communication;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchMessageTest {
+
+    private final Communication communication = new Communication(null);
+
+    public interface Target {
+        void call(int number, String text);
+    }
+
+    private BatchMessage requests() throws Exception {
+        Method method = Target.class.getMethod("call", int.class, String.class);
+        return Message.makeBatch(Arrays.asList(
+                Message.makeRequest("1", "target", 0, 42, method, new Object[]{1, "one"}),
+                Message.makeRequest("2", "target", 0, 42, 0, 500, method, new Object[]{2, "two"})));
+    }
+
+    @Test
+    public void encodingIsTheTranslation() throws Exception {
+        BatchMessage batch = this.requests();
+        assertTrue(new JSONObject(batch.encode(this.communication)).similar(new JSONObject(batch.translate(this.communication).toString())));
+    }
+
+    @Test
+    public void requestsAreDecodedInOrder() throws Exception {
+        String encoded = this.requests().encode(this.communication);
+        List<Message> messages = ((BatchMessage) Message.from(new JSONObject(encoded), this.communication)).getMessages();
+
+        assertEquals(2, messages.size());
+        Request first = (Request) messages.get(0), second = (Request) messages.get(1);
+        assertEquals("1", first.getIdentifier());
+        assertArrayEquals(new Object[]{1, "one"}, first.getArguments());
+        assertEquals("2", second.getIdentifier());
+        assertEquals(500, second.getTimeout());
+        assertArrayEquals(new Object[]{2, "two"}, second.getArguments());
+    }
+
+    @Test
+    public void responsesAreDecoded() throws Exception {
+        BatchMessage batch = Message.makeBatch(Arrays.asList(
+                Message.makeResponse("1", 1, true), Message.makeResponse("2", "two", true)));
+        List<Message> messages = ((BatchMessage) Message.from(
+                new JSONObject(batch.encode(this.communication)), this.communication)).getMessages();
+
+        assertEquals("1", ((Response) messages.get(0)).getIdentifier());
+        assertEquals(1, ((Response) messages.get(0)).value());
+        assertEquals("two", ((Response) messages.get(1)).value());
+    }
+}
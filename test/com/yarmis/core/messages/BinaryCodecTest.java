@@ -0,0 +1,109 @@
+package com.yarmis.core.messages;
+
+import com.yarmis.core.Communication;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.*;
+
+public class BinaryCodecTest {
+
+    public interface Target {
+        void primitives(int number, long big, double fraction, boolean flag, String text);
+
+        void boxed(Integer number, String text);
+
+        void complex(Object value);
+    }
+
+    private static Method method(String name) {
+        for (Method method : Target.class.getMethods())
+            if (method.getName().equals(name))
+                return method;
+        throw new IllegalArgumentException(name);
+    }
+
+    @Test
+    public void requestViewsReadStraightFromTheFrame() {
+        Request request = Message.makeRequest("abc", "target", 3, 99, method("primitives"),
+                new Object[]{7, 1L << 40, 0.5, true, "h\u00e9llo"});
+        byte[] frame = BinaryCodec.encode(request);
+        assertNotNull(frame);
+
+        RequestView view = (RequestView) BinaryCodec.decode(frame);
+        assertEquals("abc", view.getIdentifier());
+        assertEquals("target", view.getRecipient());
+        assertEquals(3, view.getMethodIdentifier());
+        assertEquals(99, view.getFingerprint());
+        assertEquals(5, view.getArgumentCount());
+        assertEquals(7, view.getInt(0));
+        assertEquals(1L << 40, view.getLong(1));
+        assertEquals(0.5, view.getDouble(2), 0);
+        assertTrue(view.getBoolean(3));
+        assertEquals("h\u00e9llo", view.getArgument(4));
+        assertArrayEquals(new Object[]{7, 1L << 40, 0.5, true, "h\u00e9llo"}, view.getArguments());
+        assertArrayEquals(new Class<?>[]{int.class, long.class, double.class, boolean.class, String.class},
+                view.getArgumentTypes());
+    }
+
+    @Test
+    public void timeoutsAreSent() {
+        Request request = Message.makeRequest("abc", "target", 0, 0, com.yarmis.core.Delta.NO_VERSION, 2500,
+                method("boxed"), new Object[]{1, "one"});
+        RequestView view = (RequestView) BinaryCodec.decode(BinaryCodec.encode(request));
+        assertEquals(2500, view.getTimeout());
+        assertArrayEquals(new Object[]{1, "one"}, view.getArguments());
+    }
+
+    @Test
+    public void nullArgumentsCanBeSent() {
+        Request request = Message.makeRequest("abc", "target", 0, 0, method("boxed"), new Object[]{null, null});
+        RequestView view = (RequestView) BinaryCodec.decode(BinaryCodec.encode(request));
+        assertArrayEquals(new Object[]{null, null}, view.getArguments());
+    }
+
+    @Test(expected = ClassCastException.class)
+    public void primitiveAccessorsCheckTheType() {
+        Request request = Message.makeRequest("abc", "target", 0, 0, method("boxed"), new Object[]{1, "one"});
+        ((RequestView) BinaryCodec.decode(BinaryCodec.encode(request))).getInt(1);
+    }
+
+    @Test
+    public void otherArgumentsAreLeftToJSON() {
+        assertNull(BinaryCodec.encode(Message.makeRequest("abc", "target", 0, 0, method("complex"), new Object[]{"x"})));
+    }
+
+    @Test
+    public void responsesWithPrimitiveValuesAreBinary() {
+        ResponseView view = (ResponseView) BinaryCodec.decode(BinaryCodec.encode(Message.makeResponse("abc", 42L, true)));
+        assertEquals("abc", view.getIdentifier());
+        assertTrue(view.isSuccess());
+        assertEquals(42L, view.value());
+
+        assertNull(BinaryCodec.encode(Message.makeResponse("abc", new RuntimeException(), false)));
+    }
+
+    @Test
+    public void viewsAreSentAsWhatTheyView() {
+        Communication communication = new Communication(null);
+        Request request = Message.makeRequest("abc", "target", 3, 99, com.yarmis.core.Delta.NO_VERSION, 2500,
+                method("primitives"), new Object[]{7, 1L << 40, 0.5, true, "text"});
+        RequestView view = (RequestView) BinaryCodec.decode(BinaryCodec.encode(request));
+
+        Request copy = (Request) Message.from(new JSONObject(view.encode(communication)), communication);
+        assertEquals("abc", copy.getIdentifier());
+        assertEquals("target", copy.getRecipient());
+        assertEquals(3, copy.getMethodIdentifier());
+        assertEquals(99, copy.getFingerprint());
+        assertEquals(2500, copy.getTimeout());
+        assertArrayEquals(new Object[]{7, 1L << 40, 0.5, true, "text"}, copy.getArguments());
+
+        ResponseView response = (ResponseView) BinaryCodec.decode(BinaryCodec.encode(Message.makeResponse("abc", 42L, true)));
+        Response responseCopy = (Response) Message.from(new JSONObject(response.encode(communication)), communication);
+        assertEquals("abc", responseCopy.getIdentifier());
+        assertTrue(responseCopy.isSuccess());
+        assertEquals(42L, responseCopy.value());
+    }
+}
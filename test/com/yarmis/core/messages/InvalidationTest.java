@@ -0,0 +1,21 @@
+package com.yarmis.core.messages;
+
+import com.yarmis.core.Communication;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InvalidationTest {
+
+    private final Communication communication = new Communication(null);
+
+    @Test
+    public void moduleAndVersionAreSent() {
+        String encoded = Message.makeInvalidation("devices", 12).encode(this.communication);
+        Invalidation invalidation = (Invalidation) Message.from(new JSONObject(encoded), this.communication);
+
+        assertEquals("devices", invalidation.getModuleIdentifier());
+        assertEquals(12, invalidation.getVersion());
+    }
+}
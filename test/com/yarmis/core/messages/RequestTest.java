@@ -0,0 +1,141 @@
+package com.yarmis.core.messages;
+
+import com.yarmis.core.Communication;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RequestTest {
+
+    private final Communication communication = new Communication(null);
+
+    public interface Target {
+        void call(int number, String text);
+
+        void mixed(long big, double fraction, List<String> names, Integer boxed, char letter);
+    }
+
+    private static Method mixed() throws Exception {
+        return Target.class.getMethod("mixed", long.class, double.class, List.class, Integer.class, char.class);
+    }
+
+    private JSONObject encode(Object... arguments) throws Exception {
+        Method method = Target.class.getMethod("call", int.class, String.class);
+        return Message.makeRequest("1", "target", 0, 42, method, arguments).translate(this.communication);
+    }
+
+    @Test
+    public void argumentsAreDecodedWithTheirTypes() throws Exception {
+        Request request = (Request) Message.from(this.encode(7, "seven"), this.communication);
+
+        assertEquals(0, request.getMethodIdentifier());
+        assertEquals(42, request.getFingerprint());
+        assertArrayEquals(new Object[]{7, "seven"}, request.getArguments());
+        assertArrayEquals(new Class<?>[]{int.class, String.class}, request.getArgumentTypes());
+    }
+
+    @Test
+    public void argumentsAreOnlyDecodedWhenNeeded() throws Exception {
+        JSONObject json = this.encode(7, "seven");
+        json.getJSONArray(Communication.Request.VALUES).getJSONObject(1).put(Communication.Value.TYPE, "not.a.Type");
+
+        // Counting the arguments must not require decoding them
+        Request request = (Request) Message.from(json, this.communication);
+        assertEquals(2, request.getArgumentCount());
+
+        try {
+            request.getArguments();
+            fail("Undecodable arguments should be noticed when they are needed");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void recycledArgumentArraysAreReused() throws Exception {
+        Communication recycling = new Communication(null);
+        recycling.setRecycling(true);
+        JSONObject json = this.encode(7, "seven");
+
+        Request first = (Request) Message.from(json, recycling);
+        Object[] arguments = first.getArguments();
+        assertArrayEquals(new Object[]{7, "seven"}, arguments);
+        first.recycle();
+        assertArrayEquals(new Object[]{null, null}, arguments);
+
+        try {
+            first.getArguments();
+            fail("Using a recycled Request should be detected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        Request second = (Request) Message.from(json, recycling);
+        assertSame(arguments, second.getArguments());
+        assertArrayEquals(new Object[]{7, "seven"}, second.getArguments());
+        second.recycle();
+    }
+
+    @Test
+    public void recyclingEncodesTheSame() throws Exception {
+        Communication recycling = new Communication(null);
+        recycling.setRecycling(true);
+        Request request = Message.makeRequest("1", "target", 2, 42, mixed(), new Object[]{1L, 0.5, Arrays.asList("a"), 3, 'x'});
+        for (int i = 0; i < 2; ++i)
+            assertEquals(request.encode(this.communication), request.encode(recycling));
+    }
+
+    @Test
+    public void templatesEncodeTheSameAsTranslate() throws Exception {
+        Object[][] calls = {
+                {1L << 40, 0.25, Arrays.asList("a", "b"), 3, 'x'},
+                {-1L, -0.5, null, null, 'y'},
+        };
+        for (Object[] arguments : calls) {
+            for (long known : new long[]{com.yarmis.core.Delta.NO_VERSION, 12}) {
+                Request request = Message.makeRequest("id\"1", "target", 2, 42, known, mixed(), arguments);
+                // Twice, such that the second one uses the template
+                for (int i = 0; i < 2; ++i)
+                    assertTrue(new JSONObject(request.encode(this.communication)).similar(new JSONObject(request.translate(this.communication).toString())));
+
+                Request decoded = (Request) Message.from(new JSONObject(request.encode(this.communication)), this.communication);
+                assertArrayEquals(arguments, decoded.getArguments());
+                assertEquals(known, decoded.getKnownVersion());
+            }
+        }
+    }
+
+    @Test
+    public void timeoutsAreSent() throws Exception {
+        Request request = Message.makeRequest("1", "target", 2, 42, com.yarmis.core.Delta.NO_VERSION, 750, mixed(),
+                new Object[]{1L, 0.5, null, 3, 'x'});
+        for (int i = 0; i < 2; ++i) {
+            assertEquals(750, ((Request) Message.from(new JSONObject(request.encode(this.communication)), this.communication)).getTimeout());
+            assertEquals(750, ((Request) Message.from(request.translate(this.communication), this.communication)).getTimeout());
+        }
+        assertEquals(com.yarmis.core.Deadline.NONE, ((Request) Message.from(this.encode(7, "seven"), this.communication)).getTimeout());
+    }
+
+    @Test
+    public void templatesDependOnTheRecipient() throws Exception {
+        Object[] arguments = {1L, 1.0, null, 1, 'a'};
+        Message.makeRequest("1", "first", 2, 42, mixed(), arguments).encode(this.communication);
+        Request other = Message.makeRequest("1", "second", 2, 42, mixed(), arguments);
+
+        assertEquals("second", new JSONObject(other.encode(this.communication)).getString(Communication.Request.MODULE));
+    }
+
+    @Test
+    public void notificationTemplatesEncodeTheSameAsTranslate() throws Exception {
+        Method method = Target.class.getMethod("call", int.class, String.class);
+        for (int i = 0; i < 2; ++i) {
+            Notification notification = Message.makeNotification(null, method, new Object[]{i, "text " + i});
+            assertTrue(new JSONObject(notification.encode(this.communication)).similar(new JSONObject(notification.translate(this.communication).toString())));
+        }
+    }
+}
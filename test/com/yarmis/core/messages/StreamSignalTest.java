@@ -0,0 +1,47 @@
+package com.yarmis.core.messages;
+
+import com.yarmis.core.Communication;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class StreamSignalTest {
+
+    private final Communication communication = new Communication(null);
+
+    private StreamSignal roundTrip(StreamSignal signal) {
+        String encoded = signal.encode(this.communication);
+        return (StreamSignal) Message.from(new JSONObject(encoded), this.communication);
+    }
+
+    @Test
+    public void demandIsSent() {
+        StreamSignal signal = this.roundTrip(Message.makeStreamSignal("7", StreamSignal.DEMAND, 32, null));
+        assertEquals("7", signal.getIdentifier());
+        assertEquals(StreamSignal.DEMAND, signal.getKind());
+        assertEquals(32, signal.getCount());
+    }
+
+    @Test
+    public void itemsAreSent() {
+        StreamSignal signal = this.roundTrip(Message.makeStreamSignal("7", StreamSignal.ITEM, 0, "item"));
+        assertEquals(StreamSignal.ITEM, signal.getKind());
+        assertEquals("item", signal.getValue());
+    }
+
+    @Test
+    public void errorsAreSent() {
+        StreamSignal signal = this.roundTrip(Message.makeStreamSignal("7", StreamSignal.ERROR, 0, new IllegalStateException("broken")));
+        assertEquals(StreamSignal.ERROR, signal.getKind());
+        assertTrue(signal.getValue() instanceof Throwable);
+    }
+
+    @Test
+    public void endsCarryNoValue() {
+        JSONObject json = Message.makeStreamSignal("7", StreamSignal.COMPLETE, 0, null).translate(this.communication);
+        assertFalse(json.has(Communication.StreamSignal.VALUE));
+        assertFalse(json.has(Communication.StreamSignal.COUNT));
+        assertNull(this.roundTrip(Message.makeStreamSignal("7", StreamSignal.CANCEL, 0, null)).getValue());
+    }
+}
@@ -0,0 +1,65 @@
+package com.yarmis.core.translators;
+
+import com.yarmis.core.Communication;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class CollectionTranslatorTest {
+
+    private final Communication communication = new Communication(null);
+
+    private Object roundTrip(Object value) {
+        JSONObject json = this.communication.convertValue(value);
+        return this.communication.parseValue(new JSONObject(json.toString()));
+    }
+
+    @Test
+    public void listsKeepTheirElementsInOrder() {
+        List<Object> list = new LinkedList<Object>(Arrays.asList("a", 1, null, 2L));
+        assertEquals(list, this.roundTrip(list));
+        assertEquals(new ArrayList<Object>(list), this.roundTrip(new ArrayList<Object>(list)));
+    }
+
+    @Test
+    public void setsKeepTheirIterationOrder() {
+        Set<String> set = new TreeSet<>(Arrays.asList("c", "a", "b"));
+        Object copy = this.roundTrip(set);
+        assertEquals(set, copy);
+        assertEquals(new ArrayList<>(set), new ArrayList<>((Set<?>) copy));
+    }
+
+    @Test
+    public void mapsAreTranslatedWithTheirEntries() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("one", 1);
+        map.put("list", new ArrayList<>(Arrays.asList(1, 2)));
+        assertEquals(map, this.roundTrip(map));
+    }
+
+    @Test
+    public void theSizeIsTakenFromTheValues() {
+        JSONObject json = this.communication.convertValue(new ArrayList<>(Arrays.asList(1, 2, 3)));
+        JSONObject value = json.getJSONObject(Communication.Value.VALUE);
+        assertEquals(1, value.length());
+
+        // A size that doesn't match the values, as older senders could send, is ignored
+        value.put("size", Integer.MAX_VALUE);
+        assertEquals(Arrays.asList(1, 2, 3), this.communication.parseValue(new JSONObject(json.toString())));
+    }
+
+    @Test
+    public void mapsAreRestoredFromTheirEntriesAlone() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("one", 1);
+        map.put("two", 2);
+        JSONObject json = this.communication.convertValue(map);
+        assertEquals(1, json.getJSONObject(Communication.Value.VALUE).length());
+
+        json.getJSONObject(Communication.Value.VALUE).put("size", -1);
+        assertEquals(map, this.communication.parseValue(new JSONObject(json.toString())));
+    }
+}
@@ -0,0 +1,151 @@
+package com.yarmis.core.translators;
+
+import com.knoop.casey.Socket;
+import com.yarmis.core.Communication;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.*;
+
+public class DerivedTranslatorTest {
+
+    public record Reading(String sensor, int value, Socket.State state) {
+    }
+
+    private Communication communication;
+
+    @Before
+    public void setUp() {
+        this.communication = new Communication(null);
+    }
+
+    /**
+     * Encodes the given value and decodes it again from its textual form, as it would travel over a Connection.
+     */
+    private Object roundTrip(Object value) {
+        JSONObject json = this.communication.convertValue(value);
+        return this.communication.parseValue(new JSONObject(json.toString()));
+    }
+
+    @Test
+    public void enumsAreTranslatedByName() {
+        assertEquals(Socket.State.OFF, this.roundTrip(Socket.State.OFF));
+        assertTrue(this.communication.convertValue(Socket.State.OFF).toString().contains("OFF"));
+    }
+
+    @Test
+    public void enumsCanBeTranslatedByOrdinal() {
+        this.communication.registerEnum(Socket.Protocol.class, true);
+        assertEquals(Socket.Protocol.KAKU, this.roundTrip(Socket.Protocol.KAKU));
+        assertFalse(this.communication.convertValue(Socket.Protocol.KAKU).toString().contains("KAKU"));
+    }
+
+    @Test
+    public void recordsAreTranslated() {
+        Reading reading = new Reading("kitchen", 21, Socket.State.ON);
+        assertEquals(reading, this.roundTrip(reading));
+    }
+
+    @Test
+    public void beansAreTranslated() throws Exception {
+        // Prepare the way a module interface would, through the declared return type.
+        Method method = DerivedTranslatorTest.class.getDeclaredMethod("room", Appliance.class);
+        this.communication.ensureTranslatable(method.getGenericReturnType());
+
+        Room room = this.room(new Appliance());
+        Room copy = (Room) this.roundTrip(room);
+
+        assertNotSame(room, copy);
+        assertEquals("kitchen", copy.getName());
+        assertEquals(Appliance.class, copy.getAppliance().getClass());
+        assertEquals("fridge", copy.getAppliance().getName());
+    }
+
+    @Test
+    public void subclassesKeepTheirState() {
+        // The supertype is known first, as it is the declared type of the property.
+        this.communication.ensureTranslatable(Room.class);
+
+        Lamp lamp = new Lamp();
+        lamp.setBrightness(80);
+        Room copy = (Room) this.roundTrip(this.room(lamp));
+
+        assertEquals(Lamp.class, copy.getAppliance().getClass());
+        assertEquals("fridge", copy.getAppliance().getName());
+        assertEquals(80, ((Lamp) copy.getAppliance()).getBrightness());
+    }
+
+    @Test
+    public void subclassesThatCanNotBeDerivedAreSentAsTheirSupertype() {
+        this.communication.ensureTranslatable(Room.class);
+
+        Room copy = (Room) this.roundTrip(this.room(new Appliance() {
+        }));
+
+        assertEquals(Appliance.class, copy.getAppliance().getClass());
+        assertEquals("fridge", copy.getAppliance().getName());
+    }
+
+    private Room room(Appliance appliance) {
+        appliance.setName("fridge");
+        Room room = new Room();
+        room.setName("kitchen");
+        room.setAppliance(appliance);
+        return room;
+    }
+
+    public static class Room {
+
+        private String name;
+
+        private Appliance appliance;
+
+        public String getName() {
+            return this.name;
+        }
+
+        void setName(String name) {
+            this.name = name;
+        }
+
+        public Appliance getAppliance() {
+            return this.appliance;
+        }
+
+        void setAppliance(Appliance appliance) {
+            this.appliance = appliance;
+        }
+    }
+
+    public static class Appliance {
+
+        private String name;
+
+        Appliance() {
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class Lamp extends Appliance {
+
+        private int brightness;
+
+        public int getBrightness() {
+            return this.brightness;
+        }
+
+        void setBrightness(int brightness) {
+            this.brightness = brightness;
+        }
+    }
+}
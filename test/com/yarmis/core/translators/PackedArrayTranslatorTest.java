@@ -0,0 +1,38 @@
+package com.yarmis.core.translators;
+
+import com.yarmis.core.Communication;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PackedArrayTranslatorTest {
+
+    private final Communication communication = new Communication(null);
+
+    private Object roundTrip(Object value) {
+        JSONObject json = this.communication.convertValue(value);
+        return this.communication.parseValue(new JSONObject(json.toString()));
+    }
+
+    @Test
+    public void primitiveArraysSurviveTranslation() {
+        int[] ints = {0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        long[] longs = {Long.MIN_VALUE, 42L};
+        double[] doubles = {Math.PI, Double.NaN, -0.0};
+        byte[] bytes = {1, 2, (byte) 0xff};
+
+        assertArrayEquals(ints, (int[]) this.roundTrip(ints));
+        assertArrayEquals(longs, (long[]) this.roundTrip(longs));
+        assertArrayEquals(doubles, (double[]) this.roundTrip(doubles), 0);
+        assertArrayEquals(bytes, (byte[]) this.roundTrip(bytes));
+        assertArrayEquals(new int[0], (int[]) this.roundTrip(new int[0]));
+    }
+
+    @Test
+    public void elementsArePackedIntoOneBlock() {
+        JSONObject value = this.communication.convertValue(new int[1000]).getJSONObject(Communication.Value.VALUE);
+        assertEquals(2, value.length());
+        assertEquals(1000, value.getInt("length"));
+    }
+}
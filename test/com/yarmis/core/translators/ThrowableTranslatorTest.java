@@ -0,0 +1,85 @@
+package com.yarmis.core.translators;
+
+import com.knoop.casey.exceptions.FailedCommandExecution;
+import com.yarmis.core.Communication;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class ThrowableTranslatorTest {
+
+    private final Communication communication = new Communication(null);
+
+    private Throwable roundTrip(Throwable value) {
+        JSONObject json = this.communication.convertValue(value);
+        return (Throwable) this.communication.parseValue(new JSONObject(json.toString()));
+    }
+
+    @Test
+    public void messageCauseAndStackTraceAreRestored() {
+        Exception original = new IllegalStateException("outer", new IOException("inner"));
+        Throwable copy = this.roundTrip(original);
+
+        assertEquals(IllegalStateException.class, copy.getClass());
+        assertEquals("outer", copy.getMessage());
+        assertEquals(IOException.class, copy.getCause().getClass());
+        assertEquals("inner", copy.getCause().getMessage());
+        assertEquals(original.getStackTrace().length, copy.getStackTrace().length);
+        assertEquals(original.getStackTrace()[0].toString(), copy.getStackTrace()[0].toString());
+    }
+
+    @Test
+    public void stackTracesCanBeTruncatedOrOmitted() {
+        Exception original = new RuntimeException("failure");
+
+        this.communication.setStackTraceDepth(2);
+        assertEquals(2, this.roundTrip(original).getStackTrace().length);
+
+        this.communication.setStackTraceDepth(0);
+        assertEquals(0, this.roundTrip(original).getStackTrace().length);
+    }
+
+    @Test
+    public void causesAreCappedAtTheConfiguredDepth() {
+        this.communication.setCauseDepth(1);
+        Throwable copy = this.roundTrip(new RuntimeException(new RuntimeException(new RuntimeException("deepest"))));
+
+        assertNotNull(copy.getCause());
+        assertNull(copy.getCause().getCause());
+    }
+
+    @Test
+    public void exceptionsWithoutMessageConstructorAreRestored() {
+        Throwable copy = this.roundTrip(new FailedCommandExecution(3));
+
+        assertEquals(FailedCommandExecution.class, copy.getClass());
+    }
+
+    @Test(expected = ClassCastException.class)
+    public void onlyThrowablesAreInstantiated() {
+        JSONObject json = this.communication.convertValue(new RuntimeException());
+        json.getJSONObject(Communication.Value.VALUE).put("class", "java.lang.StringBuilder");
+        this.communication.parseValue(json);
+    }
+
+    @Test
+    public void framesInCommonWithTheEnclosingTraceAreNotRepeated() {
+        IOException cause = new IOException("inner");
+        Exception original = new IllegalStateException("outer", cause);
+
+        JSONObject encoded = this.communication.convertValue(original).getJSONObject(Communication.Value.VALUE);
+        JSONObject encodedCause = encoded.getJSONObject("cause");
+        assertEquals(cause.getStackTrace().length - 1, encodedCause.getInt("common"));
+        assertEquals(1, encodedCause.getJSONArray("stacktrace").length());
+
+        Throwable copy = this.roundTrip(original);
+        assertEquals(cause.getStackTrace().length, copy.getCause().getStackTrace().length);
+        for (int i = 0; i < cause.getStackTrace().length; ++i) {
+            assertEquals(cause.getStackTrace()[i].getMethodName(), copy.getCause().getStackTrace()[i].getMethodName());
+            assertEquals(cause.getStackTrace()[i].getLineNumber(), copy.getCause().getStackTrace()[i].getLineNumber());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.yarmis.core.translators;
+
+import com.yarmis.core.Communication;
+import com.yarmis.core.Versioned;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class VersionedTranslatorTest {
+
+    private final Communication communication = new Communication(null);
+
+    private Versioned roundTrip(Versioned value) {
+        JSONObject json = this.communication.convertValue(value);
+        return (Versioned) this.communication.parseValue(new JSONObject(json.toString()));
+    }
+
+    @Test
+    public void modifiedResultsAreSent() {
+        Versioned copy = this.roundTrip(new Versioned(3, true, "result"));
+
+        assertEquals(3, copy.getVersion());
+        assertTrue(copy.isModified());
+        assertEquals("result", copy.getValue());
+    }
+
+    @Test
+    public void modifiedNullResultsStayModified() {
+        Versioned copy = this.roundTrip(new Versioned(3, true, null));
+
+        assertTrue(copy.isModified());
+        assertNull(copy.getValue());
+    }
+
+    @Test
+    public void unmodifiedResultsCarryNoValue() {
+        Versioned copy = this.roundTrip(new Versioned(5, false, "ignored"));
+
+        assertEquals(5, copy.getVersion());
+        assertFalse(copy.isModified());
+        assertNull(copy.getValue());
+    }
+}